@@ -0,0 +1,102 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.parser.PriceCsvParser;
+import com.pt.recommendation_service.parser.PriceRecordSink;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import com.pt.recommendation_service.validator.CryptoValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of CSV line parsing on its own, without buffering or storing the parsed prices.
+ * <p>
+ * Compares {@link PriceCsvParser} with the previous approach of reading {@link String} lines, splitting them and
+ * parsing the fields with the JDK methods. Run with {@code -prof gc} to compare the allocation rates as well.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLineParsingBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"5"})
+    private int symbols;
+
+    private SymbolRegistry symbolRegistry;
+    private CryptoValidator cryptoValidator;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        symbolRegistry = SyntheticPrices.registry(symbols);
+        cryptoValidator = new CryptoValidator(symbolRegistry);
+        csv = SyntheticPrices.csv(symbolRegistry, rows);
+    }
+
+    @Benchmark
+    public void splitLines(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                Optional<CryptoSymbol> crypto = cryptoValidator.findSymbol(values[1]);
+                LocalDateTime dateTime = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(Long.parseLong(values[0])), ZoneOffset.UTC);
+                blackhole.consume(crypto);
+                blackhole.consume(dateTime);
+                blackhole.consume(Double.parseDouble(values[2]));
+            }
+        }
+    }
+
+    @Benchmark
+    public long priceCsvParser(Blackhole blackhole) throws IOException {
+        PriceCsvParser parser = new PriceCsvParser(symbolRegistry, new PriceRecordSink() {
+            @Override
+            public void accept(CryptoSymbol crypto, long timestamp, double price) {
+                blackhole.consume(crypto);
+                blackhole.consume(timestamp);
+                blackhole.consume(price);
+            }
+
+            @Override
+            public void unsupportedSymbol(long lineNumber, String symbol) {
+            }
+
+            @Override
+            public void malformedLine(long lineNumber, String line, String error) {
+            }
+        });
+        return parser.parse(new ByteArrayInputStream(csv));
+    }
+}
@@ -0,0 +1,108 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.service.CsvImportManifest;
+import com.pt.recommendation_service.service.CsvLoaderService;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the {@link CsvLoaderService} parsing loop.
+ * <p>
+ * Loads one synthetic CSV file per invocation, with the database and the import manifest replaced by no-ops, so the
+ * score is the time to read, parse, validate and buffer {@code rows} lines and publish them to the store.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLoaderBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    @Param({"5"})
+    private int symbols;
+
+    private PriceStore priceStore;
+    private CsvLoaderService csvLoaderService;
+
+    @Setup
+    public void setUp() {
+        SymbolRegistry symbolRegistry = SyntheticPrices.registry(symbols);
+        Resource csv = new ByteArrayResource(SyntheticPrices.csv(symbolRegistry, rows));
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver() {
+            @Override
+            public Resource[] getResources(String locationPattern) {
+                return new Resource[]{csv};
+            }
+        };
+        PriceBatchRepository batchRepository = new PriceBatchRepository(null) {
+            @Override
+            public void insertBatch(PriceRows batch) {
+            }
+
+            @Override
+            public long count() {
+                return 0;
+            }
+        };
+        CsvImportManifest manifest = new CsvImportManifest(null) {
+            @Override
+            public long resumeOffset(Resource resource) {
+                return 0;
+            }
+
+            @Override
+            public void record(Resource resource, long lastModified, long importedBytes, long addedRows) {
+            }
+
+            @Override
+            public long importedRows() {
+                return 0;
+            }
+
+            @Override
+            public boolean hasOtherFiles(Set<String> fileNames) {
+                return false;
+            }
+        };
+        priceStore = new PriceStore(symbolRegistry);
+        csvLoaderService = new CsvLoaderService(batchRepository, priceStore, symbolRegistry, resolver, manifest, 1000,
+                1, "", DataSize.ofMegabytes(64));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearStore() {
+        priceStore.clear();
+    }
+
+    @Benchmark
+    public PriceStore load() throws Exception {
+        csvLoaderService.run(null);
+        return priceStore;
+    }
+}
@@ -0,0 +1,115 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.cache.PriceQueryCache;
+import com.pt.recommendation_service.dto.CryptoStatsDto;
+import com.pt.recommendation_service.dto.PriceCandleDto;
+import com.pt.recommendation_service.enums.PriceReadSource;
+import com.pt.recommendation_service.filter.RateLimitBucketStore;
+import com.pt.recommendation_service.filter.RateLimitFilter;
+import com.pt.recommendation_service.service.PriceService;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import com.pt.recommendation_service.validator.CryptoValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the overhead of the metrics on the request hot path.
+ * <p>
+ * With {@code registry=none} the meters are registered with an empty {@link CompositeMeterRegistry}, so the timers
+ * record nothing; with {@code registry=prometheus} they are registered with a {@link PrometheusMeterRegistry} and
+ * publish percentile histograms, as in production. Four threads call the service concurrently, so contention on
+ * the histograms is included.
+ * </p>
+ * <p>
+ * {@code cachedStats} is a query answered from the query cache, where the timer is the largest relative cost;
+ * {@code hourlyCandles} recomputes its result on every call. {@code rejectedRequest} goes through the rate limit
+ * filter with a drained bucket, which counts every rejection. Compare the scores of both registries per benchmark.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class MetricsOverheadBenchmark {
+
+    @Param({"none", "prometheus"})
+    private String registry;
+
+    private PriceQueryCache priceQueryCache;
+    private PriceService priceService;
+    private RateLimitFilter filter;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = registry.equals("prometheus")
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        SymbolRegistry symbolRegistry = SyntheticPrices.registry(5);
+        PriceStore priceStore = new PriceStore(symbolRegistry);
+        SyntheticPrices.fill(priceStore, symbolRegistry, 100_000);
+        priceQueryCache = new PriceQueryCache(priceStore, 1000);
+        priceService = new PriceService(priceStore, null, new CryptoValidator(symbolRegistry), symbolRegistry,
+                PriceReadSource.MEMORY, priceQueryCache, false, meterRegistry);
+        filter = new RateLimitFilter(new RateLimitBucketStore(100_000, Duration.ofMinutes(1)));
+        filter.bindTo(meterRegistry);
+    }
+
+    /**
+     * Per-thread request of a client whose bucket is drained during the warmup.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cryptos/BTC/stats");
+        private final FilterChain chain = (req, res) -> {
+        };
+
+        @Setup
+        public void setUp() {
+            request.setRemoteAddr("10.0.0." + (Thread.currentThread().threadId() & 0xFF));
+        }
+    }
+
+    @Benchmark
+    public CryptoStatsDto cachedStats() {
+        return priceService.getStatsForSymbol("BTC");
+    }
+
+    @Benchmark
+    public List<PriceCandleDto> hourlyCandles() {
+        priceQueryCache.invalidateAll();
+        return priceService.getCandles("BTC", "1h", null, null);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse rejectedRequest(Client client) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(client.request, response, client.chain);
+        return response;
+    }
+}
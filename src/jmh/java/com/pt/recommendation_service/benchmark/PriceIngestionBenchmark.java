@@ -0,0 +1,87 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.dto.IngestionResultDto;
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.service.PriceBatchWriter;
+import com.pt.recommendation_service.service.PriceIngestionService;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a bulk ingestion request through the {@link PriceIngestionService}.
+ * <p>
+ * Ingests a synthetic CSV body of {@code rows} lines per invocation, with the database replaced by a no-op, so the
+ * score is the time to parse and batch the body, hand the batches to the {@link PriceBatchWriter} thread and publish
+ * them to the store. Divide {@code rows} by the score for the rows per second a single request sustains.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceIngestionBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"5"})
+    private int symbols;
+
+    private byte[] csv;
+    private PriceStore priceStore;
+    private PriceBatchWriter batchWriter;
+    private PriceIngestionService ingestionService;
+
+    @Setup
+    public void setUp() {
+        SymbolRegistry symbolRegistry = SyntheticPrices.registry(symbols);
+        csv = SyntheticPrices.csv(symbolRegistry, rows);
+        PriceBatchRepository batchRepository = new PriceBatchRepository(null) {
+            @Override
+            public void insertBatch(PriceRows batch, PriceSource source) {
+            }
+        };
+        priceStore = new PriceStore(symbolRegistry);
+        batchWriter = new PriceBatchWriter(batchRepository, priceStore, 64);
+        batchWriter.start();
+        ingestionService = new PriceIngestionService(batchWriter, symbolRegistry, JsonMapper.builder().build(),
+                5000, Duration.ofSeconds(1), Duration.ofSeconds(30));
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        batchWriter.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearStore() {
+        priceStore.clear();
+    }
+
+    @Benchmark
+    public IngestionResultDto ingestCsv() throws Exception {
+        return ingestionService.ingestCsv(new ByteArrayInputStream(csv));
+    }
+}
@@ -0,0 +1,127 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.entity.Price;
+import com.pt.recommendation_service.repository.PriceRow;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the heap needed to hold {@code rows} price records in memory, as loaded from the database.
+ * <p>
+ * Compares the previous entity layout (a {@link LocalDateTime} and a {@link String} symbol per row) with the
+ * current {@link Price} entity (epoch milliseconds and a symbol id), the {@link PriceRow} projection of the read
+ * paths and the {@link PriceRows} columns of the batch inserts. Each operation materializes all rows, so run with
+ * {@code -prof gc}: {@code gc.alloc.rate.norm} is the number of bytes allocated per {@code rows} records.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceRowFootprintBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"5"})
+    private int symbols;
+
+    private String[] names;
+    private int[] symbolIds;
+    private long[] timestamps;
+    private double[] prices;
+
+    @Setup
+    public void setUp() {
+        SymbolRegistry symbolRegistry = SyntheticPrices.registry(symbols);
+        names = new String[rows];
+        symbolIds = new int[rows];
+        timestamps = new long[rows];
+        prices = new double[rows];
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            symbolIds[i] = i % symbols;
+            // Shared names understate the legacy layout, as JDBC drivers usually return a new String per row
+            names[i] = symbolRegistry.get(symbolIds[i]).name();
+            timestamps[i] = SyntheticPrices.START + (i / symbols) * SyntheticPrices.STEP;
+            prices[i] = 100.0 + random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public List<LegacyPrice> legacyEntities() {
+        List<LegacyPrice> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            LegacyPrice price = new LegacyPrice();
+            price.id = (long) i;
+            price.dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(timestamps[i], 1000L),
+                    (int) Math.floorMod(timestamps[i], 1000L) * 1_000_000, ZoneOffset.UTC);
+            price.symbol = names[i];
+            price.price = prices[i];
+            result.add(price);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Price> entities() {
+        List<Price> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Price price = new Price();
+            price.setId((long) i);
+            price.setEpochMillis(timestamps[i]);
+            price.setSymbolId(symbolIds[i]);
+            price.setPrice(prices[i]);
+            result.add(price);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<PriceRow> projections() {
+        List<PriceRow> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(new PriceRow(symbolIds[i], timestamps[i], prices[i]));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public PriceRows columns() {
+        PriceRows result = new PriceRows(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(symbolIds[i], timestamps[i], prices[i]);
+        }
+        return result;
+    }
+
+    /**
+     * The fields of the {@link Price} entity before the symbol and the time were stored as primitives.
+     */
+    public static class LegacyPrice {
+        private Long id;
+        private LocalDateTime dateTime;
+        private String symbol;
+        private double price;
+    }
+}
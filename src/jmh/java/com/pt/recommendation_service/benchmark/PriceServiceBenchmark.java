@@ -0,0 +1,175 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.cache.PriceQueryCache;
+import com.pt.recommendation_service.dto.CryptoNormalizedRangeDto;
+import com.pt.recommendation_service.dto.CryptoStatsDto;
+import com.pt.recommendation_service.dto.PriceCandleDto;
+import com.pt.recommendation_service.enums.PriceReadSource;
+import com.pt.recommendation_service.service.PriceService;
+import com.pt.recommendation_service.store.CandleRollup;
+import com.pt.recommendation_service.store.PriceSeries;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.store.SampledPrices;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import com.pt.recommendation_service.validator.CryptoValidator;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link PriceService} queries answered from the in-memory store.
+ * <p>
+ * With {@code cached=false} the query cache is cleared before every call, so the query itself is measured;
+ * with {@code cached=true} repeated calls are served from the cache. The {@code TopPage} benchmarks request the first
+ * {@value #PAGE_SIZE} entries of the ranking, as the UIs do. {@code hourlyCandles} merges the hour rollup of a series,
+ * {@code hourlyCandlesFromPoints} aggregates the same candles from every price point. {@code downsampledPrices}
+ * selects {@value #CHART_POINTS} points of the whole history of a series with LTTB.
+ * </p>
+ * <p>
+ * The default sizes keep a full run within the default heap. Histories of up to 100 million rows are measured with
+ * {@code -p rows=...} and a larger heap ({@code -jvmArgsAppend -Xmx8g}), as described in the README.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final int CHART_POINTS = 1000;
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    @Param({"5", "5000"})
+    private int symbols;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private SymbolRegistry symbolRegistry;
+    private PriceStore priceStore;
+    private PriceQueryCache priceQueryCache;
+    private PriceService priceService;
+    private String windowFrom;
+    private String windowTo;
+    private String date;
+
+    @Setup
+    public void setUp() {
+        symbolRegistry = SyntheticPrices.registry(symbols);
+        priceStore = new PriceStore(symbolRegistry);
+        SyntheticPrices.fill(priceStore, symbolRegistry, rows);
+        priceQueryCache = new PriceQueryCache(priceStore, 1000);
+        priceService = new PriceService(priceStore, null, new CryptoValidator(symbolRegistry), symbolRegistry,
+                PriceReadSource.MEMORY, priceQueryCache, false, new CompositeMeterRegistry());
+
+        long span = (long) (rows / symbols) * SyntheticPrices.STEP;
+        windowFrom = dateTime(SyntheticPrices.START + span / 4).toString();
+        windowTo = dateTime(SyntheticPrices.START + span * 3 / 4).toString();
+        date = dateTime(SyntheticPrices.START + span / 2).toLocalDate().toString();
+        // Builds the range indexes up front, so the first measured window query does not pay for them
+        priceService.getNormalizedRangesDesc(windowFrom, windowTo);
+    }
+
+    @Benchmark
+    public List<CryptoNormalizedRangeDto> normalizedRanges() {
+        clearUnlessCached();
+        return priceService.getNormalizedRangesDesc();
+    }
+
+    @Benchmark
+    public List<CryptoNormalizedRangeDto> normalizedRangesForWindow() {
+        clearUnlessCached();
+        return priceService.getNormalizedRangesDesc(windowFrom, windowTo);
+    }
+
+    @Benchmark
+    public List<CryptoNormalizedRangeDto> normalizedRangesTopPage() {
+        clearUnlessCached();
+        return priceService.getNormalizedRangesDesc(0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<CryptoNormalizedRangeDto> normalizedRangesForWindowTopPage() {
+        clearUnlessCached();
+        return priceService.getNormalizedRangesDesc(windowFrom, windowTo, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<PriceCandleDto> hourlyCandles() {
+        clearUnlessCached();
+        return priceService.getCandles("BTC", "1h", null, null);
+    }
+
+    /**
+     * Baseline for {@link #hourlyCandles()}: the same candles aggregated from every price point of the series.
+     */
+    @Benchmark
+    public List<PriceCandleDto> hourlyCandlesFromPoints() {
+        PriceSeries series = priceStore.getSeries(symbolRegistry.find("BTC"));
+        List<PriceCandleDto> candles = new ArrayList<>();
+        PriceCandleDto candle = null;
+        for (int i = 0; i < series.size(); i++) {
+            long start = CandleRollup.bucketStart(series.timestampAt(i), HOUR);
+            double price = series.priceAt(i);
+            if (candle == null || candle.getTimestamp() != start) {
+                candle = new PriceCandleDto(start, price, price, price, price, 0);
+                candles.add(candle);
+            }
+            candle.setHigh(Math.max(candle.getHigh(), price));
+            candle.setLow(Math.min(candle.getLow(), price));
+            candle.setClose(price);
+            candle.setCount(candle.getCount() + 1);
+        }
+        return candles;
+    }
+
+    @Benchmark
+    public SampledPrices downsampledPrices() {
+        clearUnlessCached();
+        return priceService.getPrices("BTC", null, null, CHART_POINTS);
+    }
+
+    @Benchmark
+    public CryptoStatsDto stats() {
+        clearUnlessCached();
+        return priceService.getStatsForSymbol("BTC");
+    }
+
+    @Benchmark
+    public CryptoNormalizedRangeDto highestNormalizedRangeForDate() {
+        clearUnlessCached();
+        return priceService.getHighestNormalizedRangeForDate(date);
+    }
+
+    private void clearUnlessCached() {
+        if (!cached) {
+            priceQueryCache.invalidateAll();
+        }
+    }
+
+    private static LocalDateTime dateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+}
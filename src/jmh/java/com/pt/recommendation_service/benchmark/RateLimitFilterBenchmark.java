@@ -0,0 +1,76 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.filter.RateLimitBucketStore;
+import com.pt.recommendation_service.filter.RateLimitFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link RateLimitFilter#doFilter} under contention.
+ * <p>
+ * Eight threads cycle through {@code clients} client addresses each. With one client every thread hits the same
+ * bucket, with many clients the store is mostly creating and evicting buckets (it holds at most 100,000).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimitFilterBenchmark {
+
+    @Param({"1", "1000", "1000000"})
+    private int clients;
+
+    private RateLimitFilter filter;
+    private String[] addresses;
+
+    @Setup
+    public void setUp() {
+        filter = new RateLimitFilter(new RateLimitBucketStore(100_000, Duration.ofMinutes(1)));
+        addresses = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            addresses[i] = "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    /**
+     * Per-thread request, response and position in the client addresses.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cryptos/normalized-range");
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private final FilterChain chain = (req, res) -> {
+        };
+        private int next;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter(Client client) throws Exception {
+        client.request.setRemoteAddr(addresses[client.next]);
+        client.next = (client.next + 1) % addresses.length;
+        client.response.resetBuffer();
+        filter.doFilter(client.request, client.response, client.chain);
+        return client.response;
+    }
+}
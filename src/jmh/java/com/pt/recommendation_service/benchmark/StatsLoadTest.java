@@ -0,0 +1,131 @@
+package com.pt.recommendation_service.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test of a running service, for comparing the platform-thread and virtual-thread request
+ * execution modes.
+ * <p>
+ * Keeps {@code connections} requests in flight, each sent by its own virtual thread as soon as the previous response
+ * arrived, and reports the throughput and the latency percentiles of the responses received after the warmup.
+ * Arguments are {@code key=value} pairs:
+ * </p>
+ * <ul>
+ *     <li>{@code url}: the endpoint to load, {@code http://localhost:8080/cryptos/BTC/stats} by default</li>
+ *     <li>{@code connections}: the number of concurrent connections, 10000 by default</li>
+ *     <li>{@code warmup}: the ISO-8601 duration of the warmup, {@code PT10S} by default</li>
+ *     <li>{@code duration}: the ISO-8601 duration of the measurement, {@code PT30S} by default</li>
+ * </ul>
+ * <p>
+ * The service should run with {@code rate-limit.enabled=false}, with enough Tomcat connections
+ * ({@code server.tomcat.max-connections}) and, to measure the blocking database path, with
+ * {@code prices.read-source=database} and {@code prices.cache.max-size=0}. Run it once with
+ * {@code spring.threads.virtual.enabled=false} as the baseline and once with {@code true}.
+ * </p>
+ */
+public final class StatsLoadTest {
+
+    private StatsLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8080/cryptos/BTC/stats"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "10000"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", "application/json").GET().build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureTo = measureFrom + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Recorder> recorders = new ArrayList<>(connections);
+        System.out.printf("Loading %s with %d connections for %s after a warmup of %s%n",
+                uri, connections, duration, warmup);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                Recorder recorder = new Recorder();
+                recorders.add(recorder);
+                workers.submit(() -> {
+                    while (true) {
+                        long sent = System.nanoTime();
+                        if (sent >= measureTo) {
+                            return;
+                        }
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        long received = System.nanoTime();
+                        if (sent >= measureFrom && received <= measureTo) {
+                            if (status == 200) {
+                                recorder.record(received - sent);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+            }
+        }
+
+        long[] latencies = recorders.stream()
+                .flatMapToLong(recorder -> Arrays.stream(recorder.latencies, 0, recorder.count))
+                .sorted()
+                .toArray();
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf(Locale.ROOT, "Requests: %d, errors: %d, throughput: %.0f requests/s%n",
+                latencies.length, errors.get(), latencies.length / seconds);
+        if (latencies.length > 0) {
+            System.out.printf(Locale.ROOT, "Latency p50: %.2f ms, p99: %.2f ms, p99.9: %.2f ms, max: %.2f ms%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    /**
+     * Latencies measured by one connection, only written by its own thread.
+     */
+    private static final class Recorder {
+
+        private long[] latencies = new long[64];
+        private int count;
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a case-insensitive symbol lookup, for a mix of supported symbols in lower case and unsupported ones.
+ * <p>
+ * Compares the {@link SymbolRegistry} hash table, looked up from a {@link String} and from bytes, with the previous
+ * approach of streaming over all symbols and comparing them with {@link String#equalsIgnoreCase(String)}. Run with
+ * {@code -prof gc} to compare the allocation rates as well.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymbolLookupBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"5", "5000"})
+    private int symbols;
+
+    private SymbolRegistry symbolRegistry;
+    private CryptoSymbol[] values;
+    private String[] names;
+    private byte[][] bytes;
+
+    @Setup
+    public void setUp() {
+        symbolRegistry = SyntheticPrices.registry(symbols);
+        values = symbolRegistry.symbols().toArray(CryptoSymbol[]::new);
+        names = new String[LOOKUPS];
+        bytes = new byte[LOOKUPS][];
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            names[i] = i % 8 == 0
+                    ? "X" + i
+                    : symbolRegistry.get(random.nextInt(symbols)).name().toLowerCase(Locale.ROOT);
+            bytes[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int linearScan() {
+        int found = 0;
+        for (String name : names) {
+            // Enum.values() cloned the array on every call
+            Optional<CryptoSymbol> symbol = Arrays.stream(values.clone())
+                    .filter(s -> s.name().equalsIgnoreCase(name))
+                    .findFirst();
+            if (symbol.isPresent()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int registryFromString() {
+        int found = 0;
+        for (String name : names) {
+            if (symbolRegistry.find(name) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int registryFromBytes() {
+        int found = 0;
+        for (byte[] name : bytes) {
+            if (symbolRegistry.find(name, 0, name.length) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
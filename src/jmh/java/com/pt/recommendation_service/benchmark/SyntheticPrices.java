@@ -0,0 +1,101 @@
+package com.pt.recommendation_service.benchmark;
+
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of reproducible, synthetic price series for the benchmarks.
+ * <p>
+ * Every symbol gets a random walk of one price per minute, starting on 2022-01-01 UTC. The symbols are those of a
+ * {@link #registry(int)}: the default supported symbols, followed by generated {@code C<n>} symbols.
+ * </p>
+ */
+final class SyntheticPrices {
+
+    /**
+     * Epoch-millis timestamp of the first generated price (2022-01-01T00:00:00Z).
+     */
+    static final long START = 1_640_995_200_000L;
+
+    /**
+     * Milliseconds between two prices of the same symbol.
+     */
+    static final long STEP = 60_000L;
+
+    private static final List<String> DEFAULT_SYMBOLS = List.of("BTC", "DOGE", "ETH", "LTC", "XRP");
+
+    private SyntheticPrices() {
+    }
+
+    /**
+     * Returns a registry of the given number of symbols.
+     *
+     * @param symbols the number of symbols
+     * @return the registry
+     */
+    static SymbolRegistry registry(int symbols) {
+        List<String> names = new ArrayList<>(symbols);
+        for (int i = 0; i < symbols; i++) {
+            names.add(i < DEFAULT_SYMBOLS.size() ? DEFAULT_SYMBOLS.get(i) : "C" + i);
+        }
+        return new SymbolRegistry(names);
+    }
+
+    /**
+     * Fills the store with {@code rows} prices spread evenly over the symbols of the registry.
+     *
+     * @param store    the store to fill
+     * @param registry the symbols
+     * @param rows     the total number of prices
+     */
+    static void fill(PriceStore store, SymbolRegistry registry, int rows) {
+        int count = registry.size();
+        Random random = new Random(42);
+        for (int s = 0; s < count; s++) {
+            int size = rows / count + (s < rows % count ? 1 : 0);
+            long[] timestamps = new long[size];
+            double[] prices = new double[size];
+            double price = 100.0;
+            for (int i = 0; i < size; i++) {
+                price = nextPrice(random, price);
+                timestamps[i] = START + i * STEP;
+                prices[i] = price;
+            }
+            store.addAll(registry.get(s), timestamps, prices, size);
+        }
+    }
+
+    /**
+     * Generates a CSV file in the loader's format ({@code timestamp,symbol,price} with a header line) with
+     * {@code rows} prices, cycling through the symbols of the registry.
+     *
+     * @param registry the symbols
+     * @param rows     the total number of prices
+     * @return the UTF-8 encoded CSV file
+     */
+    static byte[] csv(SymbolRegistry registry, int rows) {
+        int count = registry.size();
+        Random random = new Random(42);
+        double[] prices = new double[count];
+        Arrays.fill(prices, 100.0);
+        StringBuilder csv = new StringBuilder(rows * 32).append("timestamp,symbol,price\n");
+        for (int i = 0; i < rows; i++) {
+            int s = i % count;
+            prices[s] = nextPrice(random, prices[s]);
+            csv.append(START + (i / count) * STEP).append(',')
+                    .append(registry.get(s).name()).append(',')
+                    .append(Math.round(prices[s] * 1000) / 1000.0).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static double nextPrice(Random random, double price) {
+        return Math.max(0.001, price * (1 + (random.nextDouble() - 0.5) * 0.01));
+    }
+}
@@ -0,0 +1,115 @@
+package com.pt.recommendation_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pt.recommendation_service.store.PriceStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the results of price queries, keyed by query and parameters.
+ * <p>
+ * The queries are pure functions of the price data, so a result stays valid until the data changes.
+ * Every entry is stamped with the {@link PriceStore#version()} it was computed from. Once the version moves on,
+ * the next lookup invalidates the whole cache, so any ingestion path that writes to the store invalidates it
+ * without having to know about it. The stamp also catches results computed from old data that are put
+ * after an invalidation.
+ * </p>
+ * <p>
+ * Holds at most {@code prices.cache.max-size} entries and evicts by size, so per-date and per-window results
+ * cannot grow it without bound. Hit, miss and eviction counts are recorded and available from {@link #stats()}.
+ * </p>
+ */
+@Component
+public class PriceQueryCache {
+
+    private final PriceStore priceStore;
+    private final Cache<String, Entry> cache;
+    private volatile long cachedVersion;
+
+    /**
+     * Constructs a new {@code PriceQueryCache} with the given maximum size.
+     *
+     * @param priceStore the store whose data version the cached results depend on
+     * @param maxSize    the maximum number of cached results
+     */
+    public PriceQueryCache(PriceStore priceStore, @Value("${prices.cache.max-size:1000}") long maxSize) {
+        this.priceStore = priceStore;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.cachedVersion = priceStore.version();
+    }
+
+    /**
+     * Returns the cached result of the given query, computing and caching it if it is missing or stale.
+     * <p>
+     * Exceptions thrown by the loader are propagated and nothing is cached. The loader runs outside of any cache
+     * lock, so it may itself look up other results; concurrent misses of the same key may compute it more than once.
+     * </p>
+     *
+     * @param key    the key identifying the query and its parameters
+     * @param loader computes the result from the current data
+     * @param <T>    the type of the result
+     * @return the result of the query
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        long version = priceStore.version();
+        if (version != cachedVersion) {
+            invalidateAll();
+            cachedVersion = version;
+        }
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null || entry.version() < version) {
+            entry = new Entry(version, loader.get());
+            cache.put(key, entry);
+        }
+        return (T) entry.value();
+    }
+
+    /**
+     * Removes every cached result.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the approximate number of cached results
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the cache.
+     *
+     * @return the {@link CacheStats} of the cache
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Performs any pending maintenance, such as evictions, right away.
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * Cached result together with the data version it was computed from.
+     *
+     * @param version the data version
+     * @param value   the result
+     */
+    private record Entry(long version, Object value) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.pt.recommendation_service.cache;
+
+import com.pt.recommendation_service.store.PriceStore;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache of the serialized JSON payloads of the read endpoints, and the source of their entity tags.
+ * <p>
+ * Payloads are serialized once per data version and kept in the {@link PriceQueryCache}, so repeated requests
+ * neither compute nor serialize anything. The entity tag is derived from the {@link PriceStore#version()} and an id
+ * of this process, so it changes whenever the data changes and never matches a tag handed out before a restart.
+ * </p>
+ */
+@Component
+public class PriceResponseCache {
+
+    private final PriceStore priceStore;
+    private final PriceQueryCache priceQueryCache;
+    private final JsonMapper jsonMapper;
+    private final String instanceId = Long.toHexString(System.currentTimeMillis());
+
+    /**
+     * Constructs a new {@code PriceResponseCache} with the required dependencies.
+     *
+     * @param priceStore      the store whose data version the payloads depend on
+     * @param priceQueryCache the cache to keep the payloads in
+     * @param jsonMapper      the mapper used to serialize the payloads
+     */
+    public PriceResponseCache(PriceStore priceStore, PriceQueryCache priceQueryCache, JsonMapper jsonMapper) {
+        this.priceStore = priceStore;
+        this.priceQueryCache = priceQueryCache;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Returns the entity tag of the current data version.
+     * <p>
+     * Read it before the payload: a payload is never older than the tag read before it, so a client can at worst
+     * receive newer data under an older tag and fetch it once more, but never keep stale data.
+     * </p>
+     *
+     * @return the quoted entity tag
+     */
+    public String etag() {
+        return "\"" + instanceId + "-" + priceStore.version() + "\"";
+    }
+
+    /**
+     * Returns the serialized JSON payload of the given query, serializing and caching it if it is missing or stale.
+     *
+     * @param key   the key identifying the endpoint and its parameters
+     * @param query computes the response body
+     * @return the UTF-8 encoded JSON payload
+     */
+    public byte[] json(String key, Supplier<?> query) {
+        return priceQueryCache.get("json:" + key, () -> jsonMapper.writeValueAsBytes(query.get()));
+    }
+}
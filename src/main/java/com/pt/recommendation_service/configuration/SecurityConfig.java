@@ -2,24 +2,62 @@ package com.pt.recommendation_service.configuration;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
  * Spring Security configuration class.
  * <p>
  * Configures HTTP security for the application, including endpoint access rules and form-based login.
- * Allows unrestricted access to API documentation (Swagger UI and OpenAPI docs) and the /cryptos endpoints,
- * while requiring authentication for all other requests.
+ * Allows unrestricted access to API documentation (Swagger UI and OpenAPI docs), the read-only /cryptos endpoints
+ * and the health and Prometheus scrape endpoints of the actuator, while requiring authentication for all other
+ * requests. Writing prices through POST /cryptos/prices requires HTTP Basic credentials of a user with the
+ * {@value #INGEST_ROLE} role, such as the user configured with {@code spring.security.user.*}.
  * </p>
  */
 @Configuration
 public class SecurityConfig {
 
+    /**
+     * Role required to ingest prices.
+     */
+    public static final String INGEST_ROLE = "INGEST";
+
+    /**
+     * Configures the security filter chain of the ingestion endpoint.
+     * <p>
+     * - Requires HTTP Basic authentication with the {@value #INGEST_ROLE} role for /cryptos/prices.<br>
+     * - Disables CSRF protection and sessions, as its API clients send their credentials with every request.<br>
+     * - Answers unauthenticated requests with 401 (Unauthorized) instead of redirecting to the login form.
+     * </p>
+     *
+     * @param http the {@link HttpSecurity} to modify
+     * @return the configured {@link SecurityFilterChain}
+     * @throws Exception if an error occurs during configuration
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain ingestionFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/cryptos/prices")
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(authz -> authz
+                        .anyRequest().hasRole(INGEST_ROLE)
+                )
+                .httpBasic(Customizer.withDefaults());
+        return http.build();
+    }
+
     /**
      * Configures the application's security filter chain.
      * <p>
-     * - Permits all requests to /cryptos/**, /swagger-ui/**, and /v3/api-docs/** without authentication.<br>
+     * - Permits GET requests to /cryptos/** and all requests to /swagger-ui/**, /v3/api-docs/**, /actuator/health
+     * and /actuator/prometheus without authentication.<br>
      * - Requires authentication for any other request.<br>
      * - Enables form-based login with a default success URL of "/".
      * </p>
@@ -29,13 +67,16 @@ public class SecurityConfig {
      * @throws Exception if an error occurs during configuration
      */
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
+                        .requestMatchers(HttpMethod.GET, "/cryptos/**").permitAll()
                         .requestMatchers(
-                                "/cryptos/**",
                                 "/swagger-ui/**",
-                                "/v3/api-docs/**"
+                                "/v3/api-docs/**",
+                                "/actuator/health",
+                                "/actuator/prometheus"
                         ).permitAll()
                         .anyRequest().authenticated()
                 )
@@ -44,4 +85,4 @@ public class SecurityConfig {
                 );
         return http.build();
     }
-}
\ No newline at end of file
+}
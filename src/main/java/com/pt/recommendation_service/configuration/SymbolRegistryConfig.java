@@ -0,0 +1,54 @@
+package com.pt.recommendation_service.configuration;
+
+import com.pt.recommendation_service.entity.Symbol;
+import com.pt.recommendation_service.repository.SymbolRepository;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spring configuration class for the supported cryptocurrency symbols.
+ * <p>
+ * Registers the {@link SymbolRegistry} of the {@code symbols.supported} property, with the ids of the symbol
+ * table. Symbols not yet in the table are given new ids and added to it.
+ * </p>
+ */
+@Configuration
+public class SymbolRegistryConfig {
+
+    /**
+     * Creates the {@link SymbolRegistry} bean, recording the ids of new symbols in the symbol table.
+     *
+     * @param symbolRepository the repository of the symbol table
+     * @param names            the supported symbols
+     * @return the registry of the supported symbols
+     */
+    @Bean
+    public SymbolRegistry symbolRegistry(SymbolRepository symbolRepository,
+                                         @Value("${symbols.supported:BTC,DOGE,ETH,LTC,XRP}") Collection<String> names) {
+        Map<String, Integer> assignedIds = new HashMap<>();
+        for (Symbol row : symbolRepository.findAll()) {
+            assignedIds.put(row.getName(), row.getId());
+        }
+        SymbolRegistry symbolRegistry = new SymbolRegistry(names, assignedIds);
+        List<Symbol> newRows = new ArrayList<>();
+        for (CryptoSymbol symbol : symbolRegistry.symbols()) {
+            if (!assignedIds.containsKey(symbol.name())) {
+                Symbol row = new Symbol();
+                row.setId(symbol.id());
+                row.setName(symbol.name());
+                newRows.add(row);
+            }
+        }
+        symbolRepository.saveAll(newRows);
+        return symbolRegistry;
+    }
+}
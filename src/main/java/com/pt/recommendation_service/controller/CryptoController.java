@@ -1,15 +1,29 @@
 package com.pt.recommendation_service.controller;
 
+import com.pt.recommendation_service.cache.PriceResponseCache;
 import com.pt.recommendation_service.dto.CryptoNormalizedRangeDto;
 import com.pt.recommendation_service.dto.CryptoStatsDto;
+import com.pt.recommendation_service.dto.PriceCandleDto;
+import com.pt.recommendation_service.dto.PricePointDto;
+import com.pt.recommendation_service.exception.InvalidCandleIntervalException;
 import com.pt.recommendation_service.exception.InvalidDateFormatException;
+import com.pt.recommendation_service.exception.InvalidMaxPointsException;
+import com.pt.recommendation_service.exception.InvalidPageException;
+import com.pt.recommendation_service.exception.InvalidTimeWindowException;
 import com.pt.recommendation_service.exception.NoPriceFoundForDateException;
+import com.pt.recommendation_service.exception.NoPriceFoundForSymbolException;
 import com.pt.recommendation_service.exception.UnsupportedCryptoException;
 import com.pt.recommendation_service.service.PriceService;
+import com.pt.recommendation_service.store.SampledPrices;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -17,19 +31,37 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * REST controller for cryptocurrency statistics and normalized range endpoints.
  * <p>
  * Provides endpoints to retrieve:
  * <ul>
- *     <li>Descending sorted list of all cryptocurrencies by normalized range</li>
+ *     <li>Descending sorted list of all cryptocurrencies by normalized range, over all history or a time window,
+ *     optionally paged</li>
  *     <li>Statistics (oldest, newest, min, max price) for a specific cryptocurrency</li>
+ *     <li>Statistics for several or all cryptocurrencies in one call</li>
+ *     <li>OHLC candles of a specific cryptocurrency at a given interval</li>
+ *     <li>The price history of a specific cryptocurrency, downsampled to a maximum number of points</li>
  *     <li>The cryptocurrency with the highest normalized range for a specific day</li>
  * </ul>
  * </p>
+ * <p>
+ * Responses are written from JSON payloads pre-serialized by the {@link PriceResponseCache} and carry an
+ * {@code ETag} of the data version. Requests whose {@code If-None-Match} matches it are answered with
+ * 304 (Not Modified) and no body. Price histories are not cached as payloads: their points are streamed to the
+ * response with a {@link JsonGenerator}, so a response never exists as a list of objects or a byte array.
+ * </p>
  */
 @RestController
 @RequestMapping("/cryptos")
@@ -37,70 +69,305 @@ import java.util.List;
 public class CryptoController {
 
     private final PriceService priceService;
+    private final PriceResponseCache priceResponseCache;
+    private final JsonMapper jsonMapper;
 
     /**
-     * Constructs a new {@code CryptoController} with the given {@link PriceService}.
+     * Constructs a new {@code CryptoController} with the given {@link PriceService}, {@link PriceResponseCache} and
+     * {@link JsonMapper}.
      *
-     * @param priceService the service for cryptocurrency price operations
+     * @param priceService       the service for cryptocurrency price operations
+     * @param priceResponseCache the cache of serialized responses
+     * @param jsonMapper         the mapper used to stream the price histories
      */
-    public CryptoController(PriceService priceService) {
+    public CryptoController(PriceService priceService, PriceResponseCache priceResponseCache, JsonMapper jsonMapper) {
         this.priceService = priceService;
+        this.priceResponseCache = priceResponseCache;
+        this.jsonMapper = jsonMapper;
     }
 
     /**
-     * Returns a descending sorted list of all cryptocurrencies by normalized range ((max-min)/min).
+     * Returns a descending sorted list of all cryptocurrencies by normalized range ((max-min)/min),
+     * either over all history or, if {@code from} and {@code to} are given, within that time window.
+     * The list can be paged with {@code offset} and {@code limit}.
      *
-     * @return list of {@link CryptoNormalizedRangeDto} objects
+     * @param from    the start of the window (inclusive), or {@code null} for all history
+     * @param to      the end of the window (exclusive), or {@code null} for all history
+     * @param offset  the number of cryptocurrencies to skip from the top of the ranking
+     * @param limit   the maximum number of cryptocurrencies to return, or {@code null} for all of them
+     * @param request the current request, for the conditional GET
+     * @return JSON list of {@link CryptoNormalizedRangeDto} objects, or 304 if not modified
      */
     @GetMapping("/normalized-range")
     @Operation(
             summary = "Get descending sorted list of all cryptocurrencies by normalized range",
-            description = "Returns a list of all cryptocurrencies, sorted in descending order by their normalized range ((max-min)/min)."
+            description = "Returns a list of all cryptocurrencies, sorted in descending order by their normalized range ((max-min)/min). "
+                    + "If from and to are given, only the prices within that UTC time window are considered. "
+                    + "Use offset and limit to return one page of the ranking.",
+            responses = @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = CryptoNormalizedRangeDto.class))))
     )
-    public List<CryptoNormalizedRangeDto> getNormalizedRanges() {
-        return priceService.getNormalizedRangesDesc();
+    public ResponseEntity<byte[]> getNormalizedRanges(
+            @Parameter(
+                    description = "Start of the time window (inclusive, UTC). Format: yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss",
+                    example = "2022-01-01"
+            )
+            @RequestParam(value = "from", required = false) String from,
+            @Parameter(
+                    description = "End of the time window (exclusive, UTC). Format: yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss",
+                    example = "2022-01-08"
+            )
+            @RequestParam(value = "to", required = false) String to,
+            @Parameter(
+                    description = "Number of cryptocurrencies to skip from the top of the ranking",
+                    example = "0"
+            )
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @Parameter(
+                    description = "Maximum number of cryptocurrencies to return. Defaults to all of them",
+                    example = "20"
+            )
+            @RequestParam(value = "limit", required = false) Integer limit,
+            WebRequest request
+    ) {
+        int pageLimit = limit != null ? limit : Integer.MAX_VALUE;
+        if (from == null && to == null) {
+            return respond(request, "normalized-range:" + offset + "+" + pageLimit,
+                    () -> priceService.getNormalizedRangesDesc(offset, pageLimit));
+        }
+        return respond(request, "normalized-range:" + from + "/" + to + ":" + offset + "+" + pageLimit,
+                () -> priceService.getNormalizedRangesDesc(from, to, offset, pageLimit));
     }
 
     /**
      * Returns statistics (oldest, newest, minimum, and maximum price) for the specified cryptocurrency symbol.
      *
-     * @param symbol the cryptocurrency symbol (e.g., BTC, ETH)
-     * @return {@link CryptoStatsDto} containing the statistics
+     * @param symbol  the cryptocurrency symbol (e.g., BTC, ETH)
+     * @param request the current request, for the conditional GET
+     * @return JSON {@link CryptoStatsDto} containing the statistics, or 304 if not modified
      */
     @GetMapping("/{symbol}/stats")
     @Operation(
             summary = "Get statistics for a specific cryptocurrency",
-            description = "Returns the oldest, newest, minimum, and maximum price for the specified cryptocurrency symbol."
+            description = "Returns the oldest, newest, minimum, and maximum price for the specified cryptocurrency symbol.",
+            responses = @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CryptoStatsDto.class)))
+    )
+    public ResponseEntity<byte[]> getStats(
+            @Parameter(
+                    description = "Cryptocurrency symbol (e.g., BTC, ETH)",
+                    example = "BTC"
+            )
+            @PathVariable String symbol,
+            WebRequest request
+    ) {
+        return respond(request, "stats:" + symbol, () -> priceService.getStatsForSymbol(symbol));
+    }
+
+    /**
+     * Returns statistics (oldest, newest, minimum, and maximum price) for several cryptocurrency symbols in one call.
+     *
+     * @param symbols the cryptocurrency symbols, or {@code null} for all supported symbols
+     * @param request the current request, for the conditional GET
+     * @return JSON list of {@link CryptoStatsDto} objects, or 304 if not modified
+     */
+    @GetMapping("/stats")
+    @Operation(
+            summary = "Get statistics for several or all cryptocurrencies",
+            description = "Returns the oldest, newest, minimum, and maximum price of each requested cryptocurrency, "
+                    + "or of all supported cryptocurrencies if no symbols are given. Symbols without prices are left out.",
+            responses = @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = CryptoStatsDto.class))))
+    )
+    public ResponseEntity<byte[]> getStatsForSymbols(
+            @Parameter(
+                    description = "Comma-separated cryptocurrency symbols (e.g., BTC,ETH). Defaults to all supported symbols",
+                    example = "BTC,ETH"
+            )
+            @RequestParam(value = "symbols", required = false) List<String> symbols,
+            WebRequest request
+    ) {
+        String key = "stats-batch:" + String.join(",", priceService.canonicalSymbols(symbols));
+        return respond(request, key, () -> priceService.getStatsForSymbols(symbols));
+    }
+
+    /**
+     * Returns the OHLC candles of the specified cryptocurrency at the given interval, either over all history or, if
+     * {@code from} and {@code to} are given, for the buckets starting within that time window.
+     *
+     * @param symbol   the cryptocurrency symbol (e.g., BTC, ETH)
+     * @param interval the length of a candle (e.g., 15m, 1h, 1d, 1w)
+     * @param from     the start of the window (inclusive), or {@code null} for all history
+     * @param to       the end of the window (exclusive), or {@code null} for all history
+     * @param request  the current request, for the conditional GET
+     * @return JSON list of {@link PriceCandleDto} objects, or 304 if not modified
+     */
+    @GetMapping("/{symbol}/candles")
+    @Operation(
+            summary = "Get OHLC candles for a specific cryptocurrency",
+            description = "Returns the open, high, low and close price and the number of prices of every time bucket "
+                    + "of the given interval, aligned to the epoch in UTC. Buckets without prices are left out. "
+                    + "If from and to are given, only the buckets starting within that UTC time window are returned.",
+            responses = @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = PriceCandleDto.class))))
     )
-    public CryptoStatsDto getStats(
+    public ResponseEntity<byte[]> getCandles(
             @Parameter(
                     description = "Cryptocurrency symbol (e.g., BTC, ETH)",
                     example = "BTC"
             )
-            @PathVariable String symbol
+            @PathVariable String symbol,
+            @Parameter(
+                    description = "Length of a candle: a number followed by m (minutes), h (hours), d (days) or w (weeks)",
+                    example = "1h"
+            )
+            @RequestParam(value = "interval", defaultValue = "1d") String interval,
+            @Parameter(
+                    description = "Start of the time window (inclusive, UTC). Format: yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss",
+                    example = "2022-01-01"
+            )
+            @RequestParam(value = "from", required = false) String from,
+            @Parameter(
+                    description = "End of the time window (exclusive, UTC). Format: yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss",
+                    example = "2022-01-08"
+            )
+            @RequestParam(value = "to", required = false) String to,
+            WebRequest request
+    ) {
+        return respond(request, "candles:" + symbol + ":" + interval + ":" + from + "/" + to,
+                () -> priceService.getCandles(symbol, interval, from, to));
+    }
+
+    /**
+     * Returns the price history of the specified cryptocurrency, either over all history or, if {@code from} and
+     * {@code to} are given, within that time window, downsampled to at most {@code maxPoints} points.
+     * <p>
+     * The request is validated and the points are selected before the response is committed, so invalid requests
+     * are still rejected with an error status. The points are then written one by one as the body is streamed.
+     * </p>
+     *
+     * @param symbol    the cryptocurrency symbol (e.g., BTC, ETH)
+     * @param from      the start of the window (inclusive), or {@code null} for all history
+     * @param to        the end of the window (exclusive), or {@code null} for all history
+     * @param maxPoints the maximum number of points to return
+     * @param request   the current request, for the conditional GET
+     * @return streamed JSON list of {@link PricePointDto} objects, or 304 if not modified
+     */
+    @GetMapping("/{symbol}/prices")
+    @Operation(
+            summary = "Get the price history of a specific cryptocurrency",
+            description = "Returns the prices of the specified cryptocurrency ordered by time. "
+                    + "If from and to are given, only the prices within that UTC time window are returned. "
+                    + "If there are more than maxPoints prices, they are downsampled with Largest-Triangle-Three-Buckets, "
+                    + "which keeps the first and the last price and the peaks and troughs in between.",
+            responses = @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = PricePointDto.class))))
+    )
+    public ResponseEntity<StreamingResponseBody> getPrices(
+            @Parameter(
+                    description = "Cryptocurrency symbol (e.g., BTC, ETH)",
+                    example = "BTC"
+            )
+            @PathVariable String symbol,
+            @Parameter(
+                    description = "Start of the time window (inclusive, UTC). Format: yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss",
+                    example = "2022-01-01"
+            )
+            @RequestParam(value = "from", required = false) String from,
+            @Parameter(
+                    description = "End of the time window (exclusive, UTC). Format: yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss",
+                    example = "2022-01-08"
+            )
+            @RequestParam(value = "to", required = false) String to,
+            @Parameter(
+                    description = "Maximum number of prices to return, between 2 and 10000",
+                    example = "500"
+            )
+            @RequestParam(value = "maxPoints", defaultValue = "1000") int maxPoints,
+            WebRequest request
     ) {
-        return priceService.getStatsForSymbol(symbol);
+        String etag = priceResponseCache.etag();
+        SampledPrices prices = priceService.getPrices(symbol, from, to, maxPoints);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writePrices(out, prices));
     }
 
     /**
      * Returns the cryptocurrency with the highest normalized range ((max-min)/min) for the given date.
      *
-     * @param date the date in yyyy-MM-dd format
-     * @return {@link CryptoNormalizedRangeDto} for the highest normalized range
+     * @param date    the date in yyyy-MM-dd format
+     * @param request the current request, for the conditional GET
+     * @return JSON {@link CryptoNormalizedRangeDto} for the highest normalized range, or 304 if not modified
      */
     @GetMapping("/normalized-range/highest")
     @Operation(
             summary = "Get the cryptocurrency with the highest normalized range for a specific day",
-            description = "Returns the cryptocurrency with the highest normalized range ((max-min)/min) for the given date."
+            description = "Returns the cryptocurrency with the highest normalized range ((max-min)/min) for the given date.",
+            responses = @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CryptoNormalizedRangeDto.class)))
     )
-    public CryptoNormalizedRangeDto getHighestNormalizedRange(
+    public ResponseEntity<byte[]> getHighestNormalizedRange(
             @Parameter(
                     description = "The date for which to find the crypto with the highest normalized range. Format: yyyy-MM-dd",
                     example = "2025-12-01"
             )
-            @RequestParam("date") String date
+            @RequestParam("date") String date,
+            WebRequest request
     ) {
-        return priceService.getHighestNormalizedRangeForDate(date);
+        return respond(request, "highest:" + date, () -> priceService.getHighestNormalizedRangeForDate(date));
+    }
+
+    /**
+     * Answers a read request with the pre-serialized payload of the query, or with 304 (Not Modified) if the
+     * client's {@code If-None-Match} matches the current data version.
+     * <p>
+     * The payload is resolved before the tag is checked, so invalid requests are still rejected.
+     * </p>
+     *
+     * @param request the current request
+     * @param key     the key identifying the endpoint and its parameters
+     * @param query   computes the response body
+     * @return the response with the JSON payload and its {@code ETag}
+     */
+    private ResponseEntity<byte[]> respond(WebRequest request, String key, Supplier<?> query) {
+        String etag = priceResponseCache.etag();
+        byte[] body = priceResponseCache.json(key, query);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Writes price points as a JSON list of {@link PricePointDto} objects, one point at a time.
+     * <p>
+     * The response stream is left open for the servlet container to complete.
+     * </p>
+     *
+     * @param out    the response stream
+     * @param prices the price points
+     */
+    private void writePrices(OutputStream out, SampledPrices prices) {
+        try (JsonGenerator generator = jsonMapper.writer()
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(out)) {
+            generator.writeStartArray();
+            for (int i = 0; i < prices.size(); i++) {
+                generator.writeStartObject();
+                generator.writeNumberProperty("timestamp", prices.timestampAt(i));
+                generator.writeNumberProperty("price", prices.priceAt(i));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
     }
 
     /**
@@ -114,6 +381,50 @@ public class CryptoController {
         return ResponseEntity.badRequest().body(ex.getMessage());
     }
 
+    /**
+     * Handles {@link InvalidTimeWindowException} thrown when a requested time window is not valid.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 400 Bad Request and the error message
+     */
+    @ExceptionHandler(InvalidTimeWindowException.class)
+    public ResponseEntity<String> handleInvalidTimeWindowException(InvalidTimeWindowException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    /**
+     * Handles {@link InvalidCandleIntervalException} thrown when a requested candle interval cannot be parsed.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 400 Bad Request and the error message
+     */
+    @ExceptionHandler(InvalidCandleIntervalException.class)
+    public ResponseEntity<String> handleInvalidCandleIntervalException(InvalidCandleIntervalException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    /**
+     * Handles {@link InvalidMaxPointsException} thrown when the requested number of price points is not valid.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 400 Bad Request and the error message
+     */
+    @ExceptionHandler(InvalidMaxPointsException.class)
+    public ResponseEntity<String> handleInvalidMaxPointsException(InvalidMaxPointsException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    /**
+     * Handles {@link InvalidPageException} thrown when a requested page of a ranking is not valid.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 400 Bad Request and the error message
+     */
+    @ExceptionHandler(InvalidPageException.class)
+    public ResponseEntity<String> handleInvalidPageException(InvalidPageException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
     /**
      * Handles {@link UnsupportedCryptoException} thrown when an unsupported cryptocurrency symbol is requested.
      *
@@ -135,4 +446,15 @@ public class CryptoController {
     public ResponseEntity<String> handleNoPriceFoundForDateException(NoPriceFoundForDateException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
+
+    /**
+     * Handles {@link NoPriceFoundForSymbolException} thrown when no price data is found for a given symbol.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 404 Not Found and the error message
+     */
+    @ExceptionHandler(NoPriceFoundForSymbolException.class)
+    public ResponseEntity<String> handleNoPriceFoundForSymbolException(NoPriceFoundForSymbolException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.pt.recommendation_service.controller;
+
+import com.pt.recommendation_service.dto.IngestionResultDto;
+import com.pt.recommendation_service.exception.IngestionNotReadyException;
+import com.pt.recommendation_service.exception.IngestionQueueFullException;
+import com.pt.recommendation_service.exception.IngestionStoppedException;
+import com.pt.recommendation_service.exception.IngestionTimeoutException;
+import com.pt.recommendation_service.service.PriceIngestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST controller for bulk ingestion of cryptocurrency prices.
+ * <p>
+ * Accepts batches of prices as CSV ({@code text/csv}) or as NDJSON ({@code application/x-ndjson}). The request body
+ * is read as a stream by the {@link PriceIngestionService}, so requests of any size are ingested in constant memory.
+ * Requests must authenticate with HTTP Basic as a user with the INGEST role.
+ * When the ingestion queue is full, the startup load has not finished yet or the application is shutting down, the
+ * request is answered with 503 (Service Unavailable) and a {@code Retry-After} header. When the rows are not written
+ * within the write timeout, the request is answered with 503 without {@code Retry-After}, as the rows may still be
+ * written.
+ * </p>
+ */
+@RestController
+@RequestMapping("/cryptos")
+@Tag(name = "Cryptocurrency Ingestion Endpoints", description = "Endpoints for bulk ingestion of cryptocurrency prices")
+public class PriceIngestionController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    /**
+     * Seconds a client is asked to wait before retrying a request rejected because the queue is full or the prices
+     * are still being loaded.
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final PriceIngestionService ingestionService;
+
+    /**
+     * Constructs a new {@code PriceIngestionController} with the given {@link PriceIngestionService}.
+     *
+     * @param ingestionService the service for price ingestion
+     */
+    public PriceIngestionController(PriceIngestionService ingestionService) {
+        this.ingestionService = ingestionService;
+    }
+
+    /**
+     * Ingests prices sent as CSV rows in the {@code timestamp,symbol,price} format, with an optional header line.
+     *
+     * @param body the request body
+     * @return the number of accepted and rejected rows
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(path = "/prices", consumes = TEXT_CSV_VALUE)
+    @Operation(
+            summary = "Ingest prices from CSV",
+            description = "Streams CSV rows in the timestamp,symbol,price format (epoch-millis timestamps) into the "
+                    + "price history. The header line is optional. Rows with an unsupported symbol or a malformed line "
+                    + "are skipped and counted as rejected.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Rows ingested",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = IngestionResultDto.class))),
+                    @ApiResponse(responseCode = "401", description = "Missing or invalid credentials"),
+                    @ApiResponse(responseCode = "403", description = "User lacks the INGEST role"),
+                    @ApiResponse(responseCode = "503",
+                            description = "Ingestion queue is full, prices are still being loaded, the application "
+                                    + "is shutting down or the rows were not written in time")
+            }
+    )
+    public ResponseEntity<IngestionResultDto> ingestCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingestionService.ingestCsv(body));
+    }
+
+    /**
+     * Ingests prices sent as NDJSON, one {@code {"timestamp":..., "symbol":..., "price":...}} object per line.
+     *
+     * @param body the request body
+     * @return the number of accepted and rejected rows
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(path = "/prices", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Ingest prices from NDJSON",
+            description = "Streams newline-delimited JSON objects with timestamp (epoch millis), symbol and price "
+                    + "fields into the price history. Lines with an unsupported symbol or invalid JSON are skipped "
+                    + "and counted as rejected.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Rows ingested",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = IngestionResultDto.class))),
+                    @ApiResponse(responseCode = "401", description = "Missing or invalid credentials"),
+                    @ApiResponse(responseCode = "403", description = "User lacks the INGEST role"),
+                    @ApiResponse(responseCode = "503",
+                            description = "Ingestion queue is full, prices are still being loaded, the application "
+                                    + "is shutting down or the rows were not written in time")
+            }
+    )
+    public ResponseEntity<IngestionResultDto> ingestNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingestionService.ingestNdjson(body));
+    }
+
+    /**
+     * Handles {@link IngestionNotReadyException} thrown while the startup load has not finished.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 503 Service Unavailable, a retry delay and the error message
+     */
+    @ExceptionHandler(IngestionNotReadyException.class)
+    public ResponseEntity<String> handleIngestionNotReadyException(IngestionNotReadyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles {@link IngestionQueueFullException} thrown when the ingestion queue is full.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 503 Service Unavailable, a retry delay and the error message
+     */
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<String> handleIngestionQueueFullException(IngestionQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles {@link IngestionStoppedException} thrown when the application shuts down before the rows are written.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 503 Service Unavailable, a retry delay and the error message
+     */
+    @ExceptionHandler(IngestionStoppedException.class)
+    public ResponseEntity<String> handleIngestionStoppedException(IngestionStoppedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles {@link IngestionTimeoutException} thrown when the rows are not written within the write timeout.
+     *
+     * @param ex the exception
+     * @return a {@link ResponseEntity} with HTTP 503 Service Unavailable and the error message
+     */
+    @ExceptionHandler(IngestionTimeoutException.class)
+    public ResponseEntity<String> handleIngestionTimeoutException(IngestionTimeoutException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ex.getMessage());
+    }
+}
@@ -1,6 +1,5 @@
 package com.pt.recommendation_service.dto;
 
-import com.pt.recommendation_service.enums.SupportedCryptos;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -19,7 +18,7 @@ public class CryptoStatsDto {
      * The cryptocurrency symbol.
      */
     @Schema(description = "Cryptocurrency symbol", example = "BTC")
-    private SupportedCryptos symbol;
+    private String symbol;
 
     /**
      * The oldest price value recorded for the cryptocurrency.
@@ -0,0 +1,29 @@
+package com.pt.recommendation_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) representing the outcome of a bulk price ingestion.
+ * <p>
+ * Contains the number of rows written and the number of rows rejected because of an unsupported symbol or a
+ * malformed line.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+public class IngestionResultDto {
+
+    /**
+     * The number of rows written.
+     */
+    @Schema(description = "Number of rows written", example = "50000")
+    private long accepted;
+
+    /**
+     * The number of rows rejected.
+     */
+    @Schema(description = "Number of rows rejected because of an unsupported symbol or a malformed line", example = "2")
+    private long rejected;
+}
@@ -0,0 +1,52 @@
+package com.pt.recommendation_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) representing an OHLC candle of a cryptocurrency.
+ * <p>
+ * Contains the start of the time bucket and the first, highest, lowest and last price recorded within it.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+public class PriceCandleDto {
+
+    /**
+     * The epoch-millis start of the time bucket.
+     */
+    @Schema(description = "Epoch-millis start of the time bucket (UTC)", example = "1641009600000")
+    private Long timestamp;
+
+    /**
+     * The first price recorded in the bucket.
+     */
+    @Schema(description = "First price in the bucket", example = "46813.21")
+    private Double open;
+
+    /**
+     * The highest price recorded in the bucket.
+     */
+    @Schema(description = "Highest price in the bucket", example = "47100.0")
+    private Double high;
+
+    /**
+     * The lowest price recorded in the bucket.
+     */
+    @Schema(description = "Lowest price in the bucket", example = "46500.5")
+    private Double low;
+
+    /**
+     * The last price recorded in the bucket.
+     */
+    @Schema(description = "Last price in the bucket", example = "46979.61")
+    private Double close;
+
+    /**
+     * The number of prices recorded in the bucket.
+     */
+    @Schema(description = "Number of prices in the bucket", example = "60")
+    private Integer count;
+}
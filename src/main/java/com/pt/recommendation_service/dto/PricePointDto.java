@@ -0,0 +1,31 @@
+package com.pt.recommendation_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) representing a single point of the price history of a cryptocurrency.
+ * <p>
+ * Describes the elements of the streamed price-history response, which writes the points without creating these
+ * objects.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PricePointDto {
+
+    /**
+     * The epoch-millis timestamp of the price.
+     */
+    @Schema(description = "Epoch-millis timestamp of the price (UTC)", example = "1641009600000")
+    private Long timestamp;
+
+    /**
+     * The price value.
+     */
+    @Schema(description = "Price value", example = "46813.21")
+    private Double price;
+}
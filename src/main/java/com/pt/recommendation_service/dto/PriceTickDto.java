@@ -0,0 +1,33 @@
+package com.pt.recommendation_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) representing a single price of a cryptocurrency, as sent in NDJSON ingestion requests.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceTickDto {
+
+    /**
+     * The epoch-millis timestamp of the price.
+     */
+    @Schema(description = "Epoch-millis timestamp of the price", example = "1641009600000")
+    private Long timestamp;
+
+    /**
+     * The cryptocurrency symbol.
+     */
+    @Schema(description = "Cryptocurrency symbol", example = "BTC")
+    private String symbol;
+
+    /**
+     * The price value.
+     */
+    @Schema(description = "Price value", example = "46813.21")
+    private Double price;
+}
@@ -0,0 +1,48 @@
+package com.pt.recommendation_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Entity representing the import state of a CSV price file, one row per file of the startup load.
+ * <p>
+ * Records the fingerprint of the file when it was last imported and how far it has been imported, so a restart
+ * only imports new files and rows appended to already imported files.
+ * </p>
+ */
+@Entity
+@Table(name = "csv_import")
+@Data
+public class CsvImport {
+
+    /**
+     * The name of the CSV file (primary key).
+     */
+    @Id
+    @Column(length = 255)
+    private String fileName;
+
+    /**
+     * The last modification time of the file, in epoch milliseconds, when it was last imported.
+     */
+    private long lastModified;
+
+    /**
+     * The number of leading bytes of the file that have been imported (the high-water mark).
+     */
+    private long importedBytes;
+
+    /**
+     * The number of price records written from the imported bytes.
+     */
+    private long importedRows;
+
+    /**
+     * Hash of the first and last bytes of the imported part of the file, used to detect rewritten files.
+     */
+    @Column(nullable = false, length = 16)
+    private String contentHash;
+}
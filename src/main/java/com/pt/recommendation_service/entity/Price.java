@@ -1,20 +1,40 @@
 package com.pt.recommendation_service.entity;
 
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.store.PriceStoreSynchronizer;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
-
-import java.time.LocalDateTime;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Entity representing a cryptocurrency price record.
  * <p>
- * Stores the price of a specific cryptocurrency at a given date and time.
+ * Stores the price of a specific cryptocurrency at a given time. The symbol is stored as the id of its row in the
+ * {@link Symbol} table and the time as epoch milliseconds, so a row is a few fixed-size columns and the entity
+ * holds primitives instead of a {@code String} and a {@code LocalDateTime}. Read paths that do not modify prices
+ * load projections instead of entities.
+ * </p>
+ * <p>
+ * The indexes match the query shapes of {@code PriceRepository}: per-symbol lookups ordered by time or by price,
+ * and time range scans across all symbols.
  * </p>
  */
 @Entity
+@Table(name = "price_point", indexes = {
+        @Index(name = "idx_price_point_symbol_time", columnList = "symbolId, epochMillis"),
+        @Index(name = "idx_price_point_symbol_price", columnList = "symbolId, price"),
+        @Index(name = "idx_price_point_time", columnList = "epochMillis")
+})
+@EntityListeners(PriceStoreSynchronizer.class)
 @Data
 public class Price {
 
@@ -26,17 +46,28 @@ public class Price {
     private Long id;
 
     /**
-     * The date and time when the price was recorded.
+     * The time when the price was recorded, in epoch milliseconds.
+     */
+    @Column(nullable = false)
+    private long epochMillis;
+
+    /**
+     * The id of the cryptocurrency symbol in the {@link Symbol} table.
      */
-    private LocalDateTime dateTime;
+    @Column(nullable = false)
+    private int symbolId;
 
     /**
-     * The symbol of the cryptocurrency (e.g., BTC, ETH).
+     * The price value of the cryptocurrency at the given time.
      */
-    private String symbol;
+    private double price;
 
     /**
-     * The price value of the cryptocurrency at the given date and time.
+     * Where the price record came from. Only {@link PriceSource#CSV} records are replaced when the CSV files are
+     * imported again.
      */
-    private Double price;
-}
\ No newline at end of file
+    @Enumerated(EnumType.ORDINAL)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private PriceSource source = PriceSource.CSV;
+}
@@ -0,0 +1,46 @@
+package com.pt.recommendation_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Entity representing the state of a rate limit bucket shared by all instances of the service, one row per client.
+ * <p>
+ * Only used with {@code rate-limit.store=jdbc}. The state is the serialized Bucket4j bucket, replaced with a
+ * compare-and-swap on {@code revision}, so concurrent requests on different instances never overwrite each other.
+ * </p>
+ */
+@Entity
+@Table(name = "rate_limit_bucket", indexes = {
+        @Index(name = "idx_rate_limit_bucket_last_access", columnList = "lastAccess")
+})
+@Data
+public class RateLimitBucket {
+
+    /**
+     * The hex SHA-256 digest of the client address the bucket limits (primary key).
+     */
+    @Id
+    @Column(length = 64)
+    private String bucketKey;
+
+    /**
+     * The serialized state of the bucket.
+     */
+    @Column(nullable = false, length = 1024)
+    private byte[] state;
+
+    /**
+     * The number of times the state has been replaced, compared and incremented by every update.
+     */
+    private long revision;
+
+    /**
+     * The time the state was last written, in epoch milliseconds, used to purge idle buckets.
+     */
+    private long lastAccess;
+}
@@ -0,0 +1,32 @@
+package com.pt.recommendation_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Entity representing a cryptocurrency symbol, one row per symbol ever supported.
+ * <p>
+ * Assigns every symbol the small integer id that the price table stores instead of the name. Rows are never
+ * deleted, so the id of a symbol stays the same across restarts and changes of the supported symbols.
+ * </p>
+ */
+@Entity
+@Table(name = "crypto_symbol")
+@Data
+public class Symbol {
+
+    /**
+     * The id of the symbol (primary key), assigned by the {@code SymbolRegistry}.
+     */
+    @Id
+    private int id;
+
+    /**
+     * The upper-case symbol of the cryptocurrency (e.g., BTC, ETH).
+     */
+    @Column(nullable = false, unique = true, length = 16)
+    private String name;
+}
@@ -0,0 +1,14 @@
+package com.pt.recommendation_service.enums;
+
+/**
+ * Enum representing where {@code PriceService} reads price data from.
+ * <p>
+ * Configured with the {@code prices.read-source} property.
+ * </p>
+ */
+public enum PriceReadSource {
+    /** Answer queries from the in-memory price store (default) */
+    MEMORY,
+    /** Answer queries with aggregate queries against the database, for histories too large to keep in memory */
+    DATABASE
+}
@@ -0,0 +1,14 @@
+package com.pt.recommendation_service.enums;
+
+/**
+ * Enum representing where a stored price record came from.
+ * <p>
+ * Stored by ordinal in the {@code source} column of {@code price_point}, so the order of the constants must not change.
+ * </p>
+ */
+public enum PriceSource {
+    /** Imported from a CSV file, at startup or by the directory watcher, and tracked by the import manifest */
+    CSV,
+    /** Sent to the ingestion endpoint; never deleted by a re-import of the CSV files */
+    INGEST
+}
@@ -0,0 +1,17 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when an ingestion request arrives before the startup load of the CSV files has finished.
+ * <p>
+ * No row of the request has been accepted.
+ * </p>
+ */
+public class IngestionNotReadyException extends RuntimeException {
+
+    /**
+     * Constructs a new IngestionNotReadyException.
+     */
+    public IngestionNotReadyException() {
+        super("Prices are still being loaded, retry later");
+    }
+}
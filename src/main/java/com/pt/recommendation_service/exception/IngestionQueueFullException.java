@@ -0,0 +1,20 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when an ingestion request cannot be accepted because the queue of batches waiting to be written
+ * is full.
+ * <p>
+ * Rows queued before the queue filled up are still written; their count is part of the message.
+ * </p>
+ */
+public class IngestionQueueFullException extends RuntimeException {
+
+    /**
+     * Constructs a new IngestionQueueFullException with a message indicating how many rows were accepted.
+     *
+     * @param accepted the number of rows of the request queued before the queue filled up
+     */
+    public IngestionQueueFullException(long accepted) {
+        super("Ingestion queue is full, retry later. Rows accepted before: " + accepted);
+    }
+}
@@ -0,0 +1,17 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when ingested rows cannot be written because the application is shutting down.
+ * <p>
+ * Batches of the request that were not written yet are dropped.
+ * </p>
+ */
+public class IngestionStoppedException extends RuntimeException {
+
+    /**
+     * Constructs a new IngestionStoppedException.
+     */
+    public IngestionStoppedException() {
+        super("Ingestion is shutting down, retry later");
+    }
+}
@@ -0,0 +1,19 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when the rows of an ingestion request are not written within the write timeout.
+ * <p>
+ * The queued rows are not cancelled, so they may still be written; their count is part of the message.
+ * </p>
+ */
+public class IngestionTimeoutException extends RuntimeException {
+
+    /**
+     * Constructs a new IngestionTimeoutException with a message indicating how many rows were queued.
+     *
+     * @param accepted the number of rows of the request queued for writing
+     */
+    public IngestionTimeoutException(long accepted) {
+        super("Timed out waiting for the rows to be written, they may still be written. Rows accepted: " + accepted);
+    }
+}
@@ -0,0 +1,20 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when a requested candle interval cannot be parsed.
+ * <p>
+ * Typically used to indicate that the interval is not a positive number followed by {@code m}, {@code h}, {@code d}
+ * or {@code w}.
+ * </p>
+ */
+public class InvalidCandleIntervalException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidCandleIntervalException for the specified interval.
+     *
+     * @param interval the interval that could not be parsed
+     */
+    public InvalidCandleIntervalException(String interval) {
+        super("Invalid candle interval: " + interval + ". Expected a positive number followed by m, h, d or w, e.g. 1h");
+    }
+}
@@ -0,0 +1,21 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when the requested number of points of a price series is not valid.
+ * <p>
+ * Typically used to indicate that the number is too small to keep the first and the last price, or larger than a
+ * single response may carry.
+ * </p>
+ */
+public class InvalidMaxPointsException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidMaxPointsException for the specified number of points.
+     *
+     * @param maxPoints the requested number of points
+     * @param limit     the largest number of points a response may carry
+     */
+    public InvalidMaxPointsException(int maxPoints, int limit) {
+        super("Invalid maxPoints: " + maxPoints + ". Expected a number between 2 and " + limit);
+    }
+}
@@ -0,0 +1,19 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when a requested page of a ranking is not valid.
+ * <p>
+ * Typically used to indicate that the offset is negative or that the limit is not positive.
+ * </p>
+ */
+public class InvalidPageException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidPageException with the specified detail message.
+     *
+     * @param message the detail message explaining why the page is not valid
+     */
+    public InvalidPageException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when a requested time window is not valid.
+ * <p>
+ * Typically used to indicate that only one bound of the window was given, or that its start is not before its end.
+ * </p>
+ */
+public class InvalidTimeWindowException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidTimeWindowException with the specified detail message.
+     *
+     * @param message the detail message explaining why the window is not valid
+     */
+    public InvalidTimeWindowException(String message) {
+        super(message);
+    }
+}
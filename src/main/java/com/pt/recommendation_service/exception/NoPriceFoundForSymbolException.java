@@ -0,0 +1,19 @@
+package com.pt.recommendation_service.exception;
+
+/**
+ * Exception thrown when no price data is found for a given cryptocurrency symbol.
+ * <p>
+ * Typically used to indicate that a supported symbol has no price records loaded yet.
+ * </p>
+ */
+public class NoPriceFoundForSymbolException extends RuntimeException {
+
+    /**
+     * Constructs a new NoPriceFoundForSymbolException with a message indicating the symbol without data.
+     *
+     * @param symbol the cryptocurrency symbol for which no price data was found
+     */
+    public NoPriceFoundForSymbolException(String symbol) {
+        super("No price data found for symbol: " + symbol);
+    }
+}
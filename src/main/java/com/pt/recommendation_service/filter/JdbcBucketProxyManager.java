@@ -0,0 +1,227 @@
+package com.pt.recommendation_service.filter;
+
+import com.pt.recommendation_service.repository.RateLimitBucketRepository;
+import com.pt.recommendation_service.repository.RateLimitBucketRepository.StoredBucket;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Bucket4j proxy manager keeping the rate limit buckets in the {@code rate_limit_bucket} table, so every instance
+ * of the service connected to the same database enforces one limit per client.
+ * <p>
+ * Enabled with {@code rate-limit.store=jdbc}. Each request reads the bucket, applies the request to it and writes
+ * it back with a compare-and-swap on its revision through {@link RateLimitBucketRepository}, retrying when another
+ * instance changed the bucket in between. No row locks are held between the statements.
+ * </p>
+ * <p>
+ * Rows are keyed by the hex SHA-256 digest of the client address, so every key has {@value #KEY_LENGTH}
+ * characters however long the {@code X-Forwarded-For} header it came from. Only this class hashes the addresses;
+ * the in-memory store keeps them as they are.
+ * </p>
+ * <p>
+ * Buckets not written for longer than the refill period have refilled completely, so a background thread deletes
+ * them once per {@code rate-limit.idle-timeout} and instance, and they are rebuilt with full capacity when the
+ * client returns. Requests never wait for that delete.
+ * </p>
+ * <p>
+ * The asynchronous API of Bucket4j is supported as well: its operations run the same JDBC statements on virtual
+ * threads and complete their futures when the statements return.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "jdbc")
+public class JdbcBucketProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcBucketProxyManager.class);
+
+    /**
+     * Runs the blocking statements of the asynchronous operations, each on its own virtual thread.
+     */
+    private static final Executor ASYNC_EXECUTOR = task -> Thread.ofVirtual().start(task);
+
+    /**
+     * Length of the stored bucket keys, in characters.
+     */
+    static final int KEY_LENGTH = 64;
+
+    private final RateLimitBucketRepository repository;
+    private final long idleMillis;
+    private final LongSupplier currentTimeMillis;
+
+    private volatile Thread purgeThread;
+
+    /**
+     * Constructs a new {@code JdbcBucketProxyManager} storing the buckets with the given repository.
+     *
+     * @param repository  the repository of the bucket states
+     * @param idleTimeout how long an unused bucket is kept
+     */
+    @Autowired
+    public JdbcBucketProxyManager(RateLimitBucketRepository repository,
+                                  @Value("${rate-limit.idle-timeout:PT1M}") Duration idleTimeout) {
+        this(repository, idleTimeout, System::currentTimeMillis);
+    }
+
+    JdbcBucketProxyManager(RateLimitBucketRepository repository, Duration idleTimeout,
+                           LongSupplier currentTimeMillis) {
+        super(ClientSideConfig.getDefault());
+        this.repository = repository;
+        Duration idle = idleTimeout.compareTo(RateLimitBucketStore.REFILL_PERIOD) < 0
+                ? RateLimitBucketStore.REFILL_PERIOD
+                : idleTimeout;
+        this.idleMillis = idle.toMillis();
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * Starts the thread deleting the idle buckets.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        purgeThread = Thread.ofVirtual().name("rate-limit-purge").start(this::purgeIdleBucketsPeriodically);
+    }
+
+    /**
+     * Stops the thread deleting the idle buckets.
+     *
+     * @throws InterruptedException if interrupted while waiting for the thread to stop
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (purgeThread == null) {
+            return;
+        }
+        purgeThread.interrupt();
+        purgeThread.join();
+    }
+
+    /**
+     * Deletes the buckets not written for longer than the idle timeout.
+     *
+     * @return the number of deleted buckets
+     */
+    int purgeIdleBuckets() {
+        return repository.deleteIdle(currentTimeMillis.getAsLong() - idleMillis);
+    }
+
+    /**
+     * Returns the key a client's bucket is stored under: the hex SHA-256 digest of the client address.
+     *
+     * @param key the client address
+     * @return the stored key of {@value #KEY_LENGTH} characters
+     */
+    static String storedKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return operation(storedKey(key));
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        CompareAndSwapOperation operation = operation(storedKey(key));
+        return new AsyncCompareAndSwapOperation() {
+
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData() {
+                return CompletableFuture.supplyAsync(operation::getStateData, ASYNC_EXECUTOR);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                             RemoteBucketState newState) {
+                return CompletableFuture.supplyAsync(
+                        () -> operation.compareAndSwap(originalData, newData, newState), ASYNC_EXECUTOR);
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        repository.delete(storedKey(key));
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        String storedKey = storedKey(key);
+        return CompletableFuture.runAsync(() -> repository.delete(storedKey), ASYNC_EXECUTOR);
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    /**
+     * Helper method to create the compare-and-swap operation of one request on a bucket. The operation remembers
+     * the revision it read, so that its write only succeeds if no other instance changed the bucket in between.
+     *
+     * @param key the stored key of the bucket
+     * @return the operation
+     */
+    private CompareAndSwapOperation operation(String key) {
+        return new CompareAndSwapOperation() {
+
+            private long revision;
+
+            @Override
+            public Optional<byte[]> getStateData() {
+                Optional<StoredBucket> stored = repository.find(key);
+                stored.ifPresent(bucket -> revision = bucket.revision());
+                return stored.map(StoredBucket::state);
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                long now = currentTimeMillis.getAsLong();
+                return originalData == null
+                        ? repository.insert(key, newData, now)
+                        : repository.update(key, newData, revision, now);
+            }
+        };
+    }
+
+    private void purgeIdleBucketsPeriodically() {
+        try {
+            while (true) {
+                Thread.sleep(idleMillis);
+                try {
+                    purgeIdleBuckets();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to delete idle rate limit buckets. Error: {}", e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.pt.recommendation_service.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded store of the rate limit {@link Bucket}s of the clients, keyed by client address.
+ * <p>
+ * Backed by a Caffeine cache, so lookups of existing buckets neither lock nor allocate. Buckets idle for longer
+ * than {@code rate-limit.idle-timeout} are expired, and the store never holds more than {@code rate-limit.max-keys}
+ * buckets, so spoofed or short-lived client addresses cannot fill the heap.
+ * </p>
+ * <p>
+ * The idle timeout is never shorter than the refill period: a bucket idle for that long has refilled completely,
+ * so expiring it and creating a fresh one later does not change the limit. Only a full store evicts buckets
+ * that are still in use, which restarts their limit.
+ * </p>
+ * <p>
+ * With {@code rate-limit.store=jdbc} the buckets are proxies of the buckets shared by all instances through the
+ * {@link JdbcBucketProxyManager}, so a client gets one limit however many instances serve it. Each proxy may
+ * consume up to {@code rate-limit.prefetch-tokens} tokens locally before writing them to the shared bucket, or
+ * until {@code rate-limit.prefetch-timeout} has passed, which saves the database round trips of most requests.
+ * A client can therefore exceed its limit by at most that many tokens per instance. With
+ * {@code rate-limit.prefetch-tokens=0} every request goes to the shared bucket. Caching the proxies here keeps
+ * their local tokens across requests.
+ * </p>
+ */
+@Component
+public class RateLimitBucketStore {
+
+    /**
+     * Requests allowed per client and refill period.
+     */
+    static final int CAPACITY = 60;
+
+    /**
+     * Period in which a drained bucket refills completely.
+     */
+    static final Duration REFILL_PERIOD = Duration.ofMinutes(1);
+
+    private final Cache<String, Bucket> buckets;
+    private final Function<String, Bucket> bucketFactory;
+
+    /**
+     * Constructs a new {@code RateLimitBucketStore} with the given bounds, holding the buckets of the shared store
+     * if a {@link JdbcBucketProxyManager} is configured.
+     *
+     * @param maxKeys         the maximum number of buckets to hold
+     * @param idleTimeout     how long an unused bucket is kept
+     * @param proxyManager    the manager of the shared buckets, if {@code rate-limit.store=jdbc}
+     * @param prefetchTokens  the number of tokens a shared bucket may consume locally between writes
+     * @param prefetchTimeout the longest time a shared bucket may consume tokens locally between writes
+     */
+    @Autowired
+    public RateLimitBucketStore(@Value("${rate-limit.max-keys:100000}") long maxKeys,
+                                @Value("${rate-limit.idle-timeout:PT1M}") Duration idleTimeout,
+                                ObjectProvider<JdbcBucketProxyManager> proxyManager,
+                                @Value("${rate-limit.prefetch-tokens:5}") long prefetchTokens,
+                                @Value("${rate-limit.prefetch-timeout:PT1S}") Duration prefetchTimeout) {
+        this(maxKeys, idleTimeout, Ticker.systemTicker(),
+                bucketFactory(proxyManager.getIfAvailable(), prefetchTokens, prefetchTimeout));
+    }
+
+    /**
+     * Constructs a new {@code RateLimitBucketStore} of local buckets with the given bounds.
+     *
+     * @param maxKeys     the maximum number of buckets to hold
+     * @param idleTimeout how long an unused bucket is kept
+     */
+    public RateLimitBucketStore(long maxKeys, Duration idleTimeout) {
+        this(maxKeys, idleTimeout, Ticker.systemTicker());
+    }
+
+    RateLimitBucketStore(long maxKeys, Duration idleTimeout, Ticker ticker) {
+        this(maxKeys, idleTimeout, ticker, bucketFactory(null, 0, Duration.ZERO));
+    }
+
+    RateLimitBucketStore(long maxKeys, Duration idleTimeout, ProxyManager<String> proxyManager,
+                         long prefetchTokens, Duration prefetchTimeout) {
+        this(maxKeys, idleTimeout, Ticker.systemTicker(), bucketFactory(proxyManager, prefetchTokens, prefetchTimeout));
+    }
+
+    private RateLimitBucketStore(long maxKeys, Duration idleTimeout, Ticker ticker,
+                                 Function<String, Bucket> bucketFactory) {
+        this.bucketFactory = bucketFactory;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout.compareTo(REFILL_PERIOD) < 0 ? REFILL_PERIOD : idleTimeout)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Resolves or creates the {@link Bucket} of the given client.
+     * Each bucket allows up to {@value #CAPACITY} requests per minute.
+     *
+     * @param key the client address
+     * @return the {@link Bucket} associated with the client
+     */
+    public Bucket resolveBucket(String key) {
+        return buckets.get(key, bucketFactory);
+    }
+
+    /**
+     * Returns the number of buckets currently held.
+     *
+     * @return the approximate number of buckets
+     */
+    public long size() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * Returns the number of buckets evicted so far because the store was full or they were idle.
+     *
+     * @return the number of evicted buckets
+     */
+    public long evictionCount() {
+        return buckets.stats().evictionCount();
+    }
+
+    /**
+     * Performs any pending maintenance, such as evictions, right away.
+     */
+    void cleanUp() {
+        buckets.cleanUp();
+    }
+
+    private static Function<String, Bucket> bucketFactory(ProxyManager<String> proxyManager, long prefetchTokens,
+                                                          Duration prefetchTimeout) {
+        if (proxyManager == null) {
+            return key -> Bucket4j.builder().addLimit(limit()).build();
+        }
+        BucketConfiguration configuration = BucketConfiguration.builder().addLimit(limit()).build();
+        RemoteBucketBuilder<String> builder = proxyManager.builder();
+        if (prefetchTokens > 0) {
+            builder = builder.withOptimization(
+                    Optimizations.delaying(new DelayParameters(prefetchTokens, prefetchTimeout)));
+        }
+        RemoteBucketBuilder<String> remoteBuckets = builder;
+        return key -> remoteBuckets.build(key, configuration);
+    }
+
+    private static Bandwidth limit() {
+        return Bandwidth.classic(CAPACITY, Refill.greedy(CAPACITY, REFILL_PERIOD));
+    }
+}
@@ -1,9 +1,10 @@
 package com.pt.recommendation_service.filter;
 
-import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Bucket4j;
-import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 import jakarta.servlet.http
         .HttpServletRequest;
@@ -15,9 +16,8 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.ServletException;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
@@ -25,27 +25,29 @@ import org.springframework.stereotype.Component;
  * <p>
  * Limits the number of requests per IP address to 60 requests per minute.
  * If the limit is exceeded, the filter responds with HTTP 429 (Too Many Requests).
+ * The buckets are kept in a bounded {@link RateLimitBucketStore} that expires idle clients.
+ * Can be switched off with {@code rate-limit.enabled=false}, for example to load test the service.
+ * </p>
+ * <p>
+ * As a {@link MeterBinder}, the filter publishes the number of rejected requests and the number of buckets held
+ * and evicted by the store. Rejections are counted in a {@link LongAdder}, which the meter reads when it is
+ * scraped, so filtering a request never touches the meter registry.
  * </p>
  */
 @Component
-public class RateLimitFilter implements Filter {
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter implements Filter, MeterBinder {
 
-    /**
-     * Stores a {@link Bucket} (rate limiter) for each IP address.
-     */
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final RateLimitBucketStore bucketStore;
+    private final LongAdder rejected = new LongAdder();
 
     /**
-     * Resolves or creates a {@link Bucket} for the given IP address.
-     * Each bucket allows up to 60 requests per minute.
+     * Constructs a new {@code RateLimitFilter} with the given {@link RateLimitBucketStore}.
      *
-     * @param ip the IP address of the client
-     * @return the {@link Bucket} associated with the IP
+     * @param bucketStore the store of the clients' buckets
      */
-    private Bucket resolveBucket(String ip) {
-        return buckets.computeIfAbsent(ip, k -> Bucket4j.builder()
-                .addLimit(Bandwidth.classic(60, Refill.greedy(60, Duration.ofMinutes(1))))
-                .build());
+    public RateLimitFilter(RateLimitBucketStore bucketStore) {
+        this.bucketStore = bucketStore;
     }
 
     /**
@@ -66,13 +68,42 @@ public class RateLimitFilter implements Filter {
         if (ip == null) {
             ip = request.getRemoteAddr();
         }
-        Bucket bucket = resolveBucket(ip);
+        Bucket bucket = bucketStore.resolveBucket(ip);
 
         if (bucket.tryConsume(1)) {
             chain.doFilter(request, response);
         } else {
+            rejected.increment();
             ((HttpServletResponse) response).setStatus(429);
             response.getWriter().write("Too Many Requests");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the number of requests rejected with HTTP 429 so far.
+     *
+     * @return the number of rejected requests
+     */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Registers the rate limiting meters: {@code rate.limit.rejected}, {@code rate.limit.buckets} and
+     * {@code rate.limit.evictions}.
+     *
+     * @param registry the registry to register the meters with
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rate.limit.rejected", this, RateLimitFilter::rejectedCount)
+                .description("Requests rejected with 429 Too Many Requests")
+                .register(registry);
+        Gauge.builder("rate.limit.buckets", bucketStore, RateLimitBucketStore::size)
+                .description("Rate limit buckets currently held, one per client address")
+                .register(registry);
+        FunctionCounter.builder("rate.limit.evictions", bucketStore, RateLimitBucketStore::evictionCount)
+                .description("Rate limit buckets evicted because the store was full or they were idle")
+                .register(registry);
+    }
+}
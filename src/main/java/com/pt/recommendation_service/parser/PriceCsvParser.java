@@ -0,0 +1,282 @@
+package com.pt.recommendation_service.parser;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parser of CSV price files in the {@code timestamp,symbol,price} format, with a header line.
+ * <p>
+ * Scans the bytes of each line in place: the epoch-millis timestamp and the decimal price are parsed straight from
+ * the bytes, and the symbol is looked up case-insensitively in the {@link SymbolRegistry} without decoding it, so
+ * valid lines allocate nothing and are passed to the {@link PriceRecordSink} as primitives. Plain decimals with up
+ * to 17 significant digits are converted exactly; anything else (exponents, very long numbers) falls back to
+ * {@link Double#parseDouble(String)}, which gives the same result.
+ * </p>
+ * <p>
+ * A parser reuses its read buffer across files, so it is not thread-safe; use one parser per worker.
+ * </p>
+ */
+public final class PriceCsvParser {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final SymbolRegistry symbolRegistry;
+    private final PriceRecordSink sink;
+    private byte[] buffer;
+
+    /**
+     * Constructs a new {@code PriceCsvParser} feeding the given sink.
+     *
+     * @param symbolRegistry the registry of supported cryptocurrency symbols
+     * @param sink           the receiver of the parsed records
+     */
+    public PriceCsvParser(SymbolRegistry symbolRegistry, PriceRecordSink sink) {
+        this(symbolRegistry, sink, DEFAULT_BUFFER_SIZE);
+    }
+
+    PriceCsvParser(SymbolRegistry symbolRegistry, PriceRecordSink sink, int bufferSize) {
+        this.symbolRegistry = symbolRegistry;
+        this.sink = sink;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Parses a whole CSV file, skipping its header line. The stream is not closed.
+     *
+     * @param in the content of the file
+     * @return the number of lines read, including the header
+     * @throws IOException if the stream cannot be read
+     */
+    public long parse(InputStream in) throws IOException {
+        return parse(in, true);
+    }
+
+    /**
+     * Parses a chunk of a CSV file, such as a memory-mapped region, that starts at the beginning of a line.
+     * The chunk is read in windows of the parser's buffer size, and the line numbers passed to the sink are counted
+     * from the start of the chunk.
+     *
+     * @param chunk  the content of the chunk, read from its position to its limit
+     * @param header whether the first line of the chunk is the header of the file
+     * @return the number of lines read, including the header
+     */
+    public long parse(ByteBuffer chunk, boolean header) {
+        try {
+            return parse(new ByteBufferInputStream(chunk), header);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses a CSV file, or the rest of a CSV file from the beginning of a line. The stream is not closed.
+     *
+     * @param in     the content to parse
+     * @param header whether the first line is the header of the file
+     * @return the number of lines read, including the header
+     * @throws IOException if the stream cannot be read
+     */
+    public long parse(InputStream in, boolean header) throws IOException {
+        long firstDataLine = header ? 2 : 1;
+        long lineNumber = 0;
+        int start = 0;
+        int limit = 0;
+        int scan = 0;
+        while (true) {
+            int newline = indexOf(buffer, scan, limit, (byte) '\n');
+            if (newline >= 0) {
+                if (++lineNumber >= firstDataLine) {
+                    parseLine(buffer, start, newline, lineNumber);
+                }
+                start = newline + 1;
+                scan = start;
+                continue;
+            }
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, limit - start);
+                limit -= start;
+                start = 0;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            scan = limit;
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                if (limit > start && ++lineNumber >= firstDataLine) {
+                    parseLine(buffer, start, limit, lineNumber);
+                }
+                return lineNumber;
+            }
+            limit += read;
+        }
+    }
+
+    /**
+     * Parses a single data line and passes the result to the sink. Blank lines are skipped.
+     *
+     * @param bytes      the buffer holding the line
+     * @param from       the index of the first byte of the line
+     * @param to         the index after the last byte of the line, excluding the {@code '\n'}
+     * @param lineNumber the line number to report errors with
+     */
+    public void parseLine(byte[] bytes, int from, int to, long lineNumber) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        if (to == from) {
+            return;
+        }
+        int symbolEnd = -1;
+        int symbolStart = indexOf(bytes, from, to, (byte) ',') + 1;
+        if (symbolStart > 0) {
+            symbolEnd = indexOf(bytes, symbolStart, to, (byte) ',');
+        }
+        if (symbolEnd < 0) {
+            sink.malformedLine(lineNumber, string(bytes, from, to), "Expected 3 columns: timestamp,symbol,price");
+            return;
+        }
+        CryptoSymbol crypto = symbolRegistry.find(bytes, symbolStart, symbolEnd);
+        if (crypto == null) {
+            sink.unsupportedSymbol(lineNumber, string(bytes, symbolStart, symbolEnd));
+            return;
+        }
+        int priceEnd = indexOf(bytes, symbolEnd + 1, to, (byte) ',');
+        try {
+            long timestamp = parseLong(bytes, from, symbolStart - 1);
+            double price = parseDouble(bytes, symbolEnd + 1, priceEnd < 0 ? to : priceEnd);
+            sink.accept(crypto, timestamp, price);
+        } catch (NumberFormatException e) {
+            sink.malformedLine(lineNumber, string(bytes, from, to), e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a decimal integer from the bytes in {@code [from, to)}.
+     *
+     * @throws NumberFormatException if the bytes are not a valid {@code long}
+     */
+    static long parseLong(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i++] == '-';
+        }
+        if (i == to || to - i > 18) {
+            return Long.parseLong(string(bytes, from, to));
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormatException(bytes, from, to);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal number from the bytes in {@code [from, to)}, with the same result as
+     * {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if the bytes are not a valid number
+     */
+    static double parseDouble(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i++] == '-';
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean digits = false;
+        boolean point = false;
+        for (; i < to; i++) {
+            byte c = bytes[i];
+            if (c >= '0' && c <= '9') {
+                if (significantDigits == 18) {
+                    return slowParseDouble(bytes, from, to);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+                if (point) {
+                    scale++;
+                }
+                digits = true;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return slowParseDouble(bytes, from, to);
+            }
+        }
+        if (!digits || mantissa >= MAX_EXACT_MANTISSA || scale >= POWERS_OF_TEN.length) {
+            return slowParseDouble(bytes, from, to);
+        }
+        // Both operands are exact doubles, so the single division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParseDouble(byte[] bytes, int from, int to) {
+        return Double.parseDouble(string(bytes, from, to));
+    }
+
+    private static NumberFormatException numberFormatException(byte[] bytes, int from, int to) {
+        return new NumberFormatException("For input string: \"" + string(bytes, from, to) + "\"");
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String string(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the remaining bytes of a {@link ByteBuffer} with bulk copies.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
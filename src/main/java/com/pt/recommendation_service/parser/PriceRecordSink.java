@@ -0,0 +1,39 @@
+package com.pt.recommendation_service.parser;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+
+/**
+ * Receiver of the price records parsed by a {@link PriceCsvParser}.
+ * <p>
+ * Valid records are passed as primitives, so the parser does not allocate per record. The error callbacks are
+ * only invoked for rejected lines and may allocate freely.
+ * </p>
+ */
+public interface PriceRecordSink {
+
+    /**
+     * Receives a valid price record.
+     *
+     * @param crypto    the cryptocurrency of the record
+     * @param timestamp the epoch-millis timestamp of the price
+     * @param price     the price value
+     */
+    void accept(CryptoSymbol crypto, long timestamp, double price);
+
+    /**
+     * Receives a line whose symbol is not supported.
+     *
+     * @param lineNumber the 1-based line number, counting the header
+     * @param symbol     the unsupported symbol
+     */
+    void unsupportedSymbol(long lineNumber, String symbol);
+
+    /**
+     * Receives a line that could not be parsed.
+     *
+     * @param lineNumber the 1-based line number, counting the header
+     * @param line       the content of the line
+     * @param error      the reason the line was rejected
+     */
+    void malformedLine(long lineNumber, String line, String error);
+}
@@ -0,0 +1,19 @@
+package com.pt.recommendation_service.repository;
+
+import com.pt.recommendation_service.entity.CsvImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * Repository interface for accessing the {@link CsvImport} manifest of the startup load.
+ */
+public interface CsvImportRepository extends JpaRepository<CsvImport, String> {
+
+    /**
+     * Returns the total number of price records written by the recorded imports.
+     *
+     * @return the sum of the imported rows of all files
+     */
+    @Query("SELECT COALESCE(SUM(c.importedRows), 0) FROM CsvImport c")
+    long sumImportedRows();
+}
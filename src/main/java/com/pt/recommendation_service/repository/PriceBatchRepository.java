@@ -0,0 +1,138 @@
+package com.pt.recommendation_service.repository;
+
+import com.pt.recommendation_service.entity.Price;
+import com.pt.recommendation_service.enums.PriceSource;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Repository for bulk reading and writing {@link Price} records.
+ * <p>
+ * Bypasses the JPA persistence context and writes rows with JDBC batch inserts. Hibernate cannot batch
+ * inserts for entities with {@code IDENTITY} ids, so going through {@link PriceRepository#save(Object)}
+ * costs one statement and one transaction per row. Rows are written from, and read into, primitive columns,
+ * without creating entities.
+ * </p>
+ * <p>
+ * Every row records its {@link PriceSource}, so the CSV rows can be counted and replaced without touching the rows
+ * sent to the ingestion endpoint.
+ * </p>
+ */
+@Repository
+public class PriceBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO price_point (epoch_millis, symbol_id, price, source) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_ALL_SQL = "SELECT symbol_id, epoch_millis, price FROM price_point";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new {@code PriceBatchRepository} with the given {@link JdbcTemplate}.
+     *
+     * @param jdbcTemplate the JDBC template used to execute the batch inserts
+     */
+    public PriceBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the given price records imported from CSV as a single JDBC batch within one transaction.
+     *
+     * @param rows the price records to insert
+     */
+    @Transactional
+    public void insertBatch(PriceRows rows) {
+        insertBatch(rows, PriceSource.CSV);
+    }
+
+    /**
+     * Inserts the given price records as a single JDBC batch within one transaction.
+     *
+     * @param rows   the price records to insert
+     * @param source where the price records came from
+     */
+    @Transactional
+    public void insertBatch(PriceRows rows, PriceSource source) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, rows.timestamp(i));
+                ps.setInt(2, rows.symbolId(i));
+                ps.setDouble(3, rows.price(i));
+                ps.setInt(4, source.ordinal());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Returns the number of price records in the table.
+     *
+     * @return the row count
+     */
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM price_point", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns the number of price records from the given source.
+     *
+     * @param source where the price records came from
+     * @return the row count
+     */
+    public long count(PriceSource source) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM price_point WHERE source = ?", Long.class,
+                source.ordinal());
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Deletes all price records from the given source, without notifying the JPA entity listeners.
+     *
+     * @param source where the price records to delete came from
+     */
+    public void deleteAll(PriceSource source) {
+        jdbcTemplate.update("DELETE FROM price_point WHERE source = ?", source.ordinal());
+    }
+
+    /**
+     * Streams all price records to the given handler, in no particular order.
+     *
+     * @param handler the receiver of the records
+     */
+    public void forEachPrice(PriceRowHandler handler) {
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            handler.handle(rs.getInt(1), rs.getLong(2), rs.getDouble(3));
+        });
+    }
+
+    /**
+     * Receiver of the price records streamed by {@link #forEachPrice(PriceRowHandler)}.
+     */
+    @FunctionalInterface
+    public interface PriceRowHandler {
+
+        /**
+         * Handles one price record.
+         *
+         * @param symbolId  the id of the cryptocurrency symbol, as stored
+         * @param timestamp the epoch-millis timestamp of the price
+         * @param price     the price value
+         */
+        void handle(int symbolId, long timestamp, double price);
+    }
+}
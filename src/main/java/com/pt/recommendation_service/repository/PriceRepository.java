@@ -1,57 +1,122 @@
 package com.pt.recommendation_service.repository;
 
 import com.pt.recommendation_service.entity.Price;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for accessing and querying {@link Price} entities.
  * <p>
- * Provides methods to retrieve price records by symbol, date, and price values.
+ * Provides methods to retrieve price records by symbol id, time, and price values. Symbols are identified by
+ * their id in the symbol table and times are epoch milliseconds. Queries return {@link PriceRow} and other
+ * projections rather than entities, so reads do not fill the persistence context.
  * </p>
  */
 public interface PriceRepository extends JpaRepository<Price, Long> {
 
+    /**
+     * Number of rows fetched at a time by the streaming queries.
+     */
+    int STREAM_FETCH_SIZE = 1000;
+
     /**
      * Finds the oldest price record for the given cryptocurrency symbol.
      *
-     * @param symbol the cryptocurrency symbol
-     * @return the oldest {@link Price} record, or null if none found
+     * @param symbolId the id of the cryptocurrency symbol
+     * @return the oldest {@link PriceRow}, or null if none found
      */
-    Price findFirstBySymbolOrderByDateTimeAsc(String symbol);
+    PriceRow findFirstBySymbolIdOrderByEpochMillisAsc(int symbolId);
 
     /**
      * Finds the newest price record for the given cryptocurrency symbol.
      *
-     * @param symbol the cryptocurrency symbol
-     * @return the newest {@link Price} record, or null if none found
+     * @param symbolId the id of the cryptocurrency symbol
+     * @return the newest {@link PriceRow}, or null if none found
+     */
+    PriceRow findFirstBySymbolIdOrderByEpochMillisDesc(int symbolId);
+
+    /**
+     * Returns the lowest price recorded for the given cryptocurrency symbol.
+     * <p>
+     * Only reads the price column, so the database can answer it from the {@code (symbolId, price)} index alone.
+     * </p>
+     *
+     * @param symbolId the id of the cryptocurrency symbol
+     * @return the lowest price, or null if none found
+     */
+    @Query("SELECT MIN(p.price) FROM Price p WHERE p.symbolId = :symbolId")
+    Double findMinPriceBySymbolId(int symbolId);
+
+    /**
+     * Returns the highest price recorded for the given cryptocurrency symbol.
+     * <p>
+     * Only reads the price column, so the database can answer it from the {@code (symbolId, price)} index alone.
+     * </p>
+     *
+     * @param symbolId the id of the cryptocurrency symbol
+     * @return the highest price, or null if none found
+     */
+    @Query("SELECT MAX(p.price) FROM Price p WHERE p.symbolId = :symbolId")
+    Double findMaxPriceBySymbolId(int symbolId);
+
+    /**
+     * Streams all price records within the specified time range (inclusive start, exclusive end).
+     * <p>
+     * The rows are read from a cursor in fetches of {@value #STREAM_FETCH_SIZE}, so a caller aggregating them
+     * one at a time needs constant memory however long the range is. Must be called within a transaction, and the
+     * stream must be closed.
+     * </p>
+     *
+     * @param start the start of the range in epoch milliseconds (inclusive)
+     * @param end   the end of the range in epoch milliseconds (exclusive)
+     * @return a stream of the {@link PriceRow} records within the specified range
      */
-    Price findFirstBySymbolOrderByDateTimeDesc(String symbol);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    Stream<PriceRow> findByEpochMillisGreaterThanEqualAndEpochMillisLessThan(long start, long end);
 
     /**
-     * Finds the price record with the lowest price for the given cryptocurrency symbol.
+     * Returns the lowest and highest price of every cryptocurrency symbol, aggregated by the database.
      *
-     * @param symbol the cryptocurrency symbol
-     * @return the {@link Price} record with the lowest price, or null if none found
+     * @return one {@link SymbolPriceRange} per symbol
      */
-    Price findFirstBySymbolOrderByPriceAsc(String symbol);
+    @Query("SELECT new com.pt.recommendation_service.repository.SymbolPriceRange(p.symbolId, MIN(p.price), "
+            + "MAX(p.price)) FROM Price p GROUP BY p.symbolId")
+    List<SymbolPriceRange> findPriceRanges();
 
     /**
-     * Finds the price record with the highest price for the given cryptocurrency symbol.
+     * Returns the lowest and highest price of every cryptocurrency symbol within the specified time range
+     * (inclusive start, exclusive end), aggregated by the database.
      *
-     * @param symbol the cryptocurrency symbol
-     * @return the {@link Price} record with the highest price, or null if none found
+     * @param start the start of the range in epoch milliseconds (inclusive)
+     * @param end   the end of the range in epoch milliseconds (exclusive)
+     * @return one {@link SymbolPriceRange} per symbol with prices in the range
      */
-    Price findFirstBySymbolOrderByPriceDesc(String symbol);
+    @Query("SELECT new com.pt.recommendation_service.repository.SymbolPriceRange(p.symbolId, MIN(p.price), "
+            + "MAX(p.price)) FROM Price p WHERE p.epochMillis >= :start AND p.epochMillis < :end GROUP BY p.symbolId")
+    List<SymbolPriceRange> findPriceRangesBetween(long start, long end);
 
     /**
-     * Finds all price records within the specified date and time range (inclusive start, exclusive end).
+     * Returns the oldest, newest, lowest and highest price of every cryptocurrency symbol in one query.
+     * <p>
+     * A single grouped pass finds the bounds of every symbol, and the oldest and newest prices are then looked up
+     * through the {@code (symbolId, epochMillis)} index. The query is native, as JPQL has no derived tables.
+     * </p>
      *
-     * @param start the start date and time (inclusive)
-     * @param end   the end date and time (exclusive)
-     * @return a list of {@link Price} records within the specified range
+     * @return one {@link SymbolPriceStats} per symbol
      */
-    List<Price> findByDateTimeGreaterThanEqualAndDateTimeLessThan(LocalDateTime start, LocalDateTime end);
-}
\ No newline at end of file
+    @Query(value = "SELECT s.symbol_id AS \"symbolId\", MIN(o.price) AS \"oldest\", MIN(n.price) AS \"newest\", "
+            + "s.min_price AS \"minPrice\", s.max_price AS \"maxPrice\" "
+            + "FROM (SELECT symbol_id, MIN(epoch_millis) AS first_time, MAX(epoch_millis) AS last_time, "
+            + "MIN(price) AS min_price, MAX(price) AS max_price FROM price_point GROUP BY symbol_id) s "
+            + "JOIN price_point o ON o.symbol_id = s.symbol_id AND o.epoch_millis = s.first_time "
+            + "JOIN price_point n ON n.symbol_id = s.symbol_id AND n.epoch_millis = s.last_time "
+            + "GROUP BY s.symbol_id, s.min_price, s.max_price",
+            nativeQuery = true)
+    List<SymbolPriceStats> findPriceStats();
+}
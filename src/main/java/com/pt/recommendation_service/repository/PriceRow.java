@@ -0,0 +1,11 @@
+package com.pt.recommendation_service.repository;
+
+/**
+ * Projection of a price record, read without creating a {@link com.pt.recommendation_service.entity.Price} entity.
+ *
+ * @param symbolId    the id of the cryptocurrency symbol
+ * @param epochMillis the time of the price, in epoch milliseconds
+ * @param price       the price value
+ */
+public record PriceRow(int symbolId, long epochMillis, double price) {
+}
@@ -0,0 +1,105 @@
+package com.pt.recommendation_service.repository;
+
+import java.util.Arrays;
+
+/**
+ * A growable batch of price records stored as parallel primitive arrays, for the batch inserts of the
+ * {@link PriceBatchRepository}.
+ * <p>
+ * A record costs 20 bytes of array space, instead of a {@link com.pt.recommendation_service.entity.Price} entity
+ * and its boxed fields per record. Not thread-safe.
+ * </p>
+ */
+public class PriceRows {
+
+    private int[] symbolIds;
+    private long[] timestamps;
+    private double[] prices;
+    private int size;
+
+    /**
+     * Constructs a new, empty {@code PriceRows}.
+     *
+     * @param capacity the number of records to allocate room for
+     */
+    public PriceRows(int capacity) {
+        symbolIds = new int[Math.max(capacity, 1)];
+        timestamps = new long[symbolIds.length];
+        prices = new double[symbolIds.length];
+    }
+
+    /**
+     * Appends a price record.
+     *
+     * @param symbolId  the id of the cryptocurrency symbol
+     * @param timestamp the epoch-millis timestamp of the price
+     * @param price     the price value
+     */
+    public void add(int symbolId, long timestamp, double price) {
+        if (size == symbolIds.length) {
+            int capacity = size * 2;
+            symbolIds = Arrays.copyOf(symbolIds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+        symbolIds[size] = symbolId;
+        timestamps[size] = timestamp;
+        prices[size] = price;
+        size++;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether there are no records.
+     *
+     * @return {@code true} if there are no records
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all records, keeping the allocated arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the symbol id of a record.
+     *
+     * @param index the index of the record
+     * @return the id of the cryptocurrency symbol
+     */
+    public int symbolId(int index) {
+        return symbolIds[index];
+    }
+
+    /**
+     * Returns the timestamp of a record.
+     *
+     * @param index the index of the record
+     * @return the epoch-millis timestamp
+     */
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Returns the price of a record.
+     *
+     * @param index the index of the record
+     * @return the price value
+     */
+    public double price(int index) {
+        return prices[index];
+    }
+}
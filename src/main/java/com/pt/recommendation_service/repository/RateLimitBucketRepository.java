@@ -0,0 +1,121 @@
+package com.pt.recommendation_service.repository;
+
+import com.pt.recommendation_service.entity.RateLimitBucket;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for the shared {@link RateLimitBucket} states.
+ * <p>
+ * Buckets are keyed by the hex SHA-256 digest of the client address, which the {@code JdbcBucketProxyManager}
+ * derives before calling this repository.
+ * </p>
+ * <p>
+ * Every statement runs in its own transaction and touches one row. An update only succeeds if the row still has
+ * the revision that was read, and an insert only if no other instance inserted the row first, so callers retry
+ * instead of holding locks across a round trip.
+ * </p>
+ */
+@Repository
+public class RateLimitBucketRepository {
+
+    private static final String SELECT_SQL = "SELECT state, revision FROM rate_limit_bucket WHERE bucket_key = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO rate_limit_bucket (bucket_key, state, revision, last_access) VALUES (?, ?, 0, ?)";
+    private static final String UPDATE_SQL = "UPDATE rate_limit_bucket SET state = ?, revision = revision + 1, "
+            + "last_access = ? WHERE bucket_key = ? AND revision = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new {@code RateLimitBucketRepository} with the given {@link JdbcTemplate}.
+     *
+     * @param jdbcTemplate the JDBC template used to execute the statements
+     */
+    public RateLimitBucketRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads the stored state of the given bucket.
+     *
+     * @param bucketKey the key of the bucket
+     * @return the state and its revision, or empty if the bucket is not stored
+     */
+    public Optional<StoredBucket> find(String bucketKey) {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new StoredBucket(rs.getBytes(1), rs.getLong(2)),
+                bucketKey).stream().findFirst();
+    }
+
+    /**
+     * Stores the state of a new bucket.
+     *
+     * @param bucketKey  the key of the bucket
+     * @param state      the serialized state
+     * @param lastAccess the current time in epoch milliseconds
+     * @return {@code true} if the bucket was stored, {@code false} if it was stored concurrently
+     */
+    public boolean insert(String bucketKey, byte[] state, long lastAccess) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, bucketKey, state, lastAccess);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the state of a bucket if it has not been replaced since it was read.
+     *
+     * @param bucketKey  the key of the bucket
+     * @param state      the serialized new state
+     * @param revision   the revision read with the state being replaced
+     * @param lastAccess the current time in epoch milliseconds
+     * @return {@code true} if the state was replaced, {@code false} if the revision is outdated or the bucket was
+     * deleted
+     */
+    public boolean update(String bucketKey, byte[] state, long revision, long lastAccess) {
+        return jdbcTemplate.update(UPDATE_SQL, state, lastAccess, bucketKey, revision) == 1;
+    }
+
+    /**
+     * Deletes the state of the given bucket.
+     *
+     * @param bucketKey the key of the bucket
+     */
+    public void delete(String bucketKey) {
+        jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE bucket_key = ?", bucketKey);
+    }
+
+    /**
+     * Deletes the states of all buckets last written before the given time.
+     *
+     * @param lastAccessBefore the cutoff in epoch milliseconds
+     * @return the number of deleted buckets
+     */
+    public int deleteIdle(long lastAccessBefore) {
+        return jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE last_access < ?", lastAccessBefore);
+    }
+
+    /**
+     * Returns the number of stored buckets.
+     *
+     * @return the row count
+     */
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_bucket", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Stored state of a bucket.
+     *
+     * @param state    the serialized state
+     * @param revision the revision of the state
+     */
+    public record StoredBucket(byte[] state, long revision) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.pt.recommendation_service.repository;
+
+/**
+ * Projection of the lowest and highest price recorded for a cryptocurrency symbol.
+ *
+ * @param symbolId the id of the cryptocurrency symbol
+ * @param minPrice the lowest price
+ * @param maxPrice the highest price
+ */
+public record SymbolPriceRange(Integer symbolId, Double minPrice, Double maxPrice) {
+}
@@ -0,0 +1,42 @@
+package com.pt.recommendation_service.repository;
+
+/**
+ * Projection of the oldest, newest, lowest and highest price recorded for a cryptocurrency symbol.
+ */
+public interface SymbolPriceStats {
+
+    /**
+     * Returns the id of the cryptocurrency symbol.
+     *
+     * @return the symbol id, as stored
+     */
+    Integer getSymbolId();
+
+    /**
+     * Returns the oldest price.
+     *
+     * @return the price with the earliest time
+     */
+    Double getOldest();
+
+    /**
+     * Returns the newest price.
+     *
+     * @return the price with the latest time
+     */
+    Double getNewest();
+
+    /**
+     * Returns the lowest price.
+     *
+     * @return the lowest price
+     */
+    Double getMinPrice();
+
+    /**
+     * Returns the highest price.
+     *
+     * @return the highest price
+     */
+    Double getMaxPrice();
+}
@@ -0,0 +1,10 @@
+package com.pt.recommendation_service.repository;
+
+import com.pt.recommendation_service.entity.Symbol;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for accessing the {@link Symbol} table.
+ */
+public interface SymbolRepository extends JpaRepository<Symbol, Integer> {
+}
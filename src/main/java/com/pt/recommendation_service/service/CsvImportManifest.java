@@ -0,0 +1,128 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.entity.CsvImport;
+import com.pt.recommendation_service.repository.CsvImportRepository;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * Manifest of the CSV files imported by the {@link CsvLoaderService}, persisted in the {@link CsvImport} table.
+ * <p>
+ * Files are expected to change only by having rows appended. A file whose size and modification time match its
+ * entry is unchanged. Otherwise, the first and last {@value #SAMPLE_SIZE} bytes of its imported part are hashed and
+ * compared, so telling an appended file from a rewritten one costs the same regardless of the file size.
+ * </p>
+ */
+@Component
+public class CsvImportManifest {
+
+    /**
+     * Offset returned by {@link #resumeOffset(Resource)} for a file that changed other than by appending.
+     */
+    public static final long CHANGED = -1;
+
+    /**
+     * Number of bytes hashed at each end of the imported part of a file.
+     */
+    static final int SAMPLE_SIZE = 64 * 1024;
+
+    private final CsvImportRepository repository;
+
+    /**
+     * Constructs a new {@code CsvImportManifest} with the given repository.
+     *
+     * @param repository the repository of the manifest entries
+     */
+    public CsvImportManifest(CsvImportRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Returns the offset the import of the given file should resume from.
+     *
+     * @param resource the CSV file
+     * @return {@code 0} for a new file, the high-water mark for an unchanged or appended file, or {@link #CHANGED}
+     * @throws IOException if the file cannot be read
+     */
+    public long resumeOffset(Resource resource) throws IOException {
+        CsvImport entry = repository.findById(resource.getFilename()).orElse(null);
+        if (entry == null) {
+            return 0;
+        }
+        long size = resource.contentLength();
+        long importedBytes = entry.getImportedBytes();
+        if (size == importedBytes && resource.lastModified() == entry.getLastModified()) {
+            return importedBytes;
+        }
+        if (size < importedBytes || !entry.getContentHash().equals(contentHash(resource, importedBytes))) {
+            return CHANGED;
+        }
+        return importedBytes;
+    }
+
+    /**
+     * Records that the given file has been imported up to {@code importedBytes}.
+     *
+     * @param resource      the CSV file
+     * @param lastModified  the modification time of the file, read before it was imported
+     * @param importedBytes the new high-water mark
+     * @param addedRows     the number of price records written by this import
+     * @throws IOException if the file cannot be read
+     */
+    public void record(Resource resource, long lastModified, long importedBytes, long addedRows) throws IOException {
+        CsvImport entry = repository.findById(resource.getFilename()).orElseGet(CsvImport::new);
+        entry.setFileName(resource.getFilename());
+        entry.setLastModified(lastModified);
+        entry.setImportedBytes(importedBytes);
+        entry.setImportedRows(entry.getImportedRows() + addedRows);
+        entry.setContentHash(contentHash(resource, importedBytes));
+        repository.save(entry);
+    }
+
+    /**
+     * Returns the total number of price records written by the recorded imports.
+     *
+     * @return the number of imported rows
+     */
+    public long importedRows() {
+        return repository.sumImportedRows();
+    }
+
+    /**
+     * Checks whether the manifest has entries for files other than the given ones, such as deleted files.
+     *
+     * @param fileNames the names of the current CSV files
+     * @return {@code true} if any entry belongs to a file not in {@code fileNames}
+     */
+    public boolean hasOtherFiles(Set<String> fileNames) {
+        return repository.findAll().stream().anyMatch(entry -> !fileNames.contains(entry.getFileName()));
+    }
+
+    /**
+     * Removes all entries, before every file is imported again.
+     */
+    public void clear() {
+        repository.deleteAllInBatch();
+    }
+
+    /**
+     * Hashes the first and last {@value #SAMPLE_SIZE} bytes of the first {@code length} bytes of the file.
+     */
+    static String contentHash(Resource resource, long length) throws IOException {
+        CRC32C head = new CRC32C();
+        CRC32C tail = new CRC32C();
+        try (InputStream in = resource.getInputStream()) {
+            int headLength = (int) Math.min(length, SAMPLE_SIZE);
+            head.update(in.readNBytes(headLength));
+            long tailStart = Math.max(headLength, length - SAMPLE_SIZE);
+            in.skipNBytes(tailStart - headLength);
+            tail.update(in.readNBytes((int) (length - tailStart)));
+        }
+        return String.format("%08x%08x", head.getValue(), tail.getValue());
+    }
+}
@@ -1,50 +1,133 @@
 package com.pt.recommendation_service.service;
 
-import com.pt.recommendation_service.entity.Price;
-import com.pt.recommendation_service.repository.PriceRepository;
-import com.pt.recommendation_service.validator.CryptoValidator;
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.parser.PriceCsvParser;
+import com.pt.recommendation_service.parser.PriceRecordSink;
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.store.PriceBuffer;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service that loads cryptocurrency price data from CSV files at application startup.
  * <p>
- * Scans the {@code resources/csv} directory for CSV files, parses each line, validates the symbol,
- * and saves valid price records to the database. Logs warnings and errors for unsupported symbols
- * and parsing failures, but continues processing remaining files and lines.
+ * Scans the {@code resources/csv} directory for CSV files and parses them in parallel, one worker per file.
+ * Each worker parses its file with a {@link PriceCsvParser}, which validates the symbols and parses the numbers
+ * without allocating per line, buffers valid price records into batches of {@code csv.loader.batch-size}
+ * rows and writes every batch with a single JDBC batch insert. Once a file is done, its written rows are published
+ * to the {@link PriceStore}. Logs warnings and errors for unsupported symbols and parsing failures, but continues
+ * processing remaining files and lines.
+ * </p>
+ * <p>
+ * Imports are incremental: the {@link CsvImportManifest} records how far every file has been imported, so a
+ * restart restores the stored prices and imports only new files and rows appended since the last start. Only the
+ * {@link PriceSource#CSV} rows are checked against the manifest and deleted when the files are imported again; rows
+ * sent to the ingestion endpoint are always kept and restored.
+ * </p>
+ * <p>
+ * When {@code csv.loader.directory} is set, the {@code *.csv} files of that filesystem directory are imported
+ * instead. Every file is memory-mapped in newline-aligned chunks of about {@code csv.loader.chunk-size} bytes, which
+ * are parsed and written in parallel on a {@link ForkJoinPool} of {@code csv.loader.threads} workers and merged per
+ * symbol, so a single large file is loaded on all workers.
+ * </p>
+ * <p>
+ * As a {@link MeterBinder}, the loader publishes the number of rows written and rejected and the throughput of the
+ * last load. The workers count into {@link LongAdder}s, which the meters read when they are scraped.
  * </p>
  */
 @Component
-public class CsvLoaderService implements ApplicationRunner {
+public class CsvLoaderService implements ApplicationRunner, MeterBinder {
 
-    private final PriceRepository repository;
+    private static final Logger logger = LoggerFactory.getLogger(CsvLoaderService.class);
+
+    /**
+     * Upper bound of the chunk size, well below the 2 GB limit of a single mapping.
+     */
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    private final PriceBatchRepository batchRepository;
+    private final PriceStore priceStore;
+    private final SymbolRegistry symbolRegistry;
     private final PathMatchingResourcePatternResolver resolver;
-    private final CryptoValidator cryptoValidator;
+    private final CsvImportManifest manifest;
+    private final int batchSize;
+    private final int threads;
+    private final String directory;
+    private final long chunkSize;
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder unsupportedSymbols = new LongAdder();
+    private final LongAdder malformedLines = new LongAdder();
+    private volatile double lastThroughput;
 
-    public CsvLoaderService(PriceRepository repository, PathMatchingResourcePatternResolver resolver, CryptoValidator cryptoValidator) {
-        this.repository = repository;
+    public CsvLoaderService(PriceBatchRepository batchRepository,
+                            PriceStore priceStore,
+                            SymbolRegistry symbolRegistry,
+                            PathMatchingResourcePatternResolver resolver,
+                            CsvImportManifest manifest,
+                            @Value("${csv.loader.batch-size:1000}") int batchSize,
+                            @Value("${csv.loader.threads:4}") int threads,
+                            @Value("${csv.loader.directory:}") String directory,
+                            @Value("${csv.loader.chunk-size:64MB}") DataSize chunkSize) {
+        this.batchRepository = batchRepository;
+        this.priceStore = priceStore;
+        this.symbolRegistry = symbolRegistry;
         this.resolver = resolver;
-        this.cryptoValidator = cryptoValidator;
+        this.manifest = manifest;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.directory = directory;
+        this.chunkSize = Math.clamp(chunkSize.toBytes(), 1, MAX_CHUNK_SIZE);
     }
 
     /**
-     * Loads and processes all CSV files from the {@code resources/csv} directory.
+     * Loads and processes all CSV files from the {@code resources/csv} directory, or from
+     * {@code csv.loader.directory} if it is set.
      * <ul>
      *     <li>Logs a warning if no CSV files are found.</li>
-     *     <li>For each file, parses each line (skipping the header), validates the symbol,
-     *         and saves valid price records to the database.</li>
-     *     <li>Logs warnings for unsupported symbols and errors for parsing failures, but continues processing.</li>
+     *     <li>Resumes from the {@link CsvImportManifest}: restores the stored prices and imports only new files and
+     *     rows appended to imported files. Re-imports every file if a file was rewritten or deleted, or if the
+     *     CSV rows of the price table no longer match the manifest.</li>
+     *     <li>Processes the files in parallel on up to {@code csv.loader.threads} workers.</li>
+     *     <li>Logs the rows/sec of every file and the total load time.</li>
      * </ul>
      *
      * @param args application arguments (not used)
@@ -52,44 +135,407 @@ public class CsvLoaderService implements ApplicationRunner {
      */
     @Override
     public void run(ApplicationArguments args) throws Exception {
-        Logger logger = LoggerFactory.getLogger(CsvLoaderService.class);
-        Resource[] resources = resolver.getResources("classpath:csv/*.csv");
+        boolean mapped = !directory.isBlank();
+        Resource[] resources = mapped
+                ? directoryResources(Path.of(directory))
+                : resolver.getResources("classpath:csv/*.csv");
 
         if (resources.length == 0) {
-            logger.warn("No CSV files found in resources/csv directory.");
+            logger.warn("No CSV files found in {} directory.", mapped ? directory : "resources/csv");
+            restoreStoredPrices();
+            return;
+        }
+
+        long start = System.nanoTime();
+        long[] offsets = prepareImport(resources);
+        long totalRows = 0;
+        if (mapped) {
+            try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+                List<ForkJoinTask<Long>> results = new ArrayList<>();
+                for (int i = 0; i < resources.length; i++) {
+                    Resource resource = resources[i];
+                    long from = offsets[i];
+                    results.add(pool.submit(() -> loadMappedFile(resource, from)));
+                }
+                for (ForkJoinTask<Long> result : results) {
+                    totalRows += result.get();
+                }
+            }
+        } else {
+            try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, resources.length))) {
+                List<Future<Long>> results = new ArrayList<>();
+                for (int i = 0; i < resources.length; i++) {
+                    Resource resource = resources[i];
+                    long from = offsets[i];
+                    results.add(executor.submit(() -> loadFile(resource, from)));
+                }
+                for (Future<Long> result : results) {
+                    totalRows += result.get();
+                }
+            }
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        lastThroughput = totalRows * 1e9 / elapsedNanos;
+        logger.info("Loaded {} price records from {} CSV files in {} ms", totalRows, resources.length, elapsedMillis);
+    }
+
+    /**
+     * Registers the loader meters: {@code csv.loader.rows}, {@code csv.loader.rejected} tagged with the reason, and
+     * {@code csv.loader.throughput}.
+     *
+     * @param registry the registry to register the meters with
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("csv.loader.rows", rowsWritten, LongAdder::sum)
+                .description("Price rows written by the CSV loader")
+                .register(registry);
+        FunctionCounter.builder("csv.loader.rejected", unsupportedSymbols, LongAdder::sum)
+                .description("CSV lines skipped by the CSV loader")
+                .tag("reason", "unsupported-symbol")
+                .register(registry);
+        FunctionCounter.builder("csv.loader.rejected", malformedLines, LongAdder::sum)
+                .description("CSV lines skipped by the CSV loader")
+                .tag("reason", "malformed-line")
+                .register(registry);
+        Gauge.builder("csv.loader.throughput", this, loader -> loader.lastThroughput)
+                .description("Rows per second of the last CSV load")
+                .register(registry);
+    }
+
+    /**
+     * Lists the {@code *.csv} files of a filesystem directory.
+     *
+     * @param dir the directory to list
+     * @return the CSV files
+     * @throws IOException if the directory cannot be listed
+     */
+    private static Resource[] directoryResources(Path dir) throws IOException {
+        List<Resource> resources = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.csv")) {
+            stream.forEach(file -> resources.add(new FileSystemResource(file)));
         }
+        return resources.toArray(Resource[]::new);
+    }
 
+    /**
+     * Decides where the import of every file starts. If the CSV rows of the price table and every file are
+     * consistent with the manifest, every file resumes from its high-water mark. Otherwise, the CSV rows and the
+     * manifest are cleared and every file is imported from the start. The remaining stored prices, including all
+     * ingested rows, are then restored to the {@link PriceStore}.
+     *
+     * @param resources the CSV files
+     * @return the offset to start importing each file from
+     * @throws IOException if a file cannot be read
+     */
+    private long[] prepareImport(Resource[] resources) throws IOException {
+        long[] offsets = new long[resources.length];
+        Set<String> fileNames = new HashSet<>();
         for (Resource resource : resources) {
-            String fileName = resource.getFilename();
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(resource.getInputStream()))) {
-                String line;
-                boolean first = true;
-                int lineNumber = 0;
-                while ((line = br.readLine()) != null) {
-                    lineNumber++;
-                    if (first) { first = false; continue; }
-                    try {
-                        String[] parts = line.split(",");
-                        if (cryptoValidator.isSymbolValid(parts[1])) {
-                            Price record = new Price();
-
-                            long millis = Long.parseLong(parts[0]);
-                            LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
-                            record.setDateTime(dateTime);
-
-                            record.setSymbol(parts[1]);
-                            record.setPrice(Double.parseDouble(parts[2]));
-                            repository.save(record);
-                        } else {
-                            logger.warn("Crypto symbol {} is not supported in line {} in file {}", parts[1], lineNumber, fileName);
-                        }
-                    } catch (Exception e) {
-                        logger.error("Failed to parse line {} in file '{}': '{}'. Error: {}", lineNumber, fileName, line, e.getMessage());
-                    }
+            fileNames.add(resource.getFilename());
+        }
+        long csvRows = batchRepository.count(PriceSource.CSV);
+        boolean reimport = csvRows != manifest.importedRows() || manifest.hasOtherFiles(fileNames);
+        for (int i = 0; i < resources.length && !reimport; i++) {
+            offsets[i] = manifest.resumeOffset(resources[i]);
+            reimport = offsets[i] == CsvImportManifest.CHANGED;
+        }
+        if (reimport) {
+            logger.info("CSV files or stored prices changed since the last import, re-importing all files");
+            batchRepository.deleteAll(PriceSource.CSV);
+            manifest.clear();
+            Arrays.fill(offsets, 0);
+        }
+        restoreStoredPrices();
+        return offsets;
+    }
+
+    /**
+     * Publishes all price records of the database to the {@link PriceStore}, if there are any.
+     */
+    private void restoreStoredPrices() {
+        long storedRows = batchRepository.count();
+        if (storedRows > 0) {
+            restoreStore();
+            logger.info("Restored {} price records from the database", storedRows);
+        }
+    }
+
+    /**
+     * Publishes all price records of the database to the {@link PriceStore}.
+     */
+    private void restoreStore() {
+        PriceBuffer[] columns = new PriceBuffer[symbolRegistry.idLimit()];
+        batchRepository.forEachPrice((symbolId, timestamp, price) -> {
+            // Rows of symbols no longer supported are skipped
+            if (symbolRegistry.get(symbolId) != null) {
+                PriceBuffer column = columns[symbolId];
+                if (column == null) {
+                    column = columns[symbolId] = new PriceBuffer();
+                }
+                column.add(timestamp, price);
+            }
+        });
+        for (int id = 0; id < columns.length; id++) {
+            if (columns[id] != null) {
+                columns[id].markWritten();
+                columns[id].publishWritten(priceStore, symbolRegistry.get(id));
+            }
+        }
+    }
+
+    /**
+     * Splits a CSV file into newline-aligned chunks, parses and writes the chunks in parallel on the current
+     * {@link ForkJoinPool}, merges their written records per symbol and publishes them to the {@link PriceStore}.
+     *
+     * @param resource the CSV file to load
+     * @param from     the offset to start importing from
+     * @return the number of price records written
+     */
+    private long loadMappedFile(Resource resource, long from) {
+        String fileName = resource.getFilename();
+        long start = System.nanoTime();
+        FileLoad load;
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            long lastModified = resource.lastModified();
+            long size = channel.size();
+            if (from > 0 && from == size) {
+                return 0;
+            }
+            long[] bounds = chunkBounds(channel, from, size);
+            load = new ChunkTask(channel, fileName, bounds, 0, bounds.length - 1).invoke();
+            if (!load.failed) {
+                manifest.record(resource, lastModified, size, load.rows);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to process file '{}'. Error: {}", fileName, e.getMessage());
+            return 0;
+        }
+        load.publish();
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        logger.info("Loaded {} rows from '{}' in {} ms ({} rows/sec)",
+                load.rows, fileName, elapsedNanos / 1_000_000, load.rows * 1_000_000_000L / elapsedNanos);
+        return load.rows;
+    }
+
+    /**
+     * Returns the start offsets of the chunks of the part {@code [from, size)} of a file followed by {@code size}.
+     * Every chunk but the last is at least {@code csv.loader.chunk-size} bytes long and ends right after a
+     * {@code '\n'}.
+     *
+     * @param channel the file
+     * @param from    the offset of the first chunk
+     * @param size    the size of the file
+     * @return the chunk bounds, ascending
+     * @throws IOException if the file cannot be read
+     */
+    private long[] chunkBounds(FileChannel channel, long from, long size) throws IOException {
+        long[] bounds = new long[(int) ((size - from) / chunkSize) + 2];
+        bounds[0] = from;
+        int count = 1;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long next = nextLineStart(channel, from + chunkSize, probe);
+        while (next < size) {
+            bounds[count++] = next;
+            next = nextLineStart(channel, next + chunkSize, probe);
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Returns the offset of the first line that starts after the given position, or the file size if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
                 }
-            } catch (Exception e) {
-                logger.error("Failed to process file '{}'. Error: {}", fileName, e.getMessage());
             }
+            position += read;
+        }
+    }
+
+    /**
+     * Memory-maps a chunk of a CSV file, parses it and writes its valid price records in batches.
+     *
+     * @param channel  the file
+     * @param fileName the name of the file, for logging
+     * @param from     the offset of the first byte of the chunk
+     * @param to       the offset after the last byte of the chunk
+     * @return the chunk's written records, not yet published
+     */
+    private FileLoad loadChunk(FileChannel channel, String fileName, long from, long to) {
+        FileLoad load = new FileLoad(fileName, from);
+        try {
+            ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            new PriceCsvParser(symbolRegistry, load).parse(chunk, from == 0);
+            load.flush();
+        } catch (Exception e) {
+            load.failed = true;
+            logger.error("Failed to process bytes {}-{} of file '{}'. Error: {}", from, to, fileName, e.getMessage());
+        }
+        return load;
+    }
+
+    /**
+     * Parses a single CSV file from the given offset (skipping the header if it starts at the beginning), writes
+     * its valid price records in batches and publishes the written records to the {@link PriceStore}.
+     *
+     * @param resource the CSV file to load
+     * @param from     the offset to start importing from
+     * @return the number of price records written
+     */
+    private long loadFile(Resource resource, long from) {
+        String fileName = resource.getFilename();
+        long start = System.nanoTime();
+        FileLoad load = new FileLoad(fileName, from);
+        try {
+            long lastModified = resource.lastModified();
+            long size = resource.contentLength();
+            if (from > 0 && from == size) {
+                return 0;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                in.skipNBytes(from);
+                new PriceCsvParser(symbolRegistry, load).parse(in, from == 0);
+                load.flush();
+            }
+            manifest.record(resource, lastModified, size, load.rows);
+        } catch (Exception e) {
+            logger.error("Failed to process file '{}'. Error: {}", fileName, e.getMessage());
+        }
+        load.publish();
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        logger.info("Loaded {} rows from '{}' in {} ms ({} rows/sec)",
+                load.rows, fileName, elapsedNanos / 1_000_000, load.rows * 1_000_000_000L / elapsedNanos);
+        return load.rows;
+    }
+
+    /**
+     * Fork/join task loading a range of chunks of a file, splitting it in halves down to single chunks and merging
+     * the written records of the halves.
+     */
+    private final class ChunkTask extends RecursiveTask<FileLoad> {
+
+        private final FileChannel channel;
+        private final String fileName;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(FileChannel channel, String fileName, long[] bounds, int from, int to) {
+            this.channel = channel;
+            this.fileName = fileName;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected FileLoad compute() {
+            if (to - from == 1) {
+                return loadChunk(channel, fileName, bounds[from], bounds[to]);
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(channel, fileName, bounds, middle, to);
+            right.fork();
+            FileLoad load = new ChunkTask(channel, fileName, bounds, from, middle).compute();
+            load.merge(right.join());
+            return load;
+        }
+    }
+
+    /**
+     * Sink collecting the parsed records of one file, or one chunk of a file, into batches and per-symbol columns.
+     */
+    private final class FileLoad implements PriceRecordSink {
+
+        private final String fileName;
+        private final long offset;
+        private final Map<CryptoSymbol, PriceBuffer> columns = new HashMap<>();
+        private final PriceRows batch = new PriceRows(batchSize);
+        private long rows;
+        private boolean failed;
+
+        /**
+         * @param fileName the name of the file, for logging
+         * @param offset   the offset of the chunk in the file, which line numbers are relative to unless it is 0
+         */
+        private FileLoad(String fileName, long offset) {
+            this.fileName = fileName;
+            this.offset = offset;
+        }
+
+        @Override
+        public void accept(CryptoSymbol crypto, long timestamp, double price) {
+            batch.add(crypto.id(), timestamp, price);
+            columns.computeIfAbsent(crypto, k -> new PriceBuffer()).add(timestamp, price);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void unsupportedSymbol(long lineNumber, String symbol) {
+            unsupportedSymbols.increment();
+            if (offset == 0) {
+                logger.warn("Crypto symbol {} is not supported in line {} in file {}", symbol, lineNumber, fileName);
+            } else {
+                logger.warn("Crypto symbol {} is not supported in line {} after byte {} in file {}",
+                        symbol, lineNumber, offset, fileName);
+            }
+        }
+
+        @Override
+        public void malformedLine(long lineNumber, String line, String error) {
+            malformedLines.increment();
+            if (offset == 0) {
+                logger.error("Failed to parse line {} in file '{}': '{}'. Error: {}", lineNumber, fileName, line, error);
+            } else {
+                logger.error("Failed to parse line {} after byte {} in file '{}': '{}'. Error: {}",
+                        lineNumber, offset, fileName, line, error);
+            }
+        }
+
+        /**
+         * Writes the buffered price records with a single batch insert and marks them as written in the columns.
+         */
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            batchRepository.insertBatch(batch);
+            columns.values().forEach(PriceBuffer::markWritten);
+            rows += batch.size();
+            rowsWritten.add(batch.size());
+            batch.clear();
+        }
+
+        /**
+         * Takes over the written records of another load of the same file.
+         *
+         * @param other the load to merge, already flushed
+         */
+        private void merge(FileLoad other) {
+            other.columns.forEach((crypto, buffer) ->
+                    columns.computeIfAbsent(crypto, k -> new PriceBuffer()).mergeWritten(buffer));
+            rows += other.rows;
+            failed |= other.failed;
+        }
+
+        /**
+         * Publishes the records marked as written to the {@link PriceStore}.
+         */
+        private void publish() {
+            columns.forEach((crypto, buffer) -> buffer.publishWritten(priceStore, crypto));
         }
     }
-}
\ No newline at end of file
+}
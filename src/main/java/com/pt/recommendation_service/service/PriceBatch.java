@@ -0,0 +1,115 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.parser.PriceRecordSink;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.store.PriceBuffer;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rows collected to be written by the {@link PriceBatchWriter} in one JDBC batch insert.
+ * <p>
+ * Collects the accepted rows both as {@link PriceRows} for the insert and as per-symbol columns for the
+ * {@link PriceStore}, and counts the rejected rows. The {@link #written()} future completes once the batch is
+ * written and published.
+ * </p>
+ */
+public class PriceBatch implements PriceRecordSink {
+
+    private final PriceSource source;
+    private final PriceRows rows = new PriceRows(64);
+    private final Map<CryptoSymbol, PriceBuffer> columns = new HashMap<>();
+    private final CompletableFuture<Void> written = new CompletableFuture<>();
+    private long rejected;
+
+    /**
+     * Constructs a new, empty {@code PriceBatch} of rows from the given source.
+     *
+     * @param source where the rows come from
+     */
+    public PriceBatch(PriceSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public void accept(CryptoSymbol crypto, long timestamp, double price) {
+        rows.add(crypto.id(), timestamp, price);
+        columns.computeIfAbsent(crypto, k -> new PriceBuffer()).add(timestamp, price);
+    }
+
+    @Override
+    public void unsupportedSymbol(long lineNumber, String symbol) {
+        rejected++;
+    }
+
+    @Override
+    public void malformedLine(long lineNumber, String line, String error) {
+        rejected++;
+    }
+
+    /**
+     * Returns the number of accepted rows.
+     *
+     * @return the number of rows to write
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Returns the number of rejected rows.
+     *
+     * @return the number of rows with an unsupported symbol or a malformed line
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the future completed once the batch is written and published, or completed exceptionally if the
+     * write failed.
+     *
+     * @return the completion of the write
+     */
+    public CompletableFuture<Void> written() {
+        return written;
+    }
+
+    PriceRows rows() {
+        return rows;
+    }
+
+    PriceSource source() {
+        return source;
+    }
+
+    /**
+     * Publishes the written rows to the store.
+     *
+     * @param priceStore the store to publish to
+     */
+    void publish(PriceStore priceStore) {
+        columns.forEach((crypto, buffer) -> {
+            buffer.markWritten();
+            buffer.publishWritten(priceStore, crypto);
+        });
+    }
+
+    /**
+     * Called by the writer after the batch is written and published, before {@link #written()} completes.
+     *
+     * @throws Exception if the follow-up work fails; the batch is then reported as failed
+     */
+    protected void afterWrite() throws Exception {
+    }
+
+    @Override
+    public String toString() {
+        return rows.size() + " rows";
+    }
+}
@@ -0,0 +1,218 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.exception.IngestionStoppedException;
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.store.PriceStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single writer of the price rows ingested while the application runs, by the {@link PriceFileWatcher} and the
+ * {@link PriceIngestionService}.
+ * <p>
+ * Producers hand over {@link PriceBatch}es through a queue of at most {@code ingest.queue-capacity} batches. A writer
+ * thread inserts every batch with a JDBC batch insert and then publishes it to the {@link PriceStore}, so only
+ * durable rows are served. Writing from one thread keeps the inserts from contending with each other, and the
+ * bounded queue is the backpressure point: producers either block on it or give up when it stays full.
+ * </p>
+ * <p>
+ * The writer thread only starts once the application is ready, after the {@link CsvLoaderService} has finished the
+ * startup load, so no batch is written while the loader may still delete and re-import the CSV rows. Once the
+ * writer is stopped, it refuses new batches and fails the batches still queued with an
+ * {@link IngestionStoppedException}, so no producer waits for them forever.
+ * </p>
+ * <p>
+ * As a {@link MeterBinder}, the writer publishes the number of batches waiting in the queue and the number of rows
+ * written and of batches failed, which the writer thread counts and the meters read when they are scraped.
+ * </p>
+ */
+@Component
+public class PriceBatchWriter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceBatchWriter.class);
+
+    /**
+     * How long {@link #put(PriceBatch)} waits for room in the queue before checking again whether the writer stopped.
+     */
+    private static final Duration STOP_CHECK_INTERVAL = Duration.ofMillis(100);
+
+    private final PriceBatchRepository batchRepository;
+    private final PriceStore priceStore;
+    private final BlockingQueue<PriceBatch> queue;
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    private volatile Thread writerThread;
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a new {@code PriceBatchWriter} with the required dependencies.
+     *
+     * @param batchRepository the repository used to write the batches
+     * @param priceStore      the store to publish the written batches to
+     * @param queueCapacity   the maximum number of batches waiting to be written
+     */
+    public PriceBatchWriter(PriceBatchRepository batchRepository,
+                            PriceStore priceStore,
+                            @Value("${ingest.queue-capacity:64}") int queueCapacity) {
+        this.batchRepository = batchRepository;
+        this.priceStore = priceStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Starts the writer thread, once the startup load has finished.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        writerThread = Thread.ofPlatform().name("price-writer").daemon().start(this::writeBatches);
+    }
+
+    /**
+     * Stops the writer thread. Batches not written yet are dropped and their futures are completed exceptionally
+     * with an {@link IngestionStoppedException}.
+     *
+     * @throws InterruptedException if interrupted while waiting for the thread to stop
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread.join();
+        }
+        failQueuedBatches();
+    }
+
+    /**
+     * Checks whether the writer thread has been started, that is whether the startup load has finished.
+     *
+     * @return {@code true} once the writer has been started, even after it was stopped
+     */
+    public boolean isStarted() {
+        return writerThread != null;
+    }
+
+    /**
+     * Queues a batch, waiting for room in the queue as long as the writer runs.
+     *
+     * @param batch the batch to write
+     * @throws InterruptedException       if interrupted while waiting
+     * @throws IngestionStoppedException if the writer is stopped
+     */
+    public void put(PriceBatch batch) throws InterruptedException {
+        while (!offer(batch, STOP_CHECK_INTERVAL)) {
+            // offer() throws once the writer is stopped
+        }
+    }
+
+    /**
+     * Queues a batch, waiting up to the given timeout for room in the queue.
+     *
+     * @param batch   the batch to write
+     * @param timeout how long to wait for room in the queue
+     * @return {@code true} if the batch was queued, {@code false} if the queue stayed full
+     * @throws InterruptedException       if interrupted while waiting
+     * @throws IngestionStoppedException if the writer is stopped
+     */
+    public boolean offer(PriceBatch batch, Duration timeout) throws InterruptedException {
+        if (stopped) {
+            throw new IngestionStoppedException();
+        }
+        boolean queued = queue.offer(batch, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (queued && stopped) {
+            // stop() may have drained the queue before the batch was added
+            failQueuedBatches();
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the number of batches that can be queued without waiting.
+     *
+     * @return the remaining capacity of the queue
+     */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * Registers the writer meters: {@code prices.writer.queue.size}, {@code prices.writer.rows} and
+     * {@code prices.writer.failures}.
+     *
+     * @param registry the registry to register the meters with
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("prices.writer.queue.size", queue, BlockingQueue::size)
+                .description("Price batches waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("prices.writer.rows", rowsWritten, LongAdder::sum)
+                .description("Price rows written and published by the batch writer")
+                .register(registry);
+        FunctionCounter.builder("prices.writer.failures", failedBatches, LongAdder::sum)
+                .description("Price batches that could not be written")
+                .register(registry);
+    }
+
+    private void writeBatches() {
+        try {
+            // The flag also ends the loop if a write swallowed the interrupt
+            while (!stopped) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fails the batches still queued once the writer is stopped.
+     */
+    private void failQueuedBatches() {
+        List<PriceBatch> dropped = new ArrayList<>();
+        queue.drainTo(dropped);
+        for (PriceBatch batch : dropped) {
+            batch.written().completeExceptionally(new IngestionStoppedException());
+        }
+        if (!dropped.isEmpty()) {
+            logger.warn("Dropped {} price batches not written before shutdown", dropped.size());
+        }
+    }
+
+    /**
+     * Inserts a batch, publishes it to the {@link PriceStore} and completes its future.
+     *
+     * @param batch the batch to write
+     */
+    private void write(PriceBatch batch) {
+        try {
+            batchRepository.insertBatch(batch.rows(), batch.source());
+            batch.publish(priceStore);
+            batch.afterWrite();
+            rowsWritten.add(batch.size());
+            batch.written().complete(null);
+        } catch (Exception e) {
+            failedBatches.increment();
+            logger.error("Failed to write {}. Error: {}", batch, e.getMessage());
+            batch.written().completeExceptionally(e);
+        }
+    }
+}
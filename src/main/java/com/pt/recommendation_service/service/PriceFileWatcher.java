@@ -0,0 +1,323 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.exception.IngestionStoppedException;
+import com.pt.recommendation_service.parser.PriceCsvParser;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Background service that keeps ingesting price data from the {@code csv.loader.directory} while the application runs.
+ * Enabled with {@code csv.watcher.enabled=true}.
+ * <p>
+ * Once the application is ready, and so after the {@link CsvLoaderService} startup load, a watcher thread registers
+ * a {@link WatchService} on the directory and tails the {@code *.csv} files: new files are read from the start and
+ * existing files from their high-water mark in the {@link CsvImportManifest}. Only complete lines are read, so a
+ * line being written is picked up once its {@code '\n'} arrives. A line longer than {@value #READ_SIZE} bytes is
+ * rejected as malformed and skipped as a whole.
+ * </p>
+ * <p>
+ * Parsed rows are handed to the {@link PriceBatchWriter}, whose bounded queue blocks the watcher when the database
+ * falls behind. The writer inserts every batch with a JDBC batch insert, publishes it to the {@link PriceStore} and
+ * records the new high-water mark, so a restart resumes after the last written batch. The store swaps in a new
+ * immutable series per symbol, so queries keep reading consistent series without any global lock, and the data
+ * version it bumps refreshes the query caches and entity tags.
+ * </p>
+ * <p>
+ * Files are expected to only grow. A file that shrinks is no longer tailed; the next startup load detects it and
+ * imports all files again.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "csv.watcher.enabled", havingValue = "true")
+public class PriceFileWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceFileWatcher.class);
+
+    /**
+     * Maximum number of bytes read and written as one batch.
+     */
+    private static final int READ_SIZE = 256 * 1024;
+
+    /**
+     * Number of leading bytes of a line too long to be read that are logged.
+     */
+    private static final int LONG_LINE_PREVIEW = 64;
+
+    private final CsvImportManifest manifest;
+    private final PriceBatchWriter batchWriter;
+    private final SymbolRegistry symbolRegistry;
+    private final Path directory;
+
+    // Only accessed by the watcher thread
+    private final Map<Path, Long> offsets = new HashMap<>();
+    private final byte[] buffer = new byte[READ_SIZE];
+
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    /**
+     * Constructs a new {@code PriceFileWatcher} with the required dependencies.
+     *
+     * @param manifest       the manifest holding the high-water mark of every file
+     * @param batchWriter    the writer of the ingested rows
+     * @param symbolRegistry the registry of supported cryptocurrency symbols
+     * @param directory      the directory to watch
+     */
+    public PriceFileWatcher(CsvImportManifest manifest,
+                            PriceBatchWriter batchWriter,
+                            SymbolRegistry symbolRegistry,
+                            @Value("${csv.loader.directory}") String directory) {
+        this.manifest = manifest;
+        this.batchWriter = batchWriter;
+        this.symbolRegistry = symbolRegistry;
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Starts watching the directory.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        watcherThread = Thread.ofPlatform().name("price-watcher").daemon().start(this::watch);
+        logger.info("Watching {} for new price data", directory);
+    }
+
+    /**
+     * Stops watching the directory. Batches the writer drops on shutdown are read again after a restart, as their
+     * high-water marks were not recorded.
+     *
+     * @throws Exception if the thread cannot be stopped
+     */
+    @PreDestroy
+    public void stop() throws Exception {
+        if (watchService == null) {
+            return;
+        }
+        watchService.close();
+        watcherThread.interrupt();
+        watcherThread.join();
+    }
+
+    /**
+     * Tails every file once, then every file reported by the {@link WatchService}, until stopped.
+     */
+    private void watch() {
+        try {
+            tailAll();
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean overflow = false;
+                Set<Path> changed = new LinkedHashSet<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        overflow = true;
+                    } else if (event.context() instanceof Path file && file.toString().endsWith(".csv")) {
+                        changed.add(directory.resolve(file));
+                    }
+                }
+                key.reset();
+                if (overflow) {
+                    tailAll();
+                } else {
+                    for (Path file : changed) {
+                        tail(file);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException | IngestionStoppedException e) {
+            logger.info("Stopped watching {}", directory);
+        } catch (IOException e) {
+            logger.error("Failed to watch directory '{}'. Error: {}", directory, e.getMessage());
+        }
+    }
+
+    private void tailAll() throws IOException, InterruptedException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.csv")) {
+            stream.forEach(files::add);
+        }
+        for (Path file : files) {
+            tail(file);
+        }
+    }
+
+    /**
+     * Reads the complete lines appended to a file since its high-water mark and queues them in batches of at most
+     * {@value #READ_SIZE} bytes. A longer line is queued as a batch of its own that only rejects it, so the
+     * high-water mark still moves past it.
+     *
+     * @param file the file to tail
+     * @throws InterruptedException if interrupted while waiting for room in the writer's queue
+     */
+    private void tail(Path file) throws InterruptedException {
+        Resource resource = new FileSystemResource(file);
+        String fileName = resource.getFilename();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Long known = offsets.get(file);
+            long offset = known != null ? known : manifest.resumeOffset(resource);
+            if (offset == CsvImportManifest.CHANGED) {
+                if (known == null) {
+                    logger.warn("File '{}' changed since it was imported, it will be imported again on restart",
+                            fileName);
+                    offsets.put(file, offset);
+                }
+                return;
+            }
+            long lastModified = resource.lastModified();
+            long size = channel.size();
+            if (size < offset) {
+                logger.warn("File '{}' was truncated, it will be imported again on restart", fileName);
+                offsets.put(file, CsvImportManifest.CHANGED);
+                return;
+            }
+            while (offset < size) {
+                int length = (int) Math.min(buffer.length, size - offset);
+                int read = channel.read(ByteBuffer.wrap(buffer, 0, length), offset);
+                if (read <= 0) {
+                    break;
+                }
+                int end = lastIndexOf(buffer, read, (byte) '\n') + 1;
+                if (end == 0) {
+                    if (read < buffer.length) {
+                        break;
+                    }
+                    String preview = new String(buffer, 0, LONG_LINE_PREVIEW, StandardCharsets.UTF_8) + "...";
+                    long lineEnd = endOfLine(channel, offset + read, size);
+                    if (lineEnd < 0) {
+                        break;
+                    }
+                    FileBatch batch = new FileBatch(resource, offset, lineEnd, lastModified);
+                    batch.malformedLine(1, preview, "Line longer than " + READ_SIZE + " bytes");
+                    offset = lineEnd;
+                    batchWriter.put(batch);
+                    continue;
+                }
+                FileBatch batch = new FileBatch(resource, offset, offset + end, lastModified);
+                new PriceCsvParser(symbolRegistry, batch).parse(ByteBuffer.wrap(buffer, 0, end), offset == 0);
+                offset += end;
+                batchWriter.put(batch);
+            }
+            offsets.put(file, offset);
+        } catch (IOException e) {
+            logger.error("Failed to tail file '{}'. Error: {}", fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the end of a line that does not fit in the buffer, reading the file from the given position on.
+     *
+     * @param channel the file
+     * @param from    the position to search from
+     * @param size    the size of the file
+     * @return the position after the {@code '\n'} ending the line, or {@code -1} if the line is not complete yet
+     * @throws IOException if the file cannot be read
+     */
+    private long endOfLine(FileChannel channel, long from, long size) throws IOException {
+        long position = from;
+        while (position < size) {
+            int length = (int) Math.min(buffer.length, size - position);
+            int read = channel.read(ByteBuffer.wrap(buffer, 0, length), position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, int length, byte value) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rows parsed from the byte range {@code [from, to)} of a file, which record the end of the range as the
+     * high-water mark of the file once written.
+     */
+    private final class FileBatch extends PriceBatch {
+
+        private final Resource resource;
+        private final long from;
+        private final long to;
+        private final long lastModified;
+
+        private FileBatch(Resource resource, long from, long to, long lastModified) {
+            super(PriceSource.CSV);
+            this.resource = resource;
+            this.from = from;
+            this.to = to;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public void unsupportedSymbol(long lineNumber, String symbol) {
+            super.unsupportedSymbol(lineNumber, symbol);
+            logger.warn("Crypto symbol {} is not supported in line {} after byte {} in file {}",
+                    symbol, lineNumber, from, resource.getFilename());
+        }
+
+        @Override
+        public void malformedLine(long lineNumber, String line, String error) {
+            super.malformedLine(lineNumber, line, error);
+            logger.error("Failed to parse line {} after byte {} in file '{}': '{}'. Error: {}",
+                    lineNumber, from, resource.getFilename(), line, error);
+        }
+
+        @Override
+        protected void afterWrite() throws IOException {
+            manifest.record(resource, lastModified, to, size());
+        }
+
+        @Override
+        public String toString() {
+            return "bytes " + from + "-" + to + " of file '" + resource.getFilename() + "'";
+        }
+    }
+}
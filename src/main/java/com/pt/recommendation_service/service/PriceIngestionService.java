@@ -0,0 +1,278 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.dto.IngestionResultDto;
+import com.pt.recommendation_service.dto.PriceTickDto;
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.exception.IngestionNotReadyException;
+import com.pt.recommendation_service.exception.IngestionQueueFullException;
+import com.pt.recommendation_service.exception.IngestionStoppedException;
+import com.pt.recommendation_service.exception.IngestionTimeoutException;
+import com.pt.recommendation_service.parser.PriceCsvParser;
+import com.pt.recommendation_service.parser.PriceRecordSink;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service for bulk ingestion of price rows sent over HTTP, as CSV or as NDJSON.
+ * <p>
+ * The request body is parsed as it streams in and never buffered whole: accepted rows are collected in batches of
+ * {@code ingest.batch-size} rows, which are handed to the {@link PriceBatchWriter} as soon as they are full, so the
+ * database write of a batch overlaps with the parsing of the next one. Rows with an unsupported symbol or a
+ * malformed line are counted and skipped. A request returns once all of its batches are written and published.
+ * </p>
+ * <p>
+ * The writer's bounded queue applies backpressure: a request finding the queue full, or waiting longer than
+ * {@code ingest.queue-timeout} for room in it, fails with an {@link IngestionQueueFullException}. Batches queued
+ * before that are still written. A request whose rows are not written within {@code ingest.write-timeout} fails
+ * with an {@link IngestionTimeoutException}, and one interrupted by the shutdown of the writer with an
+ * {@link IngestionStoppedException}. Requests arriving before the startup load has finished fail with an
+ * {@link IngestionNotReadyException}. The rows are stored as {@link PriceSource#INGEST}, so re-importing the CSV
+ * files never deletes them.
+ * </p>
+ * <p>
+ * As a {@link MeterBinder}, the service publishes the number of accepted and rejected rows and of requests failed
+ * because the queue was full. They are counted in {@link LongAdder}s, which the meters read when they are scraped.
+ * </p>
+ */
+@Service
+public class PriceIngestionService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceIngestionService.class);
+
+    private final PriceBatchWriter batchWriter;
+    private final SymbolRegistry symbolRegistry;
+    private final JsonMapper jsonMapper;
+    private final int batchSize;
+    private final Duration queueTimeout;
+    private final Duration writeTimeout;
+    private final LongAdder acceptedRows = new LongAdder();
+    private final LongAdder rejectedRows = new LongAdder();
+    private final LongAdder queueFullRequests = new LongAdder();
+
+    /**
+     * Constructs a new {@code PriceIngestionService} with the required dependencies.
+     *
+     * @param batchWriter    the writer of the ingested rows
+     * @param symbolRegistry the registry of supported cryptocurrency symbols
+     * @param jsonMapper     the mapper used to read NDJSON lines
+     * @param batchSize      the number of rows written in one batch
+     * @param queueTimeout   how long to wait for room in the writer's queue
+     * @param writeTimeout   how long to wait for the rows of a request to be written
+     */
+    public PriceIngestionService(PriceBatchWriter batchWriter,
+                                 SymbolRegistry symbolRegistry,
+                                 JsonMapper jsonMapper,
+                                 @Value("${ingest.batch-size:5000}") int batchSize,
+                                 @Value("${ingest.queue-timeout:PT1S}") Duration queueTimeout,
+                                 @Value("${ingest.write-timeout:PT30S}") Duration writeTimeout) {
+        this.batchWriter = batchWriter;
+        this.symbolRegistry = symbolRegistry;
+        this.jsonMapper = jsonMapper;
+        this.batchSize = batchSize;
+        this.queueTimeout = queueTimeout;
+        this.writeTimeout = writeTimeout;
+    }
+
+    /**
+     * Ingests CSV rows in the {@code timestamp,symbol,price} format. The header line is optional: a first line that
+     * does not start with a number is skipped.
+     *
+     * @param in the request body
+     * @return the number of accepted and rejected rows
+     * @throws IOException                 if the body cannot be read
+     * @throws IngestionQueueFullException if the writer's queue is full
+     * @throws IngestionNotReadyException  if the startup load has not finished
+     * @throws IngestionTimeoutException   if the rows are not written within the write timeout
+     * @throws IngestionStoppedException   if the writer is stopped before the rows are written
+     */
+    public IngestionResultDto ingestCsv(InputStream in) throws IOException {
+        Ingestion ingestion = new Ingestion();
+        PushbackInputStream body = new PushbackInputStream(in, 1);
+        int first = body.read();
+        if (first < 0) {
+            return ingestion.finish();
+        }
+        body.unread(first);
+        boolean header = first != '-' && first != '+' && (first < '0' || first > '9');
+        new PriceCsvParser(symbolRegistry, ingestion).parse(body, header);
+        return ingestion.finish();
+    }
+
+    /**
+     * Ingests NDJSON rows, one {@link PriceTickDto} object per line. Blank lines are skipped.
+     *
+     * @param in the request body
+     * @return the number of accepted and rejected rows
+     * @throws IOException                 if the body cannot be read
+     * @throws IngestionQueueFullException if the writer's queue is full
+     * @throws IngestionNotReadyException  if the startup load has not finished
+     * @throws IngestionTimeoutException   if the rows are not written within the write timeout
+     * @throws IngestionStoppedException   if the writer is stopped before the rows are written
+     */
+    public IngestionResultDto ingestNdjson(InputStream in) throws IOException {
+        Ingestion ingestion = new Ingestion();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            PriceTickDto tick;
+            try {
+                tick = jsonMapper.readValue(line, PriceTickDto.class);
+            } catch (JacksonException e) {
+                ingestion.malformedLine(lineNumber, line, e.getOriginalMessage());
+                continue;
+            }
+            if (tick == null || tick.getTimestamp() == null || tick.getSymbol() == null || tick.getPrice() == null) {
+                ingestion.malformedLine(lineNumber, line, "Expected fields: timestamp, symbol, price");
+                continue;
+            }
+            CryptoSymbol crypto = symbolRegistry.find(tick.getSymbol());
+            if (crypto == null) {
+                ingestion.unsupportedSymbol(lineNumber, tick.getSymbol());
+                continue;
+            }
+            ingestion.accept(crypto, tick.getTimestamp(), tick.getPrice());
+        }
+        return ingestion.finish();
+    }
+
+    /**
+     * Registers the ingestion meters: {@code prices.ingest.rows} tagged with the result ({@code accepted} or
+     * {@code rejected}) and {@code prices.ingest.queue.full}.
+     *
+     * @param registry the registry to register the meters with
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("prices.ingest.rows", acceptedRows, LongAdder::sum)
+                .description("Price rows received by the ingestion endpoint")
+                .tag("result", "accepted")
+                .register(registry);
+        FunctionCounter.builder("prices.ingest.rows", rejectedRows, LongAdder::sum)
+                .description("Price rows received by the ingestion endpoint")
+                .tag("result", "rejected")
+                .register(registry);
+        FunctionCounter.builder("prices.ingest.queue.full", queueFullRequests, LongAdder::sum)
+                .description("Ingestion requests failed because the writer's queue was full")
+                .register(registry);
+    }
+
+    /**
+     * Rows of one request, collected into batches that are queued as soon as they are full.
+     */
+    private final class Ingestion implements PriceRecordSink {
+
+        private final List<CompletableFuture<Void>> pending = new ArrayList<>();
+        private PriceBatch batch = new PriceBatch(PriceSource.INGEST);
+        private long accepted;
+        private long rejected;
+
+        private Ingestion() {
+            if (!batchWriter.isStarted()) {
+                throw new IngestionNotReadyException();
+            }
+            if (batchWriter.remainingCapacity() == 0) {
+                queueFullRequests.increment();
+                throw new IngestionQueueFullException(0);
+            }
+        }
+
+        @Override
+        public void accept(CryptoSymbol crypto, long timestamp, double price) {
+            batch.accept(crypto, timestamp, price);
+            if (batch.size() >= batchSize) {
+                submit();
+            }
+        }
+
+        @Override
+        public void unsupportedSymbol(long lineNumber, String symbol) {
+            rejected++;
+            rejectedRows.increment();
+            logger.debug("Crypto symbol {} is not supported in line {} of ingestion request", symbol, lineNumber);
+        }
+
+        @Override
+        public void malformedLine(long lineNumber, String line, String error) {
+            rejected++;
+            rejectedRows.increment();
+            logger.debug("Failed to parse line {} of ingestion request: '{}'. Error: {}", lineNumber, line, error);
+        }
+
+        /**
+         * Queues the current batch, if it holds any rows, and starts a new one.
+         */
+        private void submit() {
+            if (batch.size() == 0) {
+                return;
+            }
+            boolean queued;
+            try {
+                queued = batchWriter.offer(batch, queueTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing a batch", e);
+            }
+            if (!queued) {
+                queueFullRequests.increment();
+                throw new IngestionQueueFullException(accepted);
+            }
+            accepted += batch.size();
+            acceptedRows.add(batch.size());
+            pending.add(batch.written());
+            batch = new PriceBatch(PriceSource.INGEST);
+        }
+
+        /**
+         * Queues the last batch and waits, up to the write timeout, until all batches of the request are written.
+         *
+         * @return the number of accepted and rejected rows
+         */
+        private IngestionResultDto finish() {
+            submit();
+            try {
+                CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                        .get(writeTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the batches to be written", e);
+            } catch (TimeoutException e) {
+                throw new IngestionTimeoutException(accepted);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Failed to write a batch", e.getCause());
+            }
+            return new IngestionResultDto(accepted, rejected);
+        }
+    }
+}
@@ -1,41 +1,157 @@
 package com.pt.recommendation_service.service;
 
+import com.pt.recommendation_service.cache.PriceQueryCache;
 import com.pt.recommendation_service.dto.CryptoNormalizedRangeDto;
 import com.pt.recommendation_service.dto.CryptoStatsDto;
-import com.pt.recommendation_service.entity.Price;
-import com.pt.recommendation_service.enums.SupportedCryptos;
+import com.pt.recommendation_service.dto.PriceCandleDto;
+import com.pt.recommendation_service.enums.PriceReadSource;
+import com.pt.recommendation_service.exception.InvalidCandleIntervalException;
 import com.pt.recommendation_service.exception.InvalidDateFormatException;
+import com.pt.recommendation_service.exception.InvalidMaxPointsException;
+import com.pt.recommendation_service.exception.InvalidPageException;
+import com.pt.recommendation_service.exception.InvalidTimeWindowException;
 import com.pt.recommendation_service.exception.NoPriceFoundForDateException;
+import com.pt.recommendation_service.exception.NoPriceFoundForSymbolException;
+import com.pt.recommendation_service.exception.UnsupportedCryptoException;
 import com.pt.recommendation_service.repository.PriceRepository;
+import com.pt.recommendation_service.repository.PriceRow;
+import com.pt.recommendation_service.repository.SymbolPriceRange;
+import com.pt.recommendation_service.repository.SymbolPriceStats;
+import com.pt.recommendation_service.store.CandleRollup;
+import com.pt.recommendation_service.store.NormalizedRangeRanking;
+import com.pt.recommendation_service.store.PriceAggregate;
+import com.pt.recommendation_service.store.PriceSeries;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.store.RankedRange;
+import com.pt.recommendation_service.store.SampledPrices;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
 import com.pt.recommendation_service.validator.CryptoValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Service class for cryptocurrency price operations and statistics.
  * <p>
- * Provides methods to calculate normalized ranges, retrieve statistics for a symbol,
- * and find the cryptocurrency with the highest normalized range for a specific date.
+ * Provides methods to calculate normalized ranges over all history or an arbitrary time window, retrieve statistics
+ * for a symbol, and find the cryptocurrency with the highest normalized range for a specific date.
+ * By default all queries are answered from the aggregates precomputed by the in-memory {@link PriceStore},
+ * so none of them scans the price history. The normalized-range rankings can be paged with an offset and a limit, and
+ * OHLC candles are merged from the rollups of the store. Price histories are downsampled to a bounded number of points
+ * on the arrays of the store. With {@code prices.read-source=database} they are answered by
+ * aggregate queries in the database instead, which only return one row per symbol.
+ * </p>
+ * <p>
+ * Results are kept in the {@link PriceQueryCache} until the price data changes, so repeated queries skip
+ * both the store and the database. Invalid input is rejected before the cache is consulted.
+ * </p>
+ * <p>
+ * Every public query is timed by a {@value #TIMER} timer tagged with the query method, including cache hits and
+ * rejected input. The timers publish percentile histograms, so latency percentiles can be aggregated across
+ * instances. They are registered once, so timing a call costs two clock reads and a histogram update.
+ * </p>
+ * <p>
+ * When requests run on virtual threads ({@code spring.threads.virtual.enabled=true}), the four independent queries
+ * behind the statistics of a symbol are read from the database concurrently, each on its own virtual thread, so the
+ * request waits for the slowest query instead of their sum.
  * </p>
  */
 @Service
 public class PriceService {
 
+    /**
+     * Largest number of candles a single request may span.
+     */
+    static final int MAX_CANDLES = 10_000;
+
+    /**
+     * Largest number of price points a single request may return.
+     */
+    static final int MAX_POINTS = 10_000;
+
+    /**
+     * Name of the timers of the public queries.
+     */
+    static final String TIMER = "price.service";
+
+    private static final Pattern INTERVAL = Pattern.compile("([0-9]{1,6})([mhdw])");
+
+    private final PriceStore priceStore;
     private final PriceRepository priceRepository;
     private final CryptoValidator cryptoValidator;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceReadSource readSource;
+    private final PriceQueryCache priceQueryCache;
+    private final boolean concurrentQueries;
+    private final Timer normalizedRangesTimer;
+    private final Timer windowNormalizedRangesTimer;
+    private final Timer statsTimer;
+    private final Timer batchStatsTimer;
+    private final Timer candlesTimer;
+    private final Timer pricesTimer;
+    private final Timer highestTimer;
 
     /**
      * Constructs a new {@code PriceService} with the required dependencies.
      *
+     * @param priceStore      the in-memory store of the price data
      * @param priceRepository the repository for accessing price data
      * @param cryptoValidator the validator for supported cryptocurrency symbols
+     * @param symbolRegistry  the registry of supported cryptocurrency symbols
+     * @param readSource      where to read the price data from
+     * @param priceQueryCache the cache of query results
+     * @param virtualThreads  whether requests run on virtual threads, so database queries may run concurrently
+     * @param meterRegistry   the registry of the query timers
      */
-    public PriceService(PriceRepository priceRepository, CryptoValidator cryptoValidator) {
+    public PriceService(PriceStore priceStore,
+                        PriceRepository priceRepository,
+                        CryptoValidator cryptoValidator,
+                        SymbolRegistry symbolRegistry,
+                        @Value("${prices.read-source:memory}") PriceReadSource readSource,
+                        PriceQueryCache priceQueryCache,
+                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                        MeterRegistry meterRegistry) {
+        this.priceStore = priceStore;
         this.priceRepository = priceRepository;
         this.cryptoValidator = cryptoValidator;
+        this.symbolRegistry = symbolRegistry;
+        this.readSource = readSource;
+        this.priceQueryCache = priceQueryCache;
+        this.concurrentQueries = virtualThreads;
+        this.normalizedRangesTimer = timer(meterRegistry, "getNormalizedRangesDesc");
+        this.windowNormalizedRangesTimer = timer(meterRegistry, "getNormalizedRangesDescInWindow");
+        this.statsTimer = timer(meterRegistry, "getStatsForSymbol");
+        this.batchStatsTimer = timer(meterRegistry, "getStatsForSymbols");
+        this.candlesTimer = timer(meterRegistry, "getCandles");
+        this.pricesTimer = timer(meterRegistry, "getPrices");
+        this.highestTimer = timer(meterRegistry, "getHighestNormalizedRangeForDate");
+    }
+
+    /**
+     * Helper method to register the timer of a public query.
+     *
+     * @param meterRegistry the registry to register the timer with
+     * @param method        the name of the query method, used as the {@code method} tag
+     * @return the timer
+     */
+    private static Timer timer(MeterRegistry meterRegistry, String method) {
+        return Timer.builder(TIMER)
+                .description("Time taken by the price queries, including cache hits")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /**
@@ -44,33 +160,395 @@ public class PriceService {
      * @return list of {@link CryptoNormalizedRangeDto} objects
      */
     public List<CryptoNormalizedRangeDto> getNormalizedRangesDesc() {
-        List<Price> allPrices = priceRepository.findAll();
+        return getNormalizedRangesDesc(0, Integer.MAX_VALUE);
+    }
 
-        Map<String, List<Price>> grouped = allPrices.stream()
-                .collect(Collectors.groupingBy(Price::getSymbol));
+    /**
+     * Returns one page of the descending sorted list of all cryptocurrencies by normalized range ((max-min)/min).
+     * <p>
+     * From memory, the page is read from the {@link NormalizedRangeRanking} that the store keeps current as prices
+     * arrive, so no request sorts the symbols and deep pages cost no more than the first one. From the database, the
+     * page is selected from the aggregated rows with a bounded heap, so only {@code offset + limit} rows are kept
+     * and sorted.
+     * </p>
+     *
+     * @param offset the number of cryptocurrencies to skip from the top of the ranking
+     * @param limit  the maximum number of cryptocurrencies to return
+     * @return list of at most {@code limit} {@link CryptoNormalizedRangeDto} objects
+     * @throws InvalidPageException if the offset is negative or the limit is not positive
+     */
+    public List<CryptoNormalizedRangeDto> getNormalizedRangesDesc(int offset, int limit) {
+        return normalizedRangesTimer.record(() -> {
+            validatePage(offset, limit);
+            return priceQueryCache.get("normalized-range:" + offset + "+" + limit,
+                    () -> computeNormalizedRangesDesc(offset, limit));
+        });
+    }
+
+    /**
+     * Returns one page of the descending sorted list of all cryptocurrencies by normalized range ((max-min)/min).
+     *
+     * @param offset the number of cryptocurrencies to skip
+     * @param limit  the maximum number of cryptocurrencies to return
+     * @return list of {@link CryptoNormalizedRangeDto} objects
+     */
+    private List<CryptoNormalizedRangeDto> computeNormalizedRangesDesc(int offset, int limit) {
+        if (readSource == PriceReadSource.DATABASE) {
+            TopRankedRanges top = new TopRankedRanges(offset, limit);
+            for (SymbolPriceRange range : priceRepository.findPriceRanges()) {
+                top.add(rank(range));
+            }
+            return toDtos(top.page());
+        }
+
+        return toDtos(priceStore.ranking().page(offset, limit));
+    }
+
+    /**
+     * Returns a descending sorted list of all cryptocurrencies by normalized range ((max-min)/min) within the given
+     * time window (inclusive start, exclusive end).
+     *
+     * @param fromStr the start of the window (inclusive)
+     * @param toStr   the end of the window (exclusive)
+     * @return list of {@link CryptoNormalizedRangeDto} objects for the symbols with prices in the window
+     * @throws InvalidDateFormatException if a bound cannot be parsed
+     * @throws InvalidTimeWindowException if a bound is missing or the start is not before the end
+     */
+    public List<CryptoNormalizedRangeDto> getNormalizedRangesDesc(String fromStr, String toStr) {
+        return getNormalizedRangesDesc(fromStr, toStr, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns one page of the descending sorted list of all cryptocurrencies by normalized range ((max-min)/min)
+     * within the given time window (inclusive start, exclusive end).
+     * <p>
+     * Both bounds are UTC and accept either a date (yyyy-MM-dd, meaning the start of that day) or a date and time
+     * (yyyy-MM-ddTHH:mm:ss). From memory, the lowest and highest price of every symbol are looked up in its range
+     * index, so the cost does not depend on the length of the window. The page is selected with a bounded heap, so
+     * only {@code offset + limit} symbols are kept and sorted.
+     * </p>
+     *
+     * @param fromStr the start of the window (inclusive)
+     * @param toStr   the end of the window (exclusive)
+     * @param offset  the number of cryptocurrencies to skip from the top of the ranking
+     * @param limit   the maximum number of cryptocurrencies to return
+     * @return list of at most {@code limit} {@link CryptoNormalizedRangeDto} objects for the symbols with prices in
+     * the window
+     * @throws InvalidDateFormatException if a bound cannot be parsed
+     * @throws InvalidTimeWindowException if a bound is missing or the start is not before the end
+     * @throws InvalidPageException       if the offset is negative or the limit is not positive
+     */
+    public List<CryptoNormalizedRangeDto> getNormalizedRangesDesc(String fromStr, String toStr, int offset, int limit) {
+        return windowNormalizedRangesTimer.record(() -> {
+            TimeWindow window = parseWindow(fromStr, toStr);
+            validatePage(offset, limit);
 
-        List<CryptoNormalizedRangeDto> normalizedRangeDtos = getCryptoNormalizedRangeDtos(grouped);
+            return priceQueryCache.get("normalized-range:" + window + ":" + offset + "+" + limit,
+                    () -> computeNormalizedRangesDesc(window.from(), window.to(), offset, limit));
+        });
+    }
 
-        normalizedRangeDtos.sort(Comparator.comparing(CryptoNormalizedRangeDto::getNormalizedRange).reversed());
+    /**
+     * Returns one page of the descending sorted list of all cryptocurrencies by normalized range ((max-min)/min)
+     * within the given time window (inclusive start, exclusive end).
+     *
+     * @param from   the start of the window (inclusive)
+     * @param to     the end of the window (exclusive)
+     * @param offset the number of cryptocurrencies to skip
+     * @param limit  the maximum number of cryptocurrencies to return
+     * @return list of {@link CryptoNormalizedRangeDto} objects for the symbols with prices in the window
+     */
+    private List<CryptoNormalizedRangeDto> computeNormalizedRangesDesc(LocalDateTime from, LocalDateTime to,
+                                                                       int offset, int limit) {
+        TopRankedRanges top = new TopRankedRanges(offset, limit);
+        long fromMillis = from.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long toMillis = to.toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (readSource == PriceReadSource.DATABASE) {
+            for (SymbolPriceRange range : priceRepository.findPriceRangesBetween(fromMillis, toMillis)) {
+                top.add(rank(range));
+            }
+        } else {
+            for (CryptoSymbol crypto : symbolRegistry.symbols()) {
+                PriceSeries series = priceStore.getSeries(crypto);
+                int start = series.lowerBound(fromMillis);
+                int end = series.lowerBound(toMillis);
+                if (start < end) {
+                    top.add(RankedRange.of(crypto, series.min(start, end), series.max(start, end)));
+                }
+            }
+        }
 
-        return normalizedRangeDtos;
+        return toDtos(top.page());
     }
 
     /**
      * Returns statistics (oldest, newest, minimum, and maximum price) for the specified cryptocurrency symbol.
-     * Throws an exception if the symbol is not supported.
+     * Throws an exception if the symbol is not supported or has no price data.
      *
      * @param symbol the cryptocurrency symbol
      * @return {@link CryptoStatsDto} containing the statistics
+     * @throws NoPriceFoundForSymbolException if no price data is found for the symbol
      */
     public CryptoStatsDto getStatsForSymbol(String symbol) {
-        SupportedCryptos crypto = cryptoValidator.validateSymbol(symbol);
-        Double oldest = priceRepository.findFirstBySymbolOrderByDateTimeAsc(symbol).getPrice();
-        Double newest = priceRepository.findFirstBySymbolOrderByDateTimeDesc(symbol).getPrice();
-        Double min = priceRepository.findFirstBySymbolOrderByPriceAsc(symbol).getPrice();
-        Double max = priceRepository.findFirstBySymbolOrderByPriceDesc(symbol).getPrice();
+        return statsTimer.record(() -> {
+            CryptoSymbol crypto = cryptoValidator.validateSymbol(symbol);
+            return priceQueryCache.get("stats:" + crypto.name(), () -> computeStats(crypto, symbol));
+        });
+    }
+
+    /**
+     * Returns statistics (oldest, newest, minimum, and maximum price) for several cryptocurrency symbols at once,
+     * in the order of the {@link SymbolRegistry}. Symbols without price data are left out.
+     * <p>
+     * From memory, every symbol's precomputed aggregate is read. From the database, the statistics of all symbols
+     * are read with one grouped query, instead of four queries per symbol.
+     * </p>
+     *
+     * @param symbols the cryptocurrency symbols, or {@code null} or empty for all supported symbols
+     * @return list of {@link CryptoStatsDto} objects, one per requested symbol with price data
+     * @throws UnsupportedCryptoException if a symbol is not supported
+     */
+    public List<CryptoStatsDto> getStatsForSymbols(List<String> symbols) {
+        return batchStatsTimer.record(() -> {
+            BitSet ids = resolveSymbolIds(symbols);
+            return priceQueryCache.get("stats-batch:" + ids, () -> computeStats(ids));
+        });
+    }
+
+    /**
+     * Returns the canonical names of the cryptocurrencies requested from {@link #getStatsForSymbols(List)}, in the
+     * order of the {@link SymbolRegistry} and without duplicates, so that equivalent requests can share a cache key.
+     *
+     * @param symbols the cryptocurrency symbols, or {@code null} or empty for all supported symbols
+     * @return the names of the requested cryptocurrencies
+     * @throws UnsupportedCryptoException if a symbol is not supported
+     */
+    public List<String> canonicalSymbols(List<String> symbols) {
+        BitSet ids = resolveSymbolIds(symbols);
+        List<String> names = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            names.add(symbolRegistry.get(id).name());
+        }
+        return names;
+    }
+
+    /**
+     * Helper method to validate the requested symbols and collect their ids. Blank symbols are ignored; if none is
+     * left, the ids of all supported symbols are returned.
+     *
+     * @param symbols the cryptocurrency symbols, or {@code null} or empty for all supported symbols
+     * @return the ids of the requested cryptocurrencies
+     * @throws UnsupportedCryptoException if a symbol is not supported
+     */
+    private BitSet resolveSymbolIds(List<String> symbols) {
+        BitSet ids = new BitSet(symbolRegistry.idLimit());
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                if (!symbol.isBlank()) {
+                    ids.set(cryptoValidator.validateSymbol(symbol.trim()).id());
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            for (CryptoSymbol crypto : symbolRegistry.symbols()) {
+                ids.set(crypto.id());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns statistics (oldest, newest, minimum, and maximum price) for the given cryptocurrencies.
+     *
+     * @param ids the ids of the cryptocurrencies
+     * @return list of {@link CryptoStatsDto} objects, one per cryptocurrency with price data
+     */
+    private List<CryptoStatsDto> computeStats(BitSet ids) {
+        List<CryptoStatsDto> stats = new ArrayList<>();
+        if (readSource == PriceReadSource.DATABASE) {
+            CryptoStatsDto[] byId = new CryptoStatsDto[symbolRegistry.idLimit()];
+            for (SymbolPriceStats row : priceRepository.findPriceStats()) {
+                CryptoSymbol crypto = symbolRegistry.get(row.getSymbolId());
+                if (crypto != null && ids.get(crypto.id())) {
+                    byId[crypto.id()] = new CryptoStatsDto(crypto.name(), row.getOldest(), row.getNewest(),
+                            row.getMinPrice(), row.getMaxPrice());
+                }
+            }
+            for (CryptoStatsDto dto : byId) {
+                if (dto != null) {
+                    stats.add(dto);
+                }
+            }
+        } else {
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                CryptoSymbol crypto = symbolRegistry.get(id);
+                PriceAggregate aggregate = priceStore.getSeries(crypto).aggregate();
+                if (aggregate != null) {
+                    stats.add(new CryptoStatsDto(crypto.name(), aggregate.first(), aggregate.last(), aggregate.min(),
+                            aggregate.max()));
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(stats);
+    }
+
+    /**
+     * Returns statistics (oldest, newest, minimum, and maximum price) for the specified cryptocurrency.
+     *
+     * @param crypto the cryptocurrency
+     * @param symbol the requested symbol, for the error message
+     * @return {@link CryptoStatsDto} containing the statistics
+     * @throws NoPriceFoundForSymbolException if no price data is found for the symbol
+     */
+    private CryptoStatsDto computeStats(CryptoSymbol crypto, String symbol) {
+        if (readSource == PriceReadSource.DATABASE) {
+            return getStatsFromDatabase(crypto);
+        }
+        PriceAggregate aggregate = priceStore.getSeries(crypto).aggregate();
+        if (aggregate == null) {
+            throw new NoPriceFoundForSymbolException(symbol);
+        }
+
+        return new CryptoStatsDto(crypto.name(), aggregate.first(), aggregate.last(), aggregate.min(), aggregate.max());
+    }
+
+    /**
+     * Returns the OHLC candles of the specified cryptocurrency at the given interval, over all history or, if
+     * {@code from} and {@code to} are given, for the buckets starting within that time window.
+     * <p>
+     * The interval is a whole number of minutes, hours, days or weeks, such as {@code 15m}, {@code 1h}, {@code 4h},
+     * {@code 1d} or {@code 1w}. Buckets are aligned to the epoch in UTC, and buckets without prices are left out.
+     * The candles are merged from the coarsest rollup maintained by the store whose buckets nest in the interval, so
+     * a year of daily candles reads 365 day candles instead of every price point. Candles are always read from the
+     * store, whatever the read source.
+     * </p>
+     *
+     * @param symbol   the cryptocurrency symbol
+     * @param interval the length of a candle
+     * @param fromStr  the start of the window (inclusive), or {@code null} for all history
+     * @param toStr    the end of the window (exclusive), or {@code null} for all history
+     * @return list of {@link PriceCandleDto} objects, ordered by time
+     * @throws UnsupportedCryptoException     if the symbol is not supported
+     * @throws InvalidCandleIntervalException if the interval cannot be parsed
+     * @throws InvalidDateFormatException     if a bound cannot be parsed
+     * @throws InvalidTimeWindowException     if only one bound is given, the start is not before the end, or the
+     *                                        window spans more than {@value #MAX_CANDLES} candles
+     */
+    public List<PriceCandleDto> getCandles(String symbol, String interval, String fromStr, String toStr) {
+        return candlesTimer.record(() -> {
+            CryptoSymbol crypto = cryptoValidator.validateSymbol(symbol);
+            long intervalMillis = parseInterval(interval);
+            TimeWindow window = fromStr == null && toStr == null ? null : parseWindow(fromStr, toStr);
+
+            return priceQueryCache.get("candles:" + crypto.name() + ":" + intervalMillis + ":" + window,
+                    () -> computeCandles(crypto, intervalMillis, window));
+        });
+    }
+
+    /**
+     * Returns the OHLC candles of the specified cryptocurrency, merged from the coarsest suitable rollup.
+     *
+     * @param crypto   the cryptocurrency
+     * @param interval the length of a candle in milliseconds, a whole number of minutes
+     * @param window   the time window, or {@code null} for all history
+     * @return list of {@link PriceCandleDto} objects, ordered by time
+     * @throws InvalidTimeWindowException if the candles span more than {@value #MAX_CANDLES} buckets
+     */
+    private List<PriceCandleDto> computeCandles(CryptoSymbol crypto, long interval, TimeWindow window) {
+        CandleRollup rollup = priceStore.getSeries(crypto).rollup(interval);
+        int start = 0;
+        int end = rollup.size();
+        if (window != null) {
+            // A bucket belongs to the window if it starts within it
+            start = rollup.lowerBound(Math.ceilDiv(window.fromMillis(), interval) * interval);
+            end = rollup.lowerBound(Math.ceilDiv(window.toMillis(), interval) * interval);
+        }
+        if (start >= end) {
+            return List.of();
+        }
+        long first = CandleRollup.bucketStart(rollup.start(start), interval);
+        long last = CandleRollup.bucketStart(rollup.start(end - 1), interval);
+        if ((last - first) / interval >= MAX_CANDLES) {
+            throw new InvalidTimeWindowException("The time window spans more than " + MAX_CANDLES
+                    + " candles, use a longer interval or a shorter window");
+        }
 
-        return new CryptoStatsDto(crypto, oldest, newest, min, max);
+        List<PriceCandleDto> candles = new ArrayList<>();
+        long bucket = first;
+        double open = rollup.open(start);
+        double high = rollup.high(start);
+        double low = rollup.low(start);
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            long candleStart = CandleRollup.bucketStart(rollup.start(i), interval);
+            if (candleStart != bucket) {
+                candles.add(new PriceCandleDto(bucket, open, high, low, rollup.close(i - 1), count));
+                bucket = candleStart;
+                open = rollup.open(i);
+                high = rollup.high(i);
+                low = rollup.low(i);
+                count = 0;
+            }
+            high = Math.max(high, rollup.high(i));
+            low = Math.min(low, rollup.low(i));
+            count += rollup.count(i);
+        }
+        candles.add(new PriceCandleDto(bucket, open, high, low, rollup.close(end - 1), count));
+
+        return Collections.unmodifiableList(candles);
+    }
+
+    /**
+     * Returns the price history of the specified cryptocurrency, over all history or, if {@code from} and {@code to}
+     * are given, within that time window, downsampled to at most {@code maxPoints} points.
+     * <p>
+     * Windows with more points are downsampled with Largest-Triangle-Three-Buckets directly on the arrays of the
+     * series, which keeps the shape of the chart, and only the indices of the selected points are stored. The result
+     * is meant to be written out point by point, so no request materializes the prices of its window as objects.
+     * Prices are always read from the store, whatever the read source.
+     * </p>
+     *
+     * @param symbol    the cryptocurrency symbol
+     * @param fromStr   the start of the window (inclusive), or {@code null} for all history
+     * @param toStr     the end of the window (exclusive), or {@code null} for all history
+     * @param maxPoints the maximum number of points to return
+     * @return the selected price points, ordered by time
+     * @throws UnsupportedCryptoException if the symbol is not supported
+     * @throws InvalidMaxPointsException  if {@code maxPoints} is less than 2 or more than {@value #MAX_POINTS}
+     * @throws InvalidDateFormatException if a bound cannot be parsed
+     * @throws InvalidTimeWindowException if only one bound is given or the start is not before the end
+     */
+    public SampledPrices getPrices(String symbol, String fromStr, String toStr, int maxPoints) {
+        return pricesTimer.record(() -> {
+            CryptoSymbol crypto = cryptoValidator.validateSymbol(symbol);
+            if (maxPoints < 2 || maxPoints > MAX_POINTS) {
+                throw new InvalidMaxPointsException(maxPoints, MAX_POINTS);
+            }
+            TimeWindow window = fromStr == null && toStr == null ? null : parseWindow(fromStr, toStr);
+
+            return priceQueryCache.get("prices:" + crypto.name() + ":" + maxPoints + ":" + window,
+                    () -> computePrices(crypto, window, maxPoints));
+        });
+    }
+
+    /**
+     * Returns the price points of the specified cryptocurrency within a time window, downsampled from the store.
+     *
+     * @param crypto    the cryptocurrency
+     * @param window    the time window, or {@code null} for all history
+     * @param maxPoints the maximum number of points to return
+     * @return the selected price points, ordered by time
+     */
+    private SampledPrices computePrices(CryptoSymbol crypto, TimeWindow window, int maxPoints) {
+        PriceSeries series = priceStore.getSeries(crypto);
+        int from = 0;
+        int to = series.size();
+        if (window != null) {
+            from = series.lowerBound(window.fromMillis());
+            to = series.lowerBound(window.toMillis());
+        }
+        return SampledPrices.of(series, from, to, maxPoints);
     }
 
     /**
@@ -84,54 +562,252 @@ public class PriceService {
      * @throws NoPriceFoundForDateException if no price data is found for the date
      */
     public CryptoNormalizedRangeDto getHighestNormalizedRangeForDate(String dateStr) {
-        LocalDate date;
-        try {
-            date = LocalDate.parse(dateStr);
-        } catch (Exception e) {
-            throw new InvalidDateFormatException("Invalid date format: " + dateStr + ". Expected format: yyyy-MM-dd");
-        }
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.plusDays(1).atStartOfDay();
+        return highestTimer.record(() -> {
+            LocalDate date;
+            try {
+                date = LocalDate.parse(dateStr);
+            } catch (Exception e) {
+                throw new InvalidDateFormatException("Invalid date format: " + dateStr + ". Expected format: yyyy-MM-dd");
+            }
+            return priceQueryCache.get("highest:" + date, () -> computeHighestNormalizedRange(date, dateStr));
+        });
+    }
 
-        List<Price> pricesInRange = priceRepository.findByDateTimeGreaterThanEqualAndDateTimeLessThan(start, end);
+    /**
+     * Returns the cryptocurrency with the highest normalized range ((max-min)/min) for the given date.
+     *
+     * @param date    the date
+     * @param dateStr the requested date, for the error message
+     * @return {@link CryptoNormalizedRangeDto} for the highest normalized range
+     * @throws NoPriceFoundForDateException if no price data is found for the date
+     */
+    private CryptoNormalizedRangeDto computeHighestNormalizedRange(LocalDate date, String dateStr) {
+        boolean pricesFound = false;
+        TopRankedRanges highest = new TopRankedRanges(0, 1);
+        if (readSource == PriceReadSource.DATABASE) {
+            long start = date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+            long end = date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+            for (SymbolPriceRange range : priceRepository.findPriceRangesBetween(start, end)) {
+                pricesFound = true;
+                highest.add(rank(range));
+            }
+        } else {
+            for (CryptoSymbol crypto : symbolRegistry.symbols()) {
+                PriceAggregate dayAggregate = priceStore.getSeries(crypto).dayAggregate(date);
+                pricesFound |= dayAggregate != null;
+                highest.add(RankedRange.of(crypto, dayAggregate));
+            }
+        }
 
-        if (pricesInRange.isEmpty()) {
+        if (!pricesFound) {
             throw new NoPriceFoundForDateException(dateStr);
         }
 
-        Map<String, List<Price>> grouped = pricesInRange.stream()
-                .collect(Collectors.groupingBy(Price::getSymbol));
+        List<RankedRange> page = highest.page();
+        return page.isEmpty() ? null : toDto(page.get(0));
+    }
+
+    /**
+     * Helper method to rank a symbol by the lowest and highest price aggregated by the database.
+     *
+     * @param range the lowest and highest price of the symbol
+     * @return the {@link RankedRange}, or {@code null} if the symbol is no longer supported or its minimum price is
+     * zero
+     */
+    private RankedRange rank(SymbolPriceRange range) {
+        CryptoSymbol crypto = symbolRegistry.get(range.symbolId());
+        return crypto != null ? RankedRange.of(crypto, range.minPrice(), range.maxPrice()) : null;
+    }
 
-        List<CryptoNormalizedRangeDto> normalizedRangeDtos = getCryptoNormalizedRangeDtos(grouped);
+    /**
+     * Helper method to convert ranked ranges to {@link CryptoNormalizedRangeDto}s, keeping their order.
+     *
+     * @param ranks the ranked ranges
+     * @return an immutable list of the corresponding DTOs
+     */
+    private static List<CryptoNormalizedRangeDto> toDtos(List<RankedRange> ranks) {
+        List<CryptoNormalizedRangeDto> dtos = new ArrayList<>(ranks.size());
+        for (RankedRange rank : ranks) {
+            dtos.add(toDto(rank));
+        }
+        return Collections.unmodifiableList(dtos);
+    }
 
-        // Find the symbol with the highest normalized range
-        return normalizedRangeDtos.stream()
-                .max(Comparator.comparing(CryptoNormalizedRangeDto::getNormalizedRange))
-                .orElse(null);
+    private static CryptoNormalizedRangeDto toDto(RankedRange rank) {
+        return new CryptoNormalizedRangeDto(rank.crypto().name(), rank.normalizedRange());
     }
 
     /**
-     * Helper method to calculate normalized range DTOs for each symbol in the grouped price data.
+     * Helper method to validate a requested page of a ranking.
      *
-     * @param grouped a map of symbol to list of prices
-     * @return list of {@link CryptoNormalizedRangeDto} objects
+     * @param offset the number of entries to skip
+     * @param limit  the maximum number of entries to return
+     * @throws InvalidPageException if the offset is negative or the limit is not positive
+     */
+    private static void validatePage(int offset, int limit) {
+        if (offset < 0) {
+            throw new InvalidPageException("The offset must not be negative: " + offset);
+        }
+        if (limit < 1) {
+            throw new InvalidPageException("The limit must be positive: " + limit);
+        }
+    }
+
+    /**
+     * Helper method to read the statistics of a cryptocurrency from the database.
+     *
+     * @param crypto the cryptocurrency
+     * @return {@link CryptoStatsDto} containing the statistics
+     * @throws NoPriceFoundForSymbolException if no price data is found for the symbol
      */
-    private List<CryptoNormalizedRangeDto> getCryptoNormalizedRangeDtos(Map<String, List<Price>> grouped) {
-        List<CryptoNormalizedRangeDto> result = new ArrayList<>();
-        for (Map.Entry<String, List<Price>> entry : grouped.entrySet()) {
-            String symbol = entry.getKey();
-            List<Price> prices = entry.getValue();
+    private CryptoStatsDto getStatsFromDatabase(CryptoSymbol crypto) {
+        if (concurrentQueries) {
+            return getStatsFromDatabaseConcurrently(crypto);
+        }
+        String symbol = crypto.name();
+        PriceRow oldest = priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(crypto.id());
+        if (oldest == null) {
+            throw new NoPriceFoundForSymbolException(symbol);
+        }
+        PriceRow newest = priceRepository.findFirstBySymbolIdOrderByEpochMillisDesc(crypto.id());
+        Double min = priceRepository.findMinPriceBySymbolId(crypto.id());
+        Double max = priceRepository.findMaxPriceBySymbolId(crypto.id());
 
-            OptionalDouble minValue = prices.stream().mapToDouble(Price::getPrice).min();
-            OptionalDouble maxValue = prices.stream().mapToDouble(Price::getPrice).max();
+        return new CryptoStatsDto(symbol, oldest.price(), newest.price(), min, max);
+    }
 
-            if (minValue.isPresent() && maxValue.isPresent() && minValue.getAsDouble() != 0.0) {
-                double min = minValue.getAsDouble();
-                double max = maxValue.getAsDouble();
-                double normalizedRange = (max - min) / min;
-                result.add(new CryptoNormalizedRangeDto(symbol, normalizedRange));
+    /**
+     * Helper method to read the statistics of a cryptocurrency from the database with its four queries running
+     * concurrently on virtual threads.
+     * <p>
+     * The call fails fast: as soon as one query fails, or the oldest price shows that there is no price data, the
+     * other queries are cancelled and the failure is rethrown without waiting for them. Queries already running on
+     * the database are not interrupted; they finish in the background and their results are discarded.
+     * </p>
+     *
+     * @param crypto the cryptocurrency
+     * @return {@link CryptoStatsDto} containing the statistics
+     * @throws NoPriceFoundForSymbolException if no price data is found for the symbol
+     */
+    private CryptoStatsDto getStatsFromDatabaseConcurrently(CryptoSymbol crypto) {
+        String symbol = crypto.name();
+        int id = crypto.id();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletableFuture<PriceRow> oldest = CompletableFuture.supplyAsync(() -> {
+            PriceRow row = priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(id);
+            if (row == null) {
+                throw new NoPriceFoundForSymbolException(symbol);
+            }
+            return row;
+        }, executor);
+        CompletableFuture<PriceRow> newest = CompletableFuture.supplyAsync(
+                () -> priceRepository.findFirstBySymbolIdOrderByEpochMillisDesc(id), executor);
+        CompletableFuture<Double> min =
+                CompletableFuture.supplyAsync(() -> priceRepository.findMinPriceBySymbolId(id), executor);
+        CompletableFuture<Double> max =
+                CompletableFuture.supplyAsync(() -> priceRepository.findMaxPriceBySymbolId(id), executor);
+        List<CompletableFuture<?>> queries = List.of(oldest, newest, min, max);
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        queries.forEach(query -> query.whenComplete((result, failure) -> {
+            if (failure != null) {
+                firstFailure.completeExceptionally(failure);
+            }
+        }));
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(oldest, newest, min, max), firstFailure).get();
+            return new CryptoStatsDto(symbol, oldest.join().price(), newest.join().price(), min.join(), max.join());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the statistics of " + symbol, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            queries.forEach(query -> query.cancel(false));
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Helper method to parse and validate a time window (inclusive start, exclusive end).
+     *
+     * @param fromStr the start of the window
+     * @param toStr   the end of the window
+     * @return the parsed window
+     * @throws InvalidDateFormatException if a bound cannot be parsed
+     * @throws InvalidTimeWindowException if a bound is missing or the start is not before the end
+     */
+    private TimeWindow parseWindow(String fromStr, String toStr) {
+        if (fromStr == null || toStr == null) {
+            throw new InvalidTimeWindowException("Both the start and the end of the time window must be given");
+        }
+        LocalDateTime from = parseDateTime(fromStr);
+        LocalDateTime to = parseDateTime(toStr);
+        if (!from.isBefore(to)) {
+            throw new InvalidTimeWindowException("The start of the time window must be before its end: " + fromStr + " - " + toStr);
+        }
+        return new TimeWindow(from, to);
+    }
+
+    /**
+     * Helper method to parse a candle interval given as a positive number followed by a unit: {@code m} (minutes),
+     * {@code h} (hours), {@code d} (days) or {@code w} (weeks).
+     *
+     * @param interval the interval, such as {@code 15m} or {@code 1h}
+     * @return the interval in milliseconds
+     * @throws InvalidCandleIntervalException if the interval cannot be parsed
+     */
+    private static long parseInterval(String interval) {
+        Matcher matcher = INTERVAL.matcher(interval);
+        long amount = matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+        if (amount == 0) {
+            throw new InvalidCandleIntervalException(interval);
+        }
+        long unit = switch (matcher.group(2).charAt(0)) {
+            case 'm' -> 60_000L;
+            case 'h' -> 3_600_000L;
+            case 'd' -> 86_400_000L;
+            default -> 7 * 86_400_000L;
+        };
+        return amount * unit;
+    }
+
+    /**
+     * Helper method to parse a window bound given either as a date (start of the day) or as a date and time.
+     *
+     * @param value the date (yyyy-MM-dd) or date and time (yyyy-MM-ddTHH:mm:ss)
+     * @return the parsed date and time
+     * @throws InvalidDateFormatException if the value cannot be parsed
+     */
+    private LocalDateTime parseDateTime(String value) {
+        try {
+            return value.indexOf('T') >= 0 ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (Exception e) {
+            throw new InvalidDateFormatException("Invalid date format: " + value + ". Expected format: yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss");
+        }
+    }
+
+    /**
+     * A validated time window (inclusive start, exclusive end), in UTC.
+     *
+     * @param from the start of the window
+     * @param to   the end of the window
+     */
+    private record TimeWindow(LocalDateTime from, LocalDateTime to) {
+
+        long fromMillis() {
+            return from.toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+
+        long toMillis() {
+            return to.toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+
+        @Override
+        public String toString() {
+            return from + "/" + to;
         }
-        return result;
     }
-}
\ No newline at end of file
+}
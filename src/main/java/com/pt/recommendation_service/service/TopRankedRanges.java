@@ -0,0 +1,66 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.store.RankedRange;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects one page of the ranking of {@link RankedRange}s added one at a time, without sorting all of them.
+ * <p>
+ * Only the {@code offset + limit} highest ranges seen so far are kept, in a bounded heap whose root is the lowest of
+ * them, so adding a range costs {@code O(log(offset + limit))} and only the kept ranges are sorted at the end.
+ * </p>
+ */
+final class TopRankedRanges {
+
+    private final int offset;
+    private final int capacity;
+    private final PriorityQueue<RankedRange> heap;
+
+    /**
+     * Constructs a new, empty selection of the given page.
+     *
+     * @param offset the number of ranked ranges to skip
+     * @param limit  the maximum number of ranked ranges to return
+     */
+    TopRankedRanges(int offset, int limit) {
+        this.offset = offset;
+        this.capacity = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        this.heap = new PriorityQueue<>(Math.min(capacity, 256), Comparator.reverseOrder());
+    }
+
+    /**
+     * Adds a range to the selection, if it ranks within the page or before it.
+     *
+     * @param range the ranked range, or {@code null} to ignore
+     */
+    void add(RankedRange range) {
+        if (range == null) {
+            return;
+        }
+        if (heap.size() < capacity) {
+            heap.offer(range);
+        } else if (range.compareTo(heap.peek()) < 0) {
+            heap.poll();
+            heap.offer(range);
+        }
+    }
+
+    /**
+     * Returns the selected page, from the highest normalized range to the lowest.
+     *
+     * @return an immutable list of at most {@code limit} ranked ranges
+     */
+    List<RankedRange> page() {
+        if (heap.size() <= offset) {
+            return List.of();
+        }
+        RankedRange[] ranks = heap.toArray(new RankedRange[0]);
+        Arrays.sort(ranks);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(ranks, offset, ranks.length)));
+    }
+}
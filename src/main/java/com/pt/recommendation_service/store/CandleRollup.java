@@ -0,0 +1,259 @@
+package com.pt.recommendation_service.store;
+
+/**
+ * Immutable OHLC rollup of a {@link PriceSeries} at a fixed resolution.
+ * <p>
+ * Holds one candle (open, high, low and close price, and the number of price points) for every bucket of
+ * {@link #resolution()} milliseconds that has price points. Buckets are aligned to the epoch, so the buckets of a
+ * resolution nest in those of every multiple of it. The candles are stored in parallel arrays sorted by bucket start,
+ * and empty buckets take no space.
+ * </p>
+ * <p>
+ * A rollup is built either from the points of the series or from a finer rollup, so every level only reads the
+ * candles of the level below it. A rebuilt rollup copies the candles of the buckets before the first changed point
+ * from the previous rollup and only aggregates the buckets from there on.
+ * </p>
+ */
+public final class CandleRollup {
+
+    private final long resolution;
+    private final long[] starts;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final int[] counts;
+
+    private CandleRollup(long resolution, int size) {
+        this.resolution = resolution;
+        starts = new long[size];
+        opens = new double[size];
+        highs = new double[size];
+        lows = new double[size];
+        closes = new double[size];
+        counts = new int[size];
+    }
+
+    /**
+     * Builds the rollup of time-ordered price points.
+     *
+     * @param resolution  the bucket length in milliseconds
+     * @param timestamps  the sorted epoch-millis timestamps of the points
+     * @param prices      the prices of the points
+     * @param base        the rollup of the previous version of the series, or {@code null} to build from scratch
+     * @param changedFrom the timestamp of the first point that differs from the previous version, ignored without
+     *                    a base
+     * @return the rollup
+     */
+    static CandleRollup of(long resolution, long[] timestamps, double[] prices, CandleRollup base, long changedFrom) {
+        long firstChanged = bucketStart(changedFrom, resolution);
+        int reused = base != null ? base.lowerBound(firstChanged) : 0;
+        int from = base != null ? lowerBound(timestamps, firstChanged) : 0;
+        int buckets = 0;
+        for (int i = from; i < timestamps.length; i++) {
+            if (i == from || bucketStart(timestamps[i], resolution) != bucketStart(timestamps[i - 1], resolution)) {
+                buckets++;
+            }
+        }
+        CandleRollup rollup = new CandleRollup(resolution, reused + buckets);
+        rollup.copyFrom(base, reused);
+        int size = reused;
+        for (int i = from; i < timestamps.length; i++) {
+            double price = prices[i];
+            size = rollup.add(size, timestamps[i], price, price, price, price, 1);
+        }
+        return rollup;
+    }
+
+    /**
+     * Builds the rollup of a finer rollup of the same series.
+     *
+     * @param resolution  the bucket length in milliseconds, a multiple of the resolution of {@code finer}
+     * @param finer       the finer rollup
+     * @param base        the rollup of the previous version of the series, or {@code null} to build from scratch
+     * @param changedFrom the timestamp of the first point that differs from the previous version, ignored without
+     *                    a base
+     * @return the rollup
+     */
+    static CandleRollup of(long resolution, CandleRollup finer, CandleRollup base, long changedFrom) {
+        long firstChanged = bucketStart(changedFrom, resolution);
+        int reused = base != null ? base.lowerBound(firstChanged) : 0;
+        int from = base != null ? finer.lowerBound(firstChanged) : 0;
+        int buckets = 0;
+        for (int i = from; i < finer.size(); i++) {
+            if (i == from || bucketStart(finer.starts[i], resolution) != bucketStart(finer.starts[i - 1], resolution)) {
+                buckets++;
+            }
+        }
+        CandleRollup rollup = new CandleRollup(resolution, reused + buckets);
+        rollup.copyFrom(base, reused);
+        int size = reused;
+        for (int i = from; i < finer.size(); i++) {
+            size = rollup.add(size, finer.starts[i], finer.opens[i], finer.highs[i], finer.lows[i], finer.closes[i],
+                    finer.counts[i]);
+        }
+        return rollup;
+    }
+
+    /**
+     * Returns the bucket length of the rollup.
+     *
+     * @return the bucket length in milliseconds
+     */
+    public long resolution() {
+        return resolution;
+    }
+
+    /**
+     * Returns the number of candles, that is of buckets with price points.
+     *
+     * @return the number of candles
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the start of the bucket of the candle at the given index.
+     *
+     * @param index the index of the candle
+     * @return the epoch-millis start of the bucket
+     */
+    public long start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the price of the oldest point of the candle at the given index.
+     *
+     * @param index the index of the candle
+     * @return the open price
+     */
+    public double open(int index) {
+        return opens[index];
+    }
+
+    /**
+     * Returns the highest price of the candle at the given index.
+     *
+     * @param index the index of the candle
+     * @return the high price
+     */
+    public double high(int index) {
+        return highs[index];
+    }
+
+    /**
+     * Returns the lowest price of the candle at the given index.
+     *
+     * @param index the index of the candle
+     * @return the low price
+     */
+    public double low(int index) {
+        return lows[index];
+    }
+
+    /**
+     * Returns the price of the newest point of the candle at the given index.
+     *
+     * @param index the index of the candle
+     * @return the close price
+     */
+    public double close(int index) {
+        return closes[index];
+    }
+
+    /**
+     * Returns the number of price points of the candle at the given index.
+     *
+     * @param index the index of the candle
+     * @return the number of points
+     */
+    public int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Returns the candle at the given index as a {@link PriceAggregate}.
+     *
+     * @param index the index of the candle
+     * @return the oldest, newest, lowest and highest price of the bucket
+     */
+    public PriceAggregate aggregate(int index) {
+        return new PriceAggregate(opens[index], closes[index], lows[index], highs[index]);
+    }
+
+    /**
+     * Returns the index of the first candle whose bucket starts at or after the given timestamp.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the index of the first candle with a start {@code >= timestamp}, or {@link #size()} if none
+     */
+    public int lowerBound(long timestamp) {
+        return lowerBound(starts, timestamp);
+    }
+
+    /**
+     * Returns the start of the bucket containing the given timestamp.
+     *
+     * @param timestamp  the timestamp in epoch milliseconds
+     * @param resolution the bucket length in milliseconds
+     * @return the epoch-millis start of the bucket
+     */
+    public static long bucketStart(long timestamp, long resolution) {
+        return Math.floorDiv(timestamp, resolution) * resolution;
+    }
+
+    /**
+     * Copies the first {@code count} candles of {@code base}.
+     */
+    private void copyFrom(CandleRollup base, int count) {
+        if (count > 0) {
+            System.arraycopy(base.starts, 0, starts, 0, count);
+            System.arraycopy(base.opens, 0, opens, 0, count);
+            System.arraycopy(base.highs, 0, highs, 0, count);
+            System.arraycopy(base.lows, 0, lows, 0, count);
+            System.arraycopy(base.closes, 0, closes, 0, count);
+            System.arraycopy(base.counts, 0, counts, 0, count);
+        }
+    }
+
+    /**
+     * Adds a time-ordered candle or point to the last bucket, or starts a new bucket for it, while the rollup is
+     * built.
+     *
+     * @return the new number of candles
+     */
+    private int add(int size, long timestamp, double open, double high, double low, double close, int count) {
+        long start = bucketStart(timestamp, resolution);
+        int last = size - 1;
+        if (last >= 0 && starts[last] == start) {
+            highs[last] = Math.max(highs[last], high);
+            lows[last] = Math.min(lows[last], low);
+            closes[last] = close;
+            counts[last] += count;
+            return size;
+        }
+        starts[size] = start;
+        opens[size] = open;
+        highs[size] = high;
+        lows[size] = low;
+        closes[size] = close;
+        counts[size] = count;
+        return size + 1;
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
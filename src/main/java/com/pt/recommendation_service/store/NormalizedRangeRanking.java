@@ -0,0 +1,81 @@
+package com.pt.recommendation_service.store;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable ranking of the cryptocurrencies by the normalized range of their whole price history.
+ * <p>
+ * Holds the {@link RankedRange}s of all symbols with prices in a sorted array, so any page of the ranking is read
+ * in {@code O(limit)} however deep it is. The {@link PriceStore} keeps the ranking current as prices arrive: when the
+ * aggregate of a series changes, only its entry is moved, with a binary search and an array copy instead of sorting
+ * all symbols again.
+ * </p>
+ */
+public final class NormalizedRangeRanking {
+
+    /**
+     * The ranking without any symbols.
+     */
+    public static final NormalizedRangeRanking EMPTY = new NormalizedRangeRanking(new RankedRange[0]);
+
+    private final RankedRange[] ranks;
+
+    private NormalizedRangeRanking(RankedRange[] ranks) {
+        this.ranks = ranks;
+    }
+
+    /**
+     * Returns the number of ranked symbols.
+     *
+     * @return the number of symbols
+     */
+    public int size() {
+        return ranks.length;
+    }
+
+    /**
+     * Returns a page of the ranking, from the highest normalized range to the lowest.
+     *
+     * @param offset the number of ranked symbols to skip
+     * @param limit  the maximum number of ranked symbols to return
+     * @return an immutable list of at most {@code limit} ranked ranges, empty if the offset is past the end
+     */
+    public List<RankedRange> page(int offset, int limit) {
+        if (offset >= ranks.length) {
+            return List.of();
+        }
+        int end = (int) Math.min((long) offset + limit, ranks.length);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(ranks, offset, end)));
+    }
+
+    /**
+     * Returns the ranking with the entry of a symbol replaced.
+     *
+     * @param previous the current entry of the symbol, or {@code null} if it is not ranked
+     * @param updated  the new entry of the symbol, or {@code null} to leave it out of the ranking
+     * @return the updated ranking
+     */
+    NormalizedRangeRanking replace(RankedRange previous, RankedRange updated) {
+        RankedRange[] remaining = ranks;
+        if (previous != null) {
+            int index = Arrays.binarySearch(ranks, previous);
+            if (index < 0) {
+                throw new IllegalStateException("Not ranked: " + previous);
+            }
+            remaining = new RankedRange[ranks.length - 1];
+            System.arraycopy(ranks, 0, remaining, 0, index);
+            System.arraycopy(ranks, index + 1, remaining, index, remaining.length - index);
+        }
+        if (updated == null) {
+            return new NormalizedRangeRanking(remaining);
+        }
+        int index = -Arrays.binarySearch(remaining, updated) - 1;
+        RankedRange[] result = new RankedRange[remaining.length + 1];
+        System.arraycopy(remaining, 0, result, 0, index);
+        result[index] = updated;
+        System.arraycopy(remaining, index, result, index + 1, remaining.length - index);
+        return new NormalizedRangeRanking(result);
+    }
+}
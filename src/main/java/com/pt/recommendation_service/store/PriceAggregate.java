@@ -0,0 +1,12 @@
+package com.pt.recommendation_service.store;
+
+/**
+ * Precomputed aggregate of a run of consecutive price points of a single cryptocurrency.
+ *
+ * @param first the price of the oldest point
+ * @param last  the price of the newest point
+ * @param min   the lowest price
+ * @param max   the highest price
+ */
+public record PriceAggregate(double first, double last, double min, double max) {
+}
@@ -0,0 +1,70 @@
+package com.pt.recommendation_service.store;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+
+import java.util.Arrays;
+
+/**
+ * Growable, columnar buffer of price points of a single cryptocurrency, used to collect points before
+ * publishing them to the {@link PriceStore} in one step.
+ * <p>
+ * Tracks how many of the buffered points have been written to the database, so only durable points are published.
+ * </p>
+ */
+public final class PriceBuffer {
+
+    private long[] timestamps = new long[64];
+    private double[] prices = new double[64];
+    private int size;
+    private int written;
+
+    /**
+     * Appends a price point to the buffer.
+     *
+     * @param timestamp the epoch-millis timestamp of the price
+     * @param price     the price value
+     */
+    public void add(long timestamp, double price) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+        }
+        timestamps[size] = timestamp;
+        prices[size++] = price;
+    }
+
+    /**
+     * Appends the points of another buffer that are marked as written, keeping them marked as written.
+     * Points of this buffer that are not written yet are dropped.
+     *
+     * @param other the buffer to take the points from
+     */
+    public void mergeWritten(PriceBuffer other) {
+        int merged = written + other.written;
+        if (merged > timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, Math.max(merged, timestamps.length * 2));
+            prices = Arrays.copyOf(prices, Math.max(merged, prices.length * 2));
+        }
+        System.arraycopy(other.timestamps, 0, timestamps, written, other.written);
+        System.arraycopy(other.prices, 0, prices, written, other.written);
+        size = merged;
+        written = merged;
+    }
+
+    /**
+     * Marks every point buffered so far as written to the database.
+     */
+    public void markWritten() {
+        written = size;
+    }
+
+    /**
+     * Publishes the points marked as written to the store.
+     *
+     * @param store  the store to publish to
+     * @param crypto the cryptocurrency the points belong to
+     */
+    public void publishWritten(PriceStore store, CryptoSymbol crypto) {
+        store.addAll(crypto, timestamps, prices, written);
+    }
+}
@@ -0,0 +1,87 @@
+package com.pt.recommendation_service.store;
+
+/**
+ * Range-minimum and range-maximum index over the time-ordered prices of a {@link PriceSeries}.
+ * <p>
+ * A bottom-up segment tree stored in two flat {@code double[]} arrays of twice the series length: the leaves hold the
+ * prices and every inner node the lowest and highest price of its two children. Any index range is answered in
+ * {@code O(log n)} by combining at most two nodes per tree level, and the index takes {@code O(n)} memory.
+ * </p>
+ */
+final class PriceRangeIndex {
+
+    private final int size;
+    private final double[] min;
+    private final double[] max;
+
+    /**
+     * Builds the index over the given prices.
+     *
+     * @param prices the time-ordered prices of the series
+     */
+    PriceRangeIndex(double[] prices) {
+        size = prices.length;
+        min = new double[2 * size];
+        max = new double[2 * size];
+        System.arraycopy(prices, 0, min, size, size);
+        System.arraycopy(prices, 0, max, size, size);
+        for (int node = size - 1; node > 0; node--) {
+            min[node] = Math.min(min[2 * node], min[2 * node + 1]);
+            max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Returns the lowest price in the index range {@code [from, to)}.
+     *
+     * @param from the first index (inclusive)
+     * @param to   the last index (exclusive)
+     * @return the lowest price, or {@link Double#NaN} if the range is empty
+     */
+    double min(int from, int to) {
+        double result = Double.NaN;
+        for (int left = from + size, right = to + size; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                result = lower(result, min[left++]);
+            }
+            if ((right & 1) == 1) {
+                result = lower(result, min[--right]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the highest price in the index range {@code [from, to)}.
+     *
+     * @param from the first index (inclusive)
+     * @param to   the last index (exclusive)
+     * @return the highest price, or {@link Double#NaN} if the range is empty
+     */
+    double max(int from, int to) {
+        double result = Double.NaN;
+        for (int left = from + size, right = to + size; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                result = higher(result, max[left++]);
+            }
+            if ((right & 1) == 1) {
+                result = higher(result, max[--right]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lower of the two prices, treating a {@link Double#NaN} current result as "no price yet".
+     */
+    private static double lower(double result, double price) {
+        return price >= result ? result : price;
+    }
+
+    /**
+     * Returns the higher of the two prices, treating a {@link Double#NaN} current result as "no price yet".
+     */
+    private static double higher(double result, double price) {
+        return price <= result ? result : price;
+    }
+}
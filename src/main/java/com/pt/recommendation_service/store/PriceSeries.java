@@ -0,0 +1,305 @@
+package com.pt.recommendation_service.store;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Immutable, time-ordered price series of a single cryptocurrency.
+ * <p>
+ * Stores the epoch-millis timestamps in a sorted {@code long[]} and the prices in a parallel {@code double[]}.
+ * Every modification returns a new series, so readers can keep using a series they obtained without locking.
+ * </p>
+ * <p>
+ * OHLC rollups of the series at one-minute, one-hour and one-day resolution are maintained as the series is built:
+ * the minutes are aggregated from the price points, the hours from the minutes and the days from the hours. A
+ * modified series reuses the candles of the buckets before the first changed point, so appending points only
+ * aggregates the buckets they touch. Statistics, daily ranges and candles of any whole number of minutes are
+ * answered from the rollups without scanning the price points. The lowest and highest price of an arbitrary index
+ * range are answered in {@code O(log n)} by a {@link PriceRangeIndex}, which is built on the first such query.
+ * </p>
+ */
+public final class PriceSeries {
+
+    private static final long MILLIS_PER_MINUTE = 60L * 1000;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    /**
+     * Bucket lengths of the rollups, from the finest to the coarsest. Each one is a multiple of the previous one.
+     */
+    private static final long[] ROLLUP_RESOLUTIONS = {MILLIS_PER_MINUTE, MILLIS_PER_HOUR, MILLIS_PER_DAY};
+    private static final int DAY_LEVEL = 2;
+
+    /**
+     * The series without any price points. Declared after the rollup resolutions, which it needs to be built.
+     */
+    public static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0]);
+
+    private final long[] timestamps;
+    private final double[] prices;
+    private final PriceAggregate aggregate;
+    private final CandleRollup[] rollups;
+    private volatile PriceRangeIndex rangeIndex;
+
+    private PriceSeries(long[] timestamps, double[] prices) {
+        this(timestamps, prices, null, 0);
+    }
+
+    /**
+     * Builds a series that differs from {@code base} only in points recorded at or after {@code changedFrom}, reusing
+     * the candles of {@code base} for the buckets before the one of {@code changedFrom}.
+     */
+    private PriceSeries(long[] timestamps, double[] prices, PriceSeries base, long changedFrom) {
+        this.timestamps = timestamps;
+        this.prices = prices;
+        rollups = new CandleRollup[ROLLUP_RESOLUTIONS.length];
+        for (int level = 0; level < rollups.length; level++) {
+            CandleRollup previous = base != null ? base.rollups[level] : null;
+            rollups[level] = level == 0
+                    ? CandleRollup.of(ROLLUP_RESOLUTIONS[level], timestamps, prices, previous, changedFrom)
+                    : CandleRollup.of(ROLLUP_RESOLUTIONS[level], rollups[level - 1], previous, changedFrom);
+        }
+        if (timestamps.length == 0) {
+            aggregate = null;
+            return;
+        }
+        CandleRollup days = rollups[DAY_LEVEL];
+        double min = days.low(0);
+        double max = days.high(0);
+        for (int d = 1; d < days.size(); d++) {
+            min = Math.min(min, days.low(d));
+            max = Math.max(max, days.high(d));
+        }
+        aggregate = new PriceAggregate(prices[0], prices[prices.length - 1], min, max);
+    }
+
+    /**
+     * Returns the number of price points in the series.
+     *
+     * @return the number of price points
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Checks whether the series has no price points.
+     *
+     * @return {@code true} if the series is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return timestamps.length == 0;
+    }
+
+    /**
+     * Returns the epoch-millis timestamp of the price point at the given index.
+     *
+     * @param index the index of the price point
+     * @return the timestamp in epoch milliseconds
+     */
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Returns the price of the price point at the given index.
+     *
+     * @param index the index of the price point
+     * @return the price value
+     */
+    public double priceAt(int index) {
+        return prices[index];
+    }
+
+    /**
+     * Returns the oldest, newest, lowest and highest price of the whole series.
+     *
+     * @return the {@link PriceAggregate} of the series, or {@code null} if the series is empty
+     */
+    public PriceAggregate aggregate() {
+        return aggregate;
+    }
+
+    /**
+     * Returns the oldest, newest, lowest and highest price of the given UTC day.
+     *
+     * @param date the UTC day
+     * @return the {@link PriceAggregate} of the day, or {@code null} if no prices were recorded on that day
+     */
+    public PriceAggregate dayAggregate(LocalDate date) {
+        CandleRollup days = rollups[DAY_LEVEL];
+        long start = date.toEpochDay() * MILLIS_PER_DAY;
+        int index = days.lowerBound(start);
+        return index < days.size() && days.start(index) == start ? days.aggregate(index) : null;
+    }
+
+    /**
+     * Returns the coarsest OHLC rollup whose buckets nest in buckets of the given length, so that candles of that
+     * length are merged from the fewest possible candles: the day rollup for whole days, the hour rollup for whole
+     * hours and the minute rollup for whole minutes.
+     *
+     * @param interval the candle length in milliseconds, must be positive
+     * @return the {@link CandleRollup}, or {@code null} if the interval is not a whole number of minutes
+     */
+    public CandleRollup rollup(long interval) {
+        for (int level = rollups.length - 1; level >= 0; level--) {
+            if (interval % ROLLUP_RESOLUTIONS[level] == 0) {
+                return rollups[level];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the first price point recorded at or after the given timestamp.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the index of the first price point with a timestamp {@code >= timestamp}, or {@link #size()} if none
+     */
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = timestamps.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the lowest price in the index range {@code [from, to)}.
+     *
+     * @param from the first index (inclusive)
+     * @param to   the last index (exclusive)
+     * @return the lowest price, or {@link Double#NaN} if the range is empty
+     */
+    public double min(int from, int to) {
+        return rangeIndex().min(from, to);
+    }
+
+    /**
+     * Returns the highest price in the index range {@code [from, to)}.
+     *
+     * @param from the first index (inclusive)
+     * @param to   the last index (exclusive)
+     * @return the highest price, or {@link Double#NaN} if the range is empty
+     */
+    public double max(int from, int to) {
+        return rangeIndex().max(from, to);
+    }
+
+    /**
+     * Returns a new series containing the price points of this series and the first {@code count} given points.
+     * <p>
+     * The given points do not have to be sorted. Points with equal timestamps keep their insertion order.
+     * </p>
+     *
+     * @param newTimestamps the epoch-millis timestamps of the new points
+     * @param newPrices     the prices of the new points
+     * @param count         the number of points to take from the arrays
+     * @return the merged series
+     */
+    PriceSeries merge(long[] newTimestamps, double[] newPrices, int count) {
+        if (count == 0) {
+            return this;
+        }
+        long[] addedTimestamps = Arrays.copyOf(newTimestamps, count);
+        double[] addedPrices = Arrays.copyOf(newPrices, count);
+        sort(addedTimestamps, addedPrices);
+
+        int size = timestamps.length;
+        long[] mergedTimestamps = new long[size + count];
+        double[] mergedPrices = new double[size + count];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size && j < count) {
+            if (timestamps[i] <= addedTimestamps[j]) {
+                mergedTimestamps[k] = timestamps[i];
+                mergedPrices[k++] = prices[i++];
+            } else {
+                mergedTimestamps[k] = addedTimestamps[j];
+                mergedPrices[k++] = addedPrices[j++];
+            }
+        }
+        System.arraycopy(timestamps, i, mergedTimestamps, k, size - i);
+        System.arraycopy(prices, i, mergedPrices, k, size - i);
+        k += size - i;
+        System.arraycopy(addedTimestamps, j, mergedTimestamps, k, count - j);
+        System.arraycopy(addedPrices, j, mergedPrices, k, count - j);
+        return new PriceSeries(mergedTimestamps, mergedPrices, this, addedTimestamps[0]);
+    }
+
+    /**
+     * Returns a new series without the first price point matching the given timestamp and price.
+     *
+     * @param timestamp the epoch-millis timestamp of the point to remove
+     * @param price     the price of the point to remove
+     * @return the series without the point, or this series if no point matches
+     */
+    PriceSeries remove(long timestamp, double price) {
+        for (int i = lowerBound(timestamp); i < timestamps.length && timestamps[i] == timestamp; i++) {
+            if (Double.compare(prices[i], price) == 0) {
+                long[] remainingTimestamps = new long[timestamps.length - 1];
+                double[] remainingPrices = new double[prices.length - 1];
+                System.arraycopy(timestamps, 0, remainingTimestamps, 0, i);
+                System.arraycopy(prices, 0, remainingPrices, 0, i);
+                System.arraycopy(timestamps, i + 1, remainingTimestamps, i, timestamps.length - i - 1);
+                System.arraycopy(prices, i + 1, remainingPrices, i, prices.length - i - 1);
+                return remainingTimestamps.length == 0 ? EMPTY : new PriceSeries(remainingTimestamps, remainingPrices, this, timestamp);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the range index of the series, building it on first use. Concurrent first queries may each build an
+     * index, but they are all equal, so the race is harmless.
+     */
+    private PriceRangeIndex rangeIndex() {
+        PriceRangeIndex index = rangeIndex;
+        if (index == null) {
+            index = new PriceRangeIndex(prices);
+            rangeIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Sorts the parallel arrays by timestamp with a stable merge sort. Already sorted input is detected up front,
+     * as CSV files are usually written in time order.
+     */
+    private static void sort(long[] timestamps, double[] prices) {
+        boolean sorted = true;
+        for (int i = 1; i < timestamps.length && sorted; i++) {
+            sorted = timestamps[i - 1] <= timestamps[i];
+        }
+        if (!sorted) {
+            mergeSort(timestamps, prices, timestamps.clone(), prices.clone(), 0, timestamps.length);
+        }
+    }
+
+    private static void mergeSort(long[] timestamps, double[] prices, long[] tsBuffer, double[] priceBuffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(tsBuffer, priceBuffer, timestamps, prices, from, mid);
+        mergeSort(tsBuffer, priceBuffer, timestamps, prices, mid, to);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && tsBuffer[i] <= tsBuffer[j])) {
+                timestamps[k] = tsBuffer[i];
+                prices[k] = priceBuffer[i++];
+            } else {
+                timestamps[k] = tsBuffer[j];
+                prices[k] = priceBuffer[j++];
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.pt.recommendation_service.store;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory, read-optimized store of the price history of every symbol of the {@link SymbolRegistry}.
+ * <p>
+ * Holds one immutable {@link PriceSeries} per symbol, indexed by the symbol id. Readers never lock: they get the
+ * current series of a symbol and keep a consistent snapshot for as long as they use it. Writers build a new series
+ * and publish it, and are serialized per symbol. The database stays the durable copy of the data; this store is the primary read path.
+ * </p>
+ * <p>
+ * Every ingestion path ends up here, so the store also keeps a data version that is incremented on every change.
+ * Anything derived from the price data (such as cached query results) can compare it to detect stale copies.
+ * </p>
+ * <p>
+ * The store also maintains the {@link NormalizedRangeRanking} of all symbols over their whole history. When the
+ * aggregate of a series changes, only the entry of that symbol is moved, and the ranking is published before the
+ * data version is incremented.
+ * </p>
+ */
+@Component
+public class PriceStore {
+
+    private final CryptoSymbol[] symbols;
+    private final AtomicReferenceArray<PriceSeries> series;
+    private final Object[] locks;
+    private final AtomicReference<NormalizedRangeRanking> ranking = new AtomicReference<>(NormalizedRangeRanking.EMPTY);
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Constructs a new, empty {@code PriceStore} for the symbols of the given registry.
+     *
+     * @param symbolRegistry the registry of supported cryptocurrency symbols
+     */
+    public PriceStore(SymbolRegistry symbolRegistry) {
+        int idLimit = symbolRegistry.idLimit();
+        symbols = new CryptoSymbol[idLimit];
+        series = new AtomicReferenceArray<>(idLimit);
+        locks = new Object[idLimit];
+        for (int i = 0; i < idLimit; i++) {
+            symbols[i] = symbolRegistry.get(i);
+            locks[i] = new Object();
+        }
+        clear();
+    }
+
+    /**
+     * Returns the current price series of the given cryptocurrency.
+     *
+     * @param crypto the cryptocurrency
+     * @return the current {@link PriceSeries}, empty if no prices are stored for the cryptocurrency
+     */
+    public PriceSeries getSeries(CryptoSymbol crypto) {
+        return series.get(crypto.id());
+    }
+
+    /**
+     * Returns the current ranking of all symbols by the normalized range of their whole price history.
+     *
+     * @return the current {@link NormalizedRangeRanking}
+     */
+    public NormalizedRangeRanking ranking() {
+        return ranking.get();
+    }
+
+    /**
+     * Returns the current data version, which is incremented every time a series changes.
+     *
+     * @return the data version
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Adds a single price point to the series of the given cryptocurrency.
+     *
+     * @param crypto    the cryptocurrency
+     * @param timestamp the epoch-millis timestamp of the price
+     * @param price     the price value
+     */
+    public void add(CryptoSymbol crypto, long timestamp, double price) {
+        addAll(crypto, new long[]{timestamp}, new double[]{price}, 1);
+    }
+
+    /**
+     * Adds the first {@code count} price points of the given arrays to the series of the given cryptocurrency.
+     * <p>
+     * The points do not have to be sorted. Prefer adding points in large batches, as every call copies the series.
+     * </p>
+     *
+     * @param crypto     the cryptocurrency
+     * @param timestamps the epoch-millis timestamps of the prices
+     * @param prices     the price values
+     * @param count      the number of points to take from the arrays
+     */
+    public void addAll(CryptoSymbol crypto, long[] timestamps, double[] prices, int count) {
+        synchronized (lockFor(crypto)) {
+            int index = crypto.id();
+            update(index, series.get(index).merge(timestamps, prices, count));
+        }
+    }
+
+    /**
+     * Removes a single price point from the series of the given cryptocurrency, if present.
+     *
+     * @param crypto    the cryptocurrency
+     * @param timestamp the epoch-millis timestamp of the price
+     * @param price     the price value
+     */
+    public void remove(CryptoSymbol crypto, long timestamp, double price) {
+        synchronized (lockFor(crypto)) {
+            int index = crypto.id();
+            update(index, series.get(index).remove(timestamp, price));
+        }
+    }
+
+    /**
+     * Removes all price points of every cryptocurrency.
+     */
+    public void clear() {
+        for (int i = 0; i < locks.length; i++) {
+            synchronized (locks[i]) {
+                update(i, PriceSeries.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Publishes the new series of a symbol, and updates the ranking and increments the data version if it differs
+     * from the current one. Must be called while holding the lock of the symbol.
+     */
+    private void update(int index, PriceSeries updated) {
+        PriceSeries previous = series.getAndSet(index, updated);
+        if (previous != updated) {
+            RankedRange previousRank = rank(index, previous);
+            RankedRange updatedRank = rank(index, updated);
+            if (!Objects.equals(previousRank, updatedRank)) {
+                // Entries of other symbols may be replaced concurrently, so retry on the latest ranking
+                ranking.updateAndGet(current -> current.replace(previousRank, updatedRank));
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    private RankedRange rank(int index, PriceSeries priceSeries) {
+        return priceSeries != null && symbols[index] != null ? RankedRange.of(symbols[index], priceSeries.aggregate()) : null;
+    }
+
+    private Object lockFor(CryptoSymbol crypto) {
+        return locks[crypto.id()];
+    }
+}
@@ -0,0 +1,62 @@
+package com.pt.recommendation_service.store;
+
+import com.pt.recommendation_service.entity.Price;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * JPA entity listener that mirrors {@link Price} entities written through JPA into the {@link PriceStore}.
+ * <p>
+ * Instantiated by Hibernate through Spring's bean container, so its dependencies are injected.
+ * Bulk writes that bypass JPA (such as the CSV loader's batch inserts) update the store themselves.
+ * </p>
+ */
+public class PriceStoreSynchronizer {
+
+    private final PriceStore priceStore;
+    private final SymbolRegistry symbolRegistry;
+
+    /**
+     * Constructs a new {@code PriceStoreSynchronizer} with the required dependencies.
+     * <p>
+     * Both are resolved lazily: Hibernate creates the listener while building the entity manager factory, which
+     * the {@link SymbolRegistry} needs to read the symbol table.
+     * </p>
+     *
+     * @param priceStore     the store to keep in sync
+     * @param symbolRegistry the registry of supported cryptocurrency symbols
+     */
+    public PriceStoreSynchronizer(@Lazy PriceStore priceStore, @Lazy SymbolRegistry symbolRegistry) {
+        this.priceStore = priceStore;
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    /**
+     * Adds a persisted price record to the store.
+     *
+     * @param price the persisted price record
+     */
+    @PostPersist
+    public void onPersist(Price price) {
+        CryptoSymbol crypto = symbolRegistry.get(price.getSymbolId());
+        if (crypto != null) {
+            priceStore.add(crypto, price.getEpochMillis(), price.getPrice());
+        }
+    }
+
+    /**
+     * Removes a deleted price record from the store.
+     *
+     * @param price the deleted price record
+     */
+    @PostRemove
+    public void onRemove(Price price) {
+        CryptoSymbol crypto = symbolRegistry.get(price.getSymbolId());
+        if (crypto != null) {
+            priceStore.remove(crypto, price.getEpochMillis(), price.getPrice());
+        }
+    }
+}
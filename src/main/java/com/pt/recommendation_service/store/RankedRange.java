@@ -0,0 +1,45 @@
+package com.pt.recommendation_service.store;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+
+/**
+ * Normalized range ((max-min)/min) of a cryptocurrency, as ranked by the normalized-range queries.
+ * <p>
+ * Ranges are ordered from the highest to the lowest, and equal ranges by symbol id, so every ranking of the same
+ * ranges has the same order.
+ * </p>
+ *
+ * @param crypto          the cryptocurrency
+ * @param normalizedRange the normalized range of its prices
+ */
+public record RankedRange(CryptoSymbol crypto, double normalizedRange) implements Comparable<RankedRange> {
+
+    /**
+     * Computes the normalized range of a cryptocurrency from its lowest and highest price.
+     *
+     * @param crypto the cryptocurrency
+     * @param min    the lowest price
+     * @param max    the highest price
+     * @return the ranked range, or {@code null} if the lowest price is zero
+     */
+    public static RankedRange of(CryptoSymbol crypto, double min, double max) {
+        return min != 0.0 ? new RankedRange(crypto, (max - min) / min) : null;
+    }
+
+    /**
+     * Computes the normalized range of a cryptocurrency from a precomputed aggregate of its prices.
+     *
+     * @param crypto    the cryptocurrency
+     * @param aggregate the price aggregate, or {@code null} if there are no prices
+     * @return the ranked range, or {@code null} if there is no aggregate or its lowest price is zero
+     */
+    public static RankedRange of(CryptoSymbol crypto, PriceAggregate aggregate) {
+        return aggregate != null ? of(crypto, aggregate.min(), aggregate.max()) : null;
+    }
+
+    @Override
+    public int compareTo(RankedRange other) {
+        int byRange = Double.compare(other.normalizedRange, normalizedRange);
+        return byRange != 0 ? byRange : Integer.compare(crypto.id(), other.crypto.id());
+    }
+}
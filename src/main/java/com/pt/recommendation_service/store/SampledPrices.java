@@ -0,0 +1,127 @@
+package com.pt.recommendation_service.store;
+
+/**
+ * Immutable selection of at most a given number of price points of a {@link PriceSeries}, for charting.
+ * <p>
+ * A range of the series that has more points than requested is downsampled with Largest-Triangle-Three-Buckets
+ * (LTTB): the first and the last point are kept, the points in between are split into equal buckets, and from each
+ * bucket the point forming the largest triangle with the point kept from the previous bucket and the average of the
+ * next bucket is kept. Peaks and troughs therefore survive the downsampling, while flat stretches are thinned out.
+ * </p>
+ * <p>
+ * The selection runs in a single pass over the primitive arrays of the series and only stores the indices of the
+ * selected points, so it never holds more than {@code maxPoints} entries however long the range is. The points are
+ * read from the series snapshot the selection was made on.
+ * </p>
+ */
+public final class SampledPrices {
+
+    private final PriceSeries series;
+    private final int[] indices;
+
+    private SampledPrices(PriceSeries series, int[] indices) {
+        this.series = series;
+        this.indices = indices;
+    }
+
+    /**
+     * Selects at most {@code maxPoints} points of an index range of a series.
+     *
+     * @param series    the price series
+     * @param from      the index of the first point of the range (inclusive)
+     * @param to        the index after the last point of the range (exclusive)
+     * @param maxPoints the maximum number of points to select, at least 2
+     * @return all points of the range if there are at most {@code maxPoints}, otherwise {@code maxPoints} points
+     * selected with LTTB
+     * @throws IllegalArgumentException if {@code maxPoints} is less than 2
+     */
+    public static SampledPrices of(PriceSeries series, int from, int to, int maxPoints) {
+        if (maxPoints < 2) {
+            throw new IllegalArgumentException("At least two points must be selected: " + maxPoints);
+        }
+        int size = Math.max(to - from, 0);
+        if (size <= maxPoints) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = from + i;
+            }
+            return new SampledPrices(series, all);
+        }
+        return new SampledPrices(series, largestTriangleThreeBuckets(series, from, to, maxPoints));
+    }
+
+    /**
+     * Returns the number of selected points.
+     *
+     * @return the number of points
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * Returns the timestamp of the selected point at the given position.
+     *
+     * @param index the position of the point in the selection
+     * @return the timestamp in epoch milliseconds
+     */
+    public long timestampAt(int index) {
+        return series.timestampAt(indices[index]);
+    }
+
+    /**
+     * Returns the price of the selected point at the given position.
+     *
+     * @param index the position of the point in the selection
+     * @return the price
+     */
+    public double priceAt(int index) {
+        return series.priceAt(indices[index]);
+    }
+
+    /**
+     * Selects {@code maxPoints} points of a range with more points than that. The inner points are split into
+     * {@code maxPoints - 2} buckets whose bounds are computed in integer arithmetic, so every inner point falls into
+     * exactly one bucket. Timestamps are taken relative to the first point, so they keep their precision as doubles.
+     */
+    private static int[] largestTriangleThreeBuckets(PriceSeries series, int from, int to, int maxPoints) {
+        int[] selected = new int[maxPoints];
+        int buckets = maxPoints - 2;
+        long inner = to - from - 2;
+        long origin = series.timestampAt(from);
+        selected[0] = from;
+        int previous = from;
+        int start = from + 1;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int end = from + 1 + (int) ((bucket + 1) * inner / buckets);
+            // The next bucket ends at the last point, which is always kept
+            int nextEnd = bucket + 1 < buckets ? from + 1 + (int) ((bucket + 2) * inner / buckets) : to;
+
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = end; i < nextEnd; i++) {
+                averageX += series.timestampAt(i) - origin;
+                averageY += series.priceAt(i);
+            }
+            averageX /= nextEnd - end;
+            averageY /= nextEnd - end;
+
+            double previousX = series.timestampAt(previous) - origin;
+            double previousY = series.priceAt(previous);
+            double largestArea = -1;
+            for (int i = start; i < end; i++) {
+                // Twice the area of the triangle, which ranks the candidates the same way
+                double area = Math.abs((previousX - averageX) * (series.priceAt(i) - previousY)
+                        - (previousX - (series.timestampAt(i) - origin)) * (averageY - previousY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    previous = i;
+                }
+            }
+            selected[bucket + 1] = previous;
+            start = end;
+        }
+        selected[maxPoints - 1] = to - 1;
+        return selected;
+    }
+}
@@ -0,0 +1,47 @@
+package com.pt.recommendation_service.symbol;
+
+/**
+ * A supported cryptocurrency symbol, interned by the {@link SymbolRegistry}.
+ * <p>
+ * The registry creates exactly one instance per symbol, so symbols are compared by identity. The id is the small
+ * integer stored in the price table instead of the name, and can index per-symbol arrays.
+ * </p>
+ */
+public final class CryptoSymbol {
+
+    private final int id;
+    private final String name;
+
+    CryptoSymbol(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Returns the id of the symbol.
+     *
+     * @return the id of the symbol in the symbol table, between 0 and {@link SymbolRegistry#idLimit()} (exclusive)
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Returns the canonical name of the symbol.
+     *
+     * @return the upper-case symbol, such as {@code BTC}
+     */
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
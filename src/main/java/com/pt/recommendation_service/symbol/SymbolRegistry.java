@@ -0,0 +1,238 @@
+package com.pt.recommendation_service.symbol;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of the supported cryptocurrency symbols, configured with the {@code symbols.supported} property.
+ * <p>
+ * Every symbol is interned as a single {@link CryptoSymbol} with a small integer id. The ids are those of the
+ * symbol table, so they are stable across restarts and the price table can store them instead of the names; ids
+ * of symbols no longer supported stay unused. Symbols are looked up case-insensitively in an open-addressing hash
+ * table keyed by the ASCII upper-case name, so a lookup costs one hash and usually one comparison however many
+ * symbols are registered, and allocates nothing. Lookups accept a {@link CharSequence} or a range of bytes, so
+ * parsers can match a symbol without decoding it first.
+ * </p>
+ * <p>
+ * Symbols are 1 to {@value #MAX_LENGTH} ASCII letters, digits or {@code '-'}, {@code '_'}, {@code '.'}
+ * characters. The registry is immutable and safe to share between threads.
+ * </p>
+ */
+public class SymbolRegistry {
+
+    /**
+     * Longest supported symbol, matching the name column of the symbol table.
+     */
+    public static final int MAX_LENGTH = 16;
+
+    private final List<CryptoSymbol> symbols;
+    private final CryptoSymbol[] byId;
+    private final CryptoSymbol[] table;
+    private final int mask;
+
+    /**
+     * Constructs a new {@code SymbolRegistry} with the given symbols, numbered from 0 in the given order. Blank
+     * entries are skipped.
+     *
+     * @param names the symbols, in the order of their ids
+     * @throws IllegalArgumentException if a symbol is invalid or given twice
+     */
+    public SymbolRegistry(Collection<String> names) {
+        this(names, Map.of());
+    }
+
+    /**
+     * Constructs a new {@code SymbolRegistry} with the given symbols. Symbols with an assigned id keep it, the
+     * others are numbered from one more than the highest assigned id, in the given order. Blank entries are
+     * skipped.
+     *
+     * @param names       the symbols
+     * @param assignedIds the ids already assigned, by upper-case symbol, such as the rows of the symbol table
+     * @throws IllegalArgumentException if a symbol is invalid or given twice, or an assigned id is negative
+     */
+    public SymbolRegistry(Collection<String> names, Map<String, Integer> assignedIds) {
+        int nextId = 0;
+        for (int id : assignedIds.values()) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Negative crypto symbol id: " + id);
+            }
+            nextId = Math.max(nextId, id + 1);
+        }
+        // At most half full, so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(names.size(), 1) * 2 - 1) << 1;
+        table = new CryptoSymbol[capacity];
+        mask = capacity - 1;
+        List<CryptoSymbol> registered = new ArrayList<>(names.size());
+        int idLimit = 0;
+        for (String name : names) {
+            String canonical = name.strip().toUpperCase(Locale.ROOT);
+            if (canonical.isEmpty()) {
+                continue;
+            }
+            if (!isValidName(canonical)) {
+                throw new IllegalArgumentException("Invalid crypto symbol: '" + name + "'");
+            }
+            if (find(canonical) != null) {
+                throw new IllegalArgumentException("Duplicate crypto symbol: " + canonical);
+            }
+            Integer assignedId = assignedIds.get(canonical);
+            CryptoSymbol symbol = new CryptoSymbol(assignedId != null ? assignedId : nextId++, canonical);
+            int slot = hash(canonical) & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = symbol;
+            registered.add(symbol);
+            idLimit = Math.max(idLimit, symbol.id() + 1);
+        }
+        registered.sort(Comparator.comparingInt(CryptoSymbol::id));
+        symbols = List.copyOf(registered);
+        byId = new CryptoSymbol[idLimit];
+        for (CryptoSymbol symbol : symbols) {
+            byId[symbol.id()] = symbol;
+        }
+    }
+
+    /**
+     * Returns the number of registered symbols.
+     *
+     * @return the number of symbols
+     */
+    public int size() {
+        return symbols.size();
+    }
+
+    /**
+     * Returns the bound of the ids, to size arrays indexed by id.
+     *
+     * @return one more than the highest id, or 0 if there are no symbols
+     */
+    public int idLimit() {
+        return byId.length;
+    }
+
+    /**
+     * Returns all registered symbols.
+     *
+     * @return an immutable list of the symbols, ordered by id
+     */
+    public List<CryptoSymbol> symbols() {
+        return symbols;
+    }
+
+    /**
+     * Returns the symbol with the given id.
+     *
+     * @param id the id of the symbol
+     * @return the symbol, or {@code null} if no supported symbol has the id
+     */
+    public CryptoSymbol get(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * Looks up a symbol, ignoring ASCII case.
+     *
+     * @param name the symbol to look up, may be {@code null}
+     * @return the registered symbol, or {@code null} if it is not supported
+     */
+    public CryptoSymbol find(CharSequence name) {
+        if (name == null) {
+            return null;
+        }
+        int length = name.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return null;
+        }
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + toUpperCase(name.charAt(i));
+        }
+        for (int slot = spread(h) & mask; ; slot = (slot + 1) & mask) {
+            CryptoSymbol candidate = table[slot];
+            if (candidate == null || matches(candidate.name(), name)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Looks up the symbol encoded in the bytes in {@code [from, to)}, ignoring ASCII case. Bytes outside the ASCII
+     * range never match, so the bytes may be any ASCII-compatible encoding such as UTF-8.
+     *
+     * @param bytes the buffer holding the symbol
+     * @param from  the index of the first byte of the symbol
+     * @param to    the index after the last byte of the symbol
+     * @return the registered symbol, or {@code null} if it is not supported
+     */
+    public CryptoSymbol find(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (length <= 0 || length > MAX_LENGTH) {
+            return null;
+        }
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + toUpperCase(bytes[i] & 0xFF);
+        }
+        for (int slot = spread(h) & mask; ; slot = (slot + 1) & mask) {
+            CryptoSymbol candidate = table[slot];
+            if (candidate == null || matches(candidate.name(), bytes, from, to)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static boolean matches(String name, CharSequence other) {
+        if (name.length() != other.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != toUpperCase(other.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String name, byte[] bytes, int from, int to) {
+        if (name.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != toUpperCase(bytes[from + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidName(String name) {
+        if (name.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String name) {
+        // The name is canonical, so this equals the case-insensitive hash of any spelling of it
+        return spread(name.hashCode());
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int toUpperCase(int c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+}
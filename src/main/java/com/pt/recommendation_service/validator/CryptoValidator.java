@@ -1,35 +1,62 @@
 package com.pt.recommendation_service.validator;
 
-import com.pt.recommendation_service.enums.SupportedCryptos;
 import com.pt.recommendation_service.exception.UnsupportedCryptoException;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.Optional;
 
 /**
  * Validator component for checking and validating supported cryptocurrency symbols.
  * <p>
- * Provides methods to validate if a symbol is supported and to retrieve the corresponding enum value.
+ * Provides methods to validate if a symbol is supported and to retrieve the corresponding {@link CryptoSymbol}.
+ * Symbols are looked up in the {@link SymbolRegistry}, in constant time.
  * </p>
  */
 @Component
 public class CryptoValidator {
 
+    private final SymbolRegistry symbolRegistry;
+
     /**
-     * Validates the given cryptocurrency symbol and returns the corresponding {@link SupportedCryptos} enum value.
+     * Constructs a new {@code CryptoValidator} with the given {@link SymbolRegistry}.
+     *
+     * @param symbolRegistry the registry of supported cryptocurrency symbols
+     */
+    public CryptoValidator(SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    /**
+     * Validates the given cryptocurrency symbol and returns the corresponding {@link CryptoSymbol}.
      * <p>
      * The comparison is case-insensitive. If the symbol is not supported, an {@link UnsupportedCryptoException} is thrown.
      * </p>
      *
      * @param symbol the cryptocurrency symbol to validate
-     * @return the corresponding {@link SupportedCryptos} enum value
+     * @return the corresponding {@link CryptoSymbol}
      * @throws UnsupportedCryptoException if the symbol is not supported
      */
-    public SupportedCryptos validateSymbol(String symbol) {
-        return Arrays.stream(SupportedCryptos.values())
-                .filter(s -> s.name().equalsIgnoreCase(symbol))
-                .findFirst()
-                .orElseThrow(() -> new UnsupportedCryptoException(symbol));
+    public CryptoSymbol validateSymbol(String symbol) {
+        CryptoSymbol crypto = symbolRegistry.find(symbol);
+        if (crypto == null) {
+            throw new UnsupportedCryptoException(symbol);
+        }
+        return crypto;
+    }
+
+    /**
+     * Looks up the {@link CryptoSymbol} for the given cryptocurrency symbol.
+     * <p>
+     * The comparison is case-insensitive.
+     * </p>
+     *
+     * @param symbol the cryptocurrency symbol to look up
+     * @return the corresponding {@link CryptoSymbol}, or an empty {@link Optional} if not supported
+     */
+    public Optional<CryptoSymbol> findSymbol(String symbol) {
+        return Optional.ofNullable(symbolRegistry.find(symbol));
     }
 
     /**
@@ -42,7 +69,6 @@ public class CryptoValidator {
      * @return {@code true} if the symbol is supported, {@code false} otherwise
      */
     public boolean isSymbolValid(String symbol) {
-        return Arrays.stream(SupportedCryptos.values())
-                .anyMatch(s -> s.name().equalsIgnoreCase(symbol));
+        return symbolRegistry.find(symbol) != null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.pt.recommendation_service.cache;
+
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceQueryCacheTest {
+
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+    private static final CryptoSymbol BTC = SYMBOLS.find("BTC");
+
+    private PriceStore priceStore;
+    private PriceQueryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        priceStore = new PriceStore(SYMBOLS);
+        cache = new PriceQueryCache(priceStore, 2);
+    }
+
+    @Test
+    void get_computesOnceAndRecordsHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("a1", cache.get("a", () -> "a" + loads.incrementAndGet()));
+        assertEquals("a1", cache.get("a", () -> "a" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void get_recomputesAfterDataChange() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", loads::incrementAndGet);
+
+        priceStore.add(BTC, 1, 1.0);
+
+        assertEquals(2, (int) cache.get("a", loads::incrementAndGet));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void get_doesNotCacheFailures() {
+        assertThrows(IllegalStateException.class, () -> cache.get("a", () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("ok", cache.get("a", () -> "ok"));
+    }
+
+    @Test
+    void get_evictsBeyondMaximumSize() {
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            cache.get("key" + i, () -> value);
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.size() <= 2);
+        assertTrue(cache.stats().evictionCount() >= 8);
+    }
+}
@@ -1,16 +1,39 @@
 package com.pt.recommendation_service.controller;
 
+import com.pt.recommendation_service.cache.PriceQueryCache;
+import com.pt.recommendation_service.cache.PriceResponseCache;
 import com.pt.recommendation_service.dto.CryptoNormalizedRangeDto;
 import com.pt.recommendation_service.dto.CryptoStatsDto;
-import com.pt.recommendation_service.enums.SupportedCryptos;
+import com.pt.recommendation_service.dto.PriceCandleDto;
+import com.pt.recommendation_service.dto.PricePointDto;
+import com.pt.recommendation_service.exception.UnsupportedCryptoException;
 import com.pt.recommendation_service.service.PriceService;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.store.SampledPrices;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -18,13 +41,22 @@ import static org.mockito.Mockito.when;
 
 class CryptoControllerTest {
 
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+    private static final CryptoSymbol BTC = SYMBOLS.find("BTC");
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private PriceStore priceStore;
     private PriceService priceService;
     private CryptoController controller;
 
     @BeforeEach
     void setUp() {
+        priceStore = new PriceStore(SYMBOLS);
         priceService = mock(PriceService.class);
-        controller = new CryptoController(priceService);
+        PriceQueryCache priceQueryCache = new PriceQueryCache(priceStore, 100);
+        controller = new CryptoController(priceService, new PriceResponseCache(priceStore, priceQueryCache, jsonMapper),
+                jsonMapper);
     }
 
     @Test
@@ -33,33 +65,166 @@ class CryptoControllerTest {
                 new CryptoNormalizedRangeDto("BTC", 0.15),
                 new CryptoNormalizedRangeDto("ETH", 0.10)
         );
-        when(priceService.getNormalizedRangesDesc()).thenReturn(expected);
+        when(priceService.getNormalizedRangesDesc(0, Integer.MAX_VALUE)).thenReturn(expected);
+
+        ResponseEntity<byte[]> result = controller.getNormalizedRanges(null, null, 0, null, request(null));
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(expected), result.getBody());
+        verify(priceService, times(1)).getNormalizedRangesDesc(0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void getNormalizedRanges_withPage_returnsPageFromService() {
+        List<CryptoNormalizedRangeDto> expected = List.of(new CryptoNormalizedRangeDto("ETH", 0.10));
+        when(priceService.getNormalizedRangesDesc(1, 1)).thenReturn(expected);
 
-        List<CryptoNormalizedRangeDto> result = controller.getNormalizedRanges();
+        ResponseEntity<byte[]> result = controller.getNormalizedRanges(null, null, 1, 1, request(null));
 
-        assertEquals(expected, result);
-        verify(priceService, times(1)).getNormalizedRangesDesc();
+        assertArrayEquals(jsonMapper.writeValueAsBytes(expected), result.getBody());
+        verify(priceService, times(1)).getNormalizedRangesDesc(1, 1);
+    }
+
+    @Test
+    void getNormalizedRanges_withWindow_returnsWindowedListFromService() {
+        List<CryptoNormalizedRangeDto> expected = List.of(new CryptoNormalizedRangeDto("ETH", 0.05));
+        when(priceService.getNormalizedRangesDesc("2022-01-01", "2022-01-08", 0, 20)).thenReturn(expected);
+
+        ResponseEntity<byte[]> result = controller.getNormalizedRanges("2022-01-01", "2022-01-08", 0, 20, request(null));
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(expected), result.getBody());
+        verify(priceService, times(1)).getNormalizedRangesDesc("2022-01-01", "2022-01-08", 0, 20);
     }
 
     @Test
     void getStats_returnsStatsFromService() {
-        CryptoStatsDto expected = new CryptoStatsDto(SupportedCryptos.BTC, 21000.0, 23000.0, 20000.0, 25000.0);
+        CryptoStatsDto expected = new CryptoStatsDto("BTC", 21000.0, 23000.0, 20000.0, 25000.0);
         when(priceService.getStatsForSymbol("BTC")).thenReturn(expected);
 
-        CryptoStatsDto result = controller.getStats("BTC");
+        ResponseEntity<byte[]> result = controller.getStats("BTC", request(null));
 
-        assertEquals(expected, result);
+        assertArrayEquals(jsonMapper.writeValueAsBytes(expected), result.getBody());
         verify(priceService, times(1)).getStatsForSymbol("BTC");
     }
 
+    @Test
+    void getStats_reusesSerializedPayloadUntilDataChanges() {
+        when(priceService.getStatsForSymbol("BTC"))
+                .thenReturn(new CryptoStatsDto("BTC", 1.0, 2.0, 1.0, 2.0));
+
+        byte[] first = controller.getStats("BTC", request(null)).getBody();
+        byte[] second = controller.getStats("BTC", request(null)).getBody();
+        priceStore.add(BTC, 1, 1.0);
+        controller.getStats("BTC", request(null));
+
+        assertSame(first, second);
+        verify(priceService, times(2)).getStatsForSymbol("BTC");
+    }
+
+    @Test
+    void getStats_returnsNotModified_whenETagMatches() {
+        when(priceService.getStatsForSymbol("BTC"))
+                .thenReturn(new CryptoStatsDto("BTC", 1.0, 2.0, 1.0, 2.0));
+        String etag = controller.getStats("BTC", request(null)).getHeaders().getETag();
+        assertNotNull(etag);
+
+        ResponseEntity<byte[]> notModified = controller.getStats("BTC", request(etag));
+        priceStore.add(BTC, 1, 1.0);
+        ResponseEntity<byte[]> modified = controller.getStats("BTC", request(etag));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(HttpStatus.OK, modified.getStatusCode());
+    }
+
+    @Test
+    void getStatsForSymbols_returnsListFromService() {
+        List<String> symbols = List.of("BTC", "ETH");
+        List<CryptoStatsDto> expected = List.of(
+                new CryptoStatsDto("BTC", 21000.0, 23000.0, 20000.0, 25000.0),
+                new CryptoStatsDto("ETH", 1500.0, 1600.0, 1400.0, 1700.0)
+        );
+        when(priceService.getStatsForSymbols(symbols)).thenReturn(expected);
+
+        ResponseEntity<byte[]> result = controller.getStatsForSymbols(symbols, request(null));
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(expected), result.getBody());
+        verify(priceService, times(1)).getStatsForSymbols(symbols);
+    }
+
+    @Test
+    void getStatsForSymbols_sharesPayloadBetweenEquivalentRequestsOnly() {
+        List<CryptoStatsDto> all = List.of(new CryptoStatsDto("BTC", 1.0, 2.0, 1.0, 2.0));
+        when(priceService.canonicalSymbols(null)).thenReturn(List.of("BTC"));
+        when(priceService.canonicalSymbols(List.of("btc", "BTC"))).thenReturn(List.of("BTC"));
+        when(priceService.getStatsForSymbols(null)).thenReturn(all);
+        when(priceService.getStatsForSymbol("null")).thenThrow(new UnsupportedCryptoException("null"));
+
+        byte[] first = controller.getStatsForSymbols(null, request(null)).getBody();
+        byte[] second = controller.getStatsForSymbols(List.of("btc", "BTC"), request(null)).getBody();
+
+        assertSame(first, second);
+        assertThrows(UnsupportedCryptoException.class, () -> controller.getStats("null", request(null)));
+        verify(priceService, times(1)).getStatsForSymbols(null);
+    }
+
+    @Test
+    void getCandles_returnsCandlesFromService() {
+        List<PriceCandleDto> expected = List.of(new PriceCandleDto(1641009600000L, 1.0, 3.0, 0.5, 2.0, 4));
+        when(priceService.getCandles("BTC", "1h", "2022-01-01", "2022-01-02")).thenReturn(expected);
+
+        ResponseEntity<byte[]> result = controller.getCandles("BTC", "1h", "2022-01-01", "2022-01-02", request(null));
+
+        assertArrayEquals(jsonMapper.writeValueAsBytes(expected), result.getBody());
+        verify(priceService, times(1)).getCandles("BTC", "1h", "2022-01-01", "2022-01-02");
+    }
+
+    @Test
+    void getPrices_streamsPointsFromService() throws IOException {
+        priceStore.add(BTC, 1641009600000L, 46813.21);
+        priceStore.add(BTC, 1641013200000L, 46979.61);
+        SampledPrices prices = SampledPrices.of(priceStore.getSeries(BTC), 0, 2, 1000);
+        when(priceService.getPrices("BTC", "2022-01-01", "2022-01-02", 1000)).thenReturn(prices);
+
+        ResponseEntity<StreamingResponseBody> result =
+                controller.getPrices("BTC", "2022-01-01", "2022-01-02", 1000, request(null));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        result.getBody().writeTo(body);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertNotNull(result.getHeaders().getETag());
+        assertArrayEquals(jsonMapper.writeValueAsBytes(List.of(
+                new PricePointDto(1641009600000L, 46813.21),
+                new PricePointDto(1641013200000L, 46979.61))), body.toByteArray());
+    }
+
+    @Test
+    void getPrices_returnsNotModified_whenETagMatches() {
+        when(priceService.getPrices("BTC", null, null, 1000))
+                .thenReturn(SampledPrices.of(priceStore.getSeries(BTC), 0, 0, 1000));
+        String etag = controller.getPrices("BTC", null, null, 1000, request(null)).getHeaders().getETag();
+
+        ResponseEntity<StreamingResponseBody> notModified = controller.getPrices("BTC", null, null, 1000, request(etag));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+    }
+
     @Test
     void getHighestNormalizedRange_returnsValueFromService() {
         CryptoNormalizedRangeDto expected = new CryptoNormalizedRangeDto("BTC", 0.15);
         when(priceService.getHighestNormalizedRangeForDate("2025-12-01")).thenReturn(expected);
 
-        CryptoNormalizedRangeDto result = controller.getHighestNormalizedRange("2025-12-01");
+        ResponseEntity<byte[]> result = controller.getHighestNormalizedRange("2025-12-01", request(null));
 
-        assertEquals(expected, result);
+        assertArrayEquals(jsonMapper.writeValueAsBytes(expected), result.getBody());
         verify(priceService, times(1)).getHighestNormalizedRangeForDate("2025-12-01");
     }
-}
\ No newline at end of file
+
+    private static WebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cryptos");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,191 @@
+package com.pt.recommendation_service.filter;
+
+import com.pt.recommendation_service.repository.RateLimitBucketRepository;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs several instances of the rate limit store, each with its own connections, against one H2 database.
+ */
+class JdbcBucketProxyManagerTest {
+
+    private static final int INSTANCES = 3;
+    private static final int THREADS_PER_INSTANCE = 4;
+    private static final int REQUESTS_PER_THREAD = 50;
+    private static final long PREFETCH_TOKENS = 5;
+
+    private String url;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        url = "jdbc:h2:mem:rate-limit-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE rate_limit_bucket (bucket_key VARCHAR(64) PRIMARY KEY, "
+                + "state VARBINARY(1024) NOT NULL, revision BIGINT NOT NULL, last_access BIGINT NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void resolveBucket_sharesLimitBetweenInstances() {
+        RateLimitBucketStore first = instance(0);
+        RateLimitBucketStore second = instance(0);
+
+        assertTrue(first.resolveBucket("10.0.0.1").tryConsume(RateLimitBucketStore.CAPACITY - 1));
+        assertTrue(second.resolveBucket("10.0.0.1").tryConsume(1));
+
+        assertFalse(first.resolveBucket("10.0.0.1").tryConsume(1));
+        assertFalse(second.resolveBucket("10.0.0.1").tryConsume(1));
+        assertTrue(second.resolveBucket("10.0.0.2").tryConsume(1));
+    }
+
+    @Test
+    void resolveBucket_enforcesGlobalLimitAcrossConcurrentInstances() throws Exception {
+        assertGlobalLimitHolds(0, 0);
+    }
+
+    @Test
+    void resolveBucket_exceedsGlobalLimitByAtMostPrefetchedTokens() throws Exception {
+        assertGlobalLimitHolds(PREFETCH_TOKENS, INSTANCES * PREFETCH_TOKENS);
+    }
+
+    @Test
+    void purgeIdleBuckets_deletesBucketsIdleForLongerThanRefillPeriod() {
+        AtomicLong millis = new AtomicLong(1_000_000);
+        RateLimitBucketRepository repository = new RateLimitBucketRepository(jdbcTemplate);
+        JdbcBucketProxyManager proxyManager = new JdbcBucketProxyManager(repository, Duration.ofSeconds(1),
+                millis::get);
+        RateLimitBucketStore store = new RateLimitBucketStore(100, Duration.ofMinutes(1), proxyManager, 0,
+                Duration.ZERO);
+        Bucket bucket = store.resolveBucket("10.0.0.1");
+        assertTrue(bucket.tryConsume(RateLimitBucketStore.CAPACITY));
+
+        millis.addAndGet(Duration.ofSeconds(30).toMillis());
+        assertTrue(store.resolveBucket("10.0.0.2").tryConsume(1));
+        assertEquals(2, repository.count());
+
+        millis.addAndGet(RateLimitBucketStore.REFILL_PERIOD.toMillis());
+        assertTrue(store.resolveBucket("10.0.0.3").tryConsume(1));
+        assertEquals(3, repository.count());
+
+        assertEquals(1, proxyManager.purgeIdleBuckets());
+        assertTrue(repository.find(JdbcBucketProxyManager.storedKey("10.0.0.1")).isEmpty());
+        assertTrue(repository.find(JdbcBucketProxyManager.storedKey("10.0.0.2")).isPresent());
+
+        assertTrue(bucket.tryConsume(RateLimitBucketStore.CAPACITY));
+    }
+
+    @Test
+    void asAsync_sharesBucketsWithSynchronousProxies() throws Exception {
+        RateLimitBucketRepository repository = new RateLimitBucketRepository(jdbcTemplate);
+        JdbcBucketProxyManager proxyManager = new JdbcBucketProxyManager(repository, Duration.ofMinutes(1));
+        RateLimitBucketStore store = new RateLimitBucketStore(100, Duration.ofMinutes(1), proxyManager, 0,
+                Duration.ZERO);
+        assertTrue(store.resolveBucket("10.0.0.1").tryConsume(RateLimitBucketStore.CAPACITY - 1));
+        BucketConfiguration configuration = proxyManager.getProxyConfiguration("10.0.0.1").orElseThrow();
+        AsyncBucketProxy bucket = proxyManager.asAsync().builder().build("10.0.0.1", configuration);
+
+        assertTrue(bucket.tryConsume(1).get());
+        assertFalse(bucket.tryConsume(1).get());
+
+        proxyManager.asAsync().removeProxy("10.0.0.1").get();
+        assertTrue(repository.find(JdbcBucketProxyManager.storedKey("10.0.0.1")).isEmpty());
+    }
+
+    @Test
+    void doFilter_storesLongForwardedForHeadersUnderFixedLengthKeys() throws Exception {
+        RateLimitBucketRepository repository = new RateLimitBucketRepository(jdbcTemplate);
+        RateLimitFilter filter = new RateLimitFilter(instance(0));
+        String header = "10.0.0.1, ".repeat(1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cryptos/BTC/stats");
+        request.addHeader("X-Forwarded-For", header);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+        });
+
+        assertEquals(200, response.getStatus());
+        assertTrue(repository.find(JdbcBucketProxyManager.storedKey(header)).isPresent());
+    }
+
+    @Test
+    void storedKey_hashesAddressesToFixedLengthKeys() {
+        assertEquals(JdbcBucketProxyManager.KEY_LENGTH,
+                JdbcBucketProxyManager.storedKey("10.0.0.1, ".repeat(1000)).length());
+        assertEquals(JdbcBucketProxyManager.KEY_LENGTH, JdbcBucketProxyManager.storedKey("").length());
+        assertEquals(JdbcBucketProxyManager.storedKey("10.0.0.1"), JdbcBucketProxyManager.storedKey("10.0.0.1"));
+        assertNotEquals(JdbcBucketProxyManager.storedKey("10.0.0.1"), JdbcBucketProxyManager.storedKey("10.0.0.2"));
+    }
+
+    private void assertGlobalLimitHolds(long prefetchTokens, long tolerance) throws Exception {
+        List<RateLimitBucketStore> instances = new ArrayList<>();
+        for (int i = 0; i < INSTANCES; i++) {
+            instances.add(instance(prefetchTokens));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(INSTANCES * THREADS_PER_INSTANCE)) {
+            for (RateLimitBucketStore instance : instances) {
+                for (int t = 0; t < THREADS_PER_INSTANCE; t++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        int allowed = 0;
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                            if (instance.resolveBucket("10.0.0.1").tryConsume(1)) {
+                                allowed++;
+                            }
+                        }
+                        return allowed;
+                    }));
+                }
+            }
+            start.countDown();
+        }
+        long refilled = RateLimitBucketStore.CAPACITY * (System.nanoTime() - started)
+                / RateLimitBucketStore.REFILL_PERIOD.toNanos() + 1;
+        long allowed = 0;
+        for (Future<Integer> result : results) {
+            allowed += result.get();
+        }
+
+        long limit = RateLimitBucketStore.CAPACITY + tolerance + refilled;
+        assertTrue(allowed >= RateLimitBucketStore.CAPACITY, "Allowed only " + allowed + " requests");
+        assertTrue(allowed <= limit, "Allowed " + allowed + " requests, more than " + limit);
+    }
+
+    private RateLimitBucketStore instance(long prefetchTokens) {
+        JdbcTemplate instanceTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        JdbcBucketProxyManager proxyManager = new JdbcBucketProxyManager(
+                new RateLimitBucketRepository(instanceTemplate), Duration.ofMinutes(1));
+        return new RateLimitBucketStore(100, Duration.ofMinutes(1), proxyManager, prefetchTokens,
+                Duration.ofSeconds(1));
+    }
+}
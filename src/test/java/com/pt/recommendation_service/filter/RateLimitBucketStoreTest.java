@@ -0,0 +1,86 @@
+package com.pt.recommendation_service.filter;
+
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitBucketStoreTest {
+
+    @Test
+    void resolveBucket_returnsSameBucketForSameKey() {
+        RateLimitBucketStore store = new RateLimitBucketStore(100, Duration.ofMinutes(1));
+
+        Bucket bucket = store.resolveBucket("10.0.0.1");
+
+        assertSame(bucket, store.resolveBucket("10.0.0.1"));
+        assertNotSame(bucket, store.resolveBucket("10.0.0.2"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void resolveBucket_keepsLimitWhileClientIsActive() {
+        RateLimitBucketStore store = new RateLimitBucketStore(100, Duration.ofMinutes(1));
+
+        for (int i = 0; i < RateLimitBucketStore.CAPACITY; i++) {
+            assertTrue(store.resolveBucket("10.0.0.1").tryConsume(1));
+        }
+
+        assertFalse(store.resolveBucket("10.0.0.1").tryConsume(1));
+    }
+
+    @Test
+    void resolveBucket_expiresIdleBucketsAfterRefillPeriod() {
+        AtomicLong nanos = new AtomicLong();
+        RateLimitBucketStore store = new RateLimitBucketStore(100, Duration.ofSeconds(1), nanos::get);
+        Bucket bucket = store.resolveBucket("10.0.0.1");
+
+        nanos.addAndGet(Duration.ofSeconds(30).toNanos());
+        store.cleanUp();
+        assertSame(bucket, store.resolveBucket("10.0.0.1"));
+
+        nanos.addAndGet(RateLimitBucketStore.REFILL_PERIOD.toNanos() + 1);
+        store.cleanUp();
+        assertEquals(0, store.size());
+        assertEquals(1, store.evictionCount());
+    }
+
+    @Test
+    void resolveBucket_staysBoundedUnderMillionsOfUniqueKeys() throws Exception {
+        int maxKeys = 10_000;
+        int threads = 8;
+        int keysPerThread = 250_000;
+        RateLimitBucketStore store = new RateLimitBucketStore(maxKeys, Duration.ofMinutes(1));
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < keysPerThread; i++) {
+                        store.resolveBucket(thread + ":" + i).tryConsume(1);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        store.cleanUp();
+
+        assertTrue(store.size() <= maxKeys, () -> "Store holds " + store.size() + " buckets");
+        assertTrue(store.evictionCount() >= (long) threads * keysPerThread - maxKeys);
+    }
+}
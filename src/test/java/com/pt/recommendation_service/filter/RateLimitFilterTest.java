@@ -0,0 +1,56 @@
+package com.pt.recommendation_service.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+
+    private final RateLimitBucketStore bucketStore = new RateLimitBucketStore(100, Duration.ofMinutes(1));
+    private final RateLimitFilter filter = new RateLimitFilter(bucketStore);
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    @Test
+    void doFilter_rejectsRequestsOverLimitWithTooManyRequests() throws Exception {
+        for (int i = 0; i < RateLimitBucketStore.CAPACITY; i++) {
+            assertEquals(200, filter("10.0.0.1").getStatus());
+        }
+
+        MockHttpServletResponse rejected = filter("10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("Too Many Requests", rejected.getContentAsString());
+        assertEquals(200, filter("10.0.0.2").getStatus());
+        assertEquals(1, filter.rejectedCount());
+    }
+
+    @Test
+    void bindTo_publishesRejectionsAndBuckets() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        for (int i = 0; i <= RateLimitBucketStore.CAPACITY + 1; i++) {
+            filter("10.0.0.1");
+        }
+        filter("10.0.0.2");
+
+        assertEquals(2, registry.get("rate.limit.rejected").functionCounter().count());
+        assertEquals(2, registry.get("rate.limit.buckets").gauge().value());
+        assertEquals(0, registry.get("rate.limit.evictions").functionCounter().count());
+    }
+
+    private MockHttpServletResponse filter(String address) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cryptos/BTC/stats");
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
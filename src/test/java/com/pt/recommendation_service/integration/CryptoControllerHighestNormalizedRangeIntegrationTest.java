@@ -2,6 +2,7 @@ package com.pt.recommendation_service.integration;
 
 import com.pt.recommendation_service.entity.Price;
 import com.pt.recommendation_service.repository.PriceRepository;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -28,6 +30,9 @@ class CryptoControllerHighestNormalizedRangeIntegrationTest {
     @Autowired
     private PriceRepository priceRepository;
 
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
@@ -35,31 +40,13 @@ class CryptoControllerHighestNormalizedRangeIntegrationTest {
         priceRepository.deleteAll();
 
         // 2022-01-01
-        Price btc1 = new Price();
-        btc1.setSymbol("BTC");
-        btc1.setPrice(100.0);
-        btc1.setDateTime(LocalDateTime.of(2022, 1, 1, 0, 0));
-
-        Price btc2 = new Price();
-        btc2.setSymbol("BTC");
-        btc2.setPrice(200.0);
-        btc2.setDateTime(LocalDateTime.of(2022, 1, 1, 12, 0));
-
-        Price eth1 = new Price();
-        eth1.setSymbol("ETH");
-        eth1.setPrice(50.0);
-        eth1.setDateTime(LocalDateTime.of(2022, 1, 1, 1, 0));
-
-        Price eth2 = new Price();
-        eth2.setSymbol("ETH");
-        eth2.setPrice(100.0);
-        eth2.setDateTime(LocalDateTime.of(2022, 1, 1, 13, 0));
+        Price btc1 = price("BTC", 100.0, LocalDateTime.of(2022, 1, 1, 0, 0));
+        Price btc2 = price("BTC", 200.0, LocalDateTime.of(2022, 1, 1, 12, 0));
+        Price eth1 = price("ETH", 50.0, LocalDateTime.of(2022, 1, 1, 1, 0));
+        Price eth2 = price("ETH", 100.0, LocalDateTime.of(2022, 1, 1, 13, 0));
 
         // 2022-01-02 (másik nap, ne legyen találat)
-        Price btc3 = new Price();
-        btc3.setSymbol("BTC");
-        btc3.setPrice(300.0);
-        btc3.setDateTime(LocalDateTime.of(2022, 1, 2, 0, 0));
+        Price btc3 = price("BTC", 300.0, LocalDateTime.of(2022, 1, 2, 0, 0));
 
         priceRepository.save(btc1);
         priceRepository.save(btc2);
@@ -95,4 +82,12 @@ class CryptoControllerHighestNormalizedRangeIntegrationTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("No price data found for date")));
     }
+
+    private Price price(String symbol, double value, LocalDateTime dateTime) {
+        Price price = new Price();
+        price.setSymbolId(symbolRegistry.find(symbol).id());
+        price.setPrice(value);
+        price.setEpochMillis(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli());
+        return price;
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.pt.recommendation_service.integration;
 
 import com.pt.recommendation_service.entity.Price;
 import com.pt.recommendation_service.repository.PriceRepository;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -28,31 +30,19 @@ class CryptoControllerNormalizedRangeIntegrationTest {
     @Autowired
     private PriceRepository priceRepository;
 
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
 
         priceRepository.deleteAll();
 
-        Price btc1 = new Price();
-        btc1.setSymbol("BTC");
-        btc1.setPrice(100.0);
-        btc1.setDateTime(LocalDateTime.of(2022, 1, 1, 0, 0));
-
-        Price btc2 = new Price();
-        btc2.setSymbol("BTC");
-        btc2.setPrice(200.0);
-        btc2.setDateTime(LocalDateTime.of(2022, 1, 2, 0, 0));
-
-        Price eth1 = new Price();
-        eth1.setSymbol("ETH");
-        eth1.setPrice(50.0);
-        eth1.setDateTime(LocalDateTime.of(2022, 1, 1, 0, 0));
-
-        Price eth2 = new Price();
-        eth2.setSymbol("ETH");
-        eth2.setPrice(100.0);
-        eth2.setDateTime(LocalDateTime.of(2022, 1, 2, 0, 0));
+        Price btc1 = price("BTC", 100.0, LocalDateTime.of(2022, 1, 1, 0, 0));
+        Price btc2 = price("BTC", 200.0, LocalDateTime.of(2022, 1, 2, 0, 0));
+        Price eth1 = price("ETH", 50.0, LocalDateTime.of(2022, 1, 1, 0, 0));
+        Price eth2 = price("ETH", 100.0, LocalDateTime.of(2022, 1, 2, 0, 0));
 
         priceRepository.save(btc1);
         priceRepository.save(btc2);
@@ -72,6 +62,53 @@ class CryptoControllerNormalizedRangeIntegrationTest {
                 .andExpect(jsonPath("$[1].normalizedRange", is(1.0)));
     }
 
+    @Test
+    void getNormalizedRanges_withWindow_onlyConsidersPricesInWindow() throws Exception {
+        Price btc3 = price("BTC", 400.0, LocalDateTime.of(2022, 1, 3, 0, 0));
+        priceRepository.save(btc3);
+
+        mockMvc.perform(get("/cryptos/normalized-range")
+                        .param("from", "2022-01-02")
+                        .param("to", "2022-01-04")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].symbol", is("BTC")))
+                .andExpect(jsonPath("$[0].normalizedRange", is(1.0)))
+                .andExpect(jsonPath("$[1].symbol", is("ETH")))
+                .andExpect(jsonPath("$[1].normalizedRange", is(0.0)));
+    }
+
+    @Test
+    void getNormalizedRanges_withInvalidWindow_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/cryptos/normalized-range")
+                        .param("from", "2022-01-04")
+                        .param("to", "2022-01-02")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getNormalizedRanges_withPage_returnsOnlyThatPage() throws Exception {
+        // Equal ranges are ranked by symbol id, so BTC comes before ETH
+        mockMvc.perform(get("/cryptos/normalized-range")
+                        .param("offset", "1")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].symbol", is("ETH")))
+                .andExpect(jsonPath("$[0].normalizedRange", is(1.0)));
+    }
+
+    @Test
+    void getNormalizedRanges_withInvalidPage_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/cryptos/normalized-range")
+                        .param("limit", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getNormalizedRanges_returnsEmptyListIfNoPrices() throws Exception {
         priceRepository.deleteAll();
@@ -81,4 +118,12 @@ class CryptoControllerNormalizedRangeIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
+
+    private Price price(String symbol, double value, LocalDateTime dateTime) {
+        Price price = new Price();
+        price.setSymbolId(symbolRegistry.find(symbol).id());
+        price.setPrice(value);
+        price.setEpochMillis(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli());
+        return price;
+    }
 }
\ No newline at end of file
@@ -2,18 +2,22 @@ package com.pt.recommendation_service.integration;
 
 import com.pt.recommendation_service.entity.Price;
 import com.pt.recommendation_service.repository.PriceRepository;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,31 +32,19 @@ class CryptoControllerStatsIntegrationTest {
     @Autowired
     private PriceRepository priceRepository;
 
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
 
         priceRepository.deleteAll();
 
-        Price oldest = new Price();
-        oldest.setSymbol("BTC");
-        oldest.setPrice(100.0);
-        oldest.setDateTime(LocalDateTime.of(2022, 1, 1, 0, 0));
-
-        Price newest = new Price();
-        newest.setSymbol("BTC");
-        newest.setPrice(200.0);
-        newest.setDateTime(LocalDateTime.of(2022, 1, 2, 0, 0));
-
-        Price min = new Price();
-        min.setSymbol("BTC");
-        min.setPrice(90.0);
-        min.setDateTime(LocalDateTime.of(2022, 1, 1, 12, 0));
-
-        Price max = new Price();
-        max.setSymbol("BTC");
-        max.setPrice(210.0);
-        max.setDateTime(LocalDateTime.of(2022, 1, 2, 12, 0));
+        Price oldest = price("BTC", 100.0, LocalDateTime.of(2022, 1, 1, 0, 0));
+        Price newest = price("BTC", 200.0, LocalDateTime.of(2022, 1, 2, 0, 0));
+        Price min = price("BTC", 90.0, LocalDateTime.of(2022, 1, 1, 12, 0));
+        Price max = price("BTC", 210.0, LocalDateTime.of(2022, 1, 2, 12, 0));
 
         priceRepository.save(oldest);
         priceRepository.save(newest);
@@ -72,6 +64,57 @@ class CryptoControllerStatsIntegrationTest {
                 .andExpect(jsonPath("$.max", is(210.0)));
     }
 
+    @Test
+    void getStats_returnsNotModifiedForMatchingETag() throws Exception {
+        String etag = mockMvc.perform(get("/cryptos/BTC/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/cryptos/BTC/stats")
+                        .header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        Price newer = price("BTC", 220.0, LocalDateTime.of(2022, 1, 3, 0, 0));
+        priceRepository.save(newer);
+
+        mockMvc.perform(get("/cryptos/BTC/stats")
+                        .header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.newest", is(220.0)));
+    }
+
+    @Test
+    void getStatsForSymbols_returnsStatsOfAllSymbolsWithPrices() throws Exception {
+        mockMvc.perform(get("/cryptos/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].symbol", is("BTC")))
+                .andExpect(jsonPath("$[0].min", is(90.0)))
+                .andExpect(jsonPath("$[0].max", is(210.0)));
+    }
+
+    @Test
+    void getStatsForSymbols_returnsStatsOfRequestedSymbols() throws Exception {
+        mockMvc.perform(get("/cryptos/stats")
+                        .param("symbols", "eth,BTC")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].oldest", is(100.0)));
+
+        mockMvc.perform(get("/cryptos/stats")
+                        .param("symbols", "BTC,INVALID")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Crypto is not supported")));
+    }
+
     @Test
     void getStats_returnsErrorForUnsupportedSymbol() throws Exception {
         mockMvc.perform(get("/cryptos/INVALID/stats")
@@ -79,4 +122,91 @@ class CryptoControllerStatsIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string(containsString("Crypto is not supported")));
     }
+
+    @Test
+    void getCandles_returnsDailyCandles() throws Exception {
+        mockMvc.perform(get("/cryptos/btc/candles")
+                        .param("interval", "1d")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].timestamp", is(1640995200000L)))
+                .andExpect(jsonPath("$[0].open", is(100.0)))
+                .andExpect(jsonPath("$[0].high", is(100.0)))
+                .andExpect(jsonPath("$[0].low", is(90.0)))
+                .andExpect(jsonPath("$[0].close", is(90.0)))
+                .andExpect(jsonPath("$[0].count", is(2)))
+                .andExpect(jsonPath("$[1].open", is(200.0)))
+                .andExpect(jsonPath("$[1].close", is(210.0)));
+    }
+
+    @Test
+    void getCandles_withWindow_returnsBucketsStartingInWindow() throws Exception {
+        mockMvc.perform(get("/cryptos/BTC/candles")
+                        .param("interval", "12h")
+                        .param("from", "2022-01-01T12:00:00")
+                        .param("to", "2022-01-03")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].open", is(90.0)))
+                .andExpect(jsonPath("$[2].close", is(210.0)));
+    }
+
+    @Test
+    void getCandles_withInvalidInterval_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/cryptos/BTC/candles")
+                        .param("interval", "1y")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getPrices_streamsPricesInWindow() throws Exception {
+        MvcResult started = mockMvc.perform(get("/cryptos/BTC/prices")
+                        .param("from", "2022-01-01T12:00:00")
+                        .param("to", "2022-01-03")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].timestamp", is(1641038400000L)))
+                .andExpect(jsonPath("$[0].price", is(90.0)))
+                .andExpect(jsonPath("$[2].price", is(210.0)));
+    }
+
+    @Test
+    void getPrices_withMaxPoints_keepsFirstAndLastPrice() throws Exception {
+        MvcResult started = mockMvc.perform(get("/cryptos/BTC/prices")
+                        .param("maxPoints", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].price", is(100.0)))
+                .andExpect(jsonPath("$[1].price", is(210.0)));
+    }
+
+    @Test
+    void getPrices_withInvalidMaxPoints_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/cryptos/BTC/prices")
+                        .param("maxPoints", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Price price(String symbol, double value, LocalDateTime dateTime) {
+        Price price = new Price();
+        price.setSymbolId(symbolRegistry.find(symbol).id());
+        price.setPrice(value);
+        price.setEpochMillis(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli());
+        return price;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.pt.recommendation_service.integration;
+
+import com.pt.recommendation_service.entity.Price;
+import com.pt.recommendation_service.repository.PriceRepository;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+class MetricsIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        priceRepository.deleteAll();
+
+        Price price = new Price();
+        price.setSymbolId(symbolRegistry.find("BTC").id());
+        price.setPrice(100.0);
+        price.setEpochMillis(LocalDateTime.of(2022, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+        priceRepository.save(price);
+    }
+
+    @Test
+    void getStats_isTimedPerServiceMethod() throws Exception {
+        long before = meterRegistry.get("price.service").tag("method", "getStatsForSymbol").timer().count();
+
+        mockMvc.perform(get("/cryptos/BTC/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/cryptos/ABC/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(before + 2, meterRegistry.get("price.service").tag("method", "getStatsForSymbol").timer().count());
+    }
+
+    @Test
+    void metricsEndpoint_listsServiceLoaderAndRateLimitMeters() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", hasItems("price.service", "csv.loader.rows", "csv.loader.rejected",
+                        "prices.ingest.rows", "prices.writer.queue.size", "rate.limit.rejected",
+                        "rate.limit.buckets")));
+    }
+}
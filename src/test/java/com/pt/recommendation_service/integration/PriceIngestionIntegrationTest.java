@@ -0,0 +1,93 @@
+package com.pt.recommendation_service.integration;
+
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.repository.PriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class PriceIngestionIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private PriceBatchRepository batchRepository;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        priceRepository.deleteAll();
+    }
+
+    @Test
+    void ingestCsv_writesRowsAndUpdatesStats() throws Exception {
+        mockMvc.perform(post("/cryptos/prices")
+                        .contentType("text/csv")
+                        .content("""
+                                timestamp,symbol,price
+                                1641009600000,BTC,46813.21
+                                1641020400000,BTC,46979.61
+                                1641031200000,ABC,1.0
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)));
+        assertEquals(2, batchRepository.count(PriceSource.INGEST));
+        assertEquals(0, batchRepository.count(PriceSource.CSV));
+
+        mockMvc.perform(get("/cryptos/BTC/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.oldest", is(46813.21)))
+                .andExpect(jsonPath("$.newest", is(46979.61)));
+    }
+
+    @Test
+    void ingestNdjson_writesRowsAndUpdatesStats() throws Exception {
+        mockMvc.perform(post("/cryptos/prices")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("""
+                                {"timestamp":1641009600000,"symbol":"ETH","price":3715.32}
+                                {"timestamp":1641020400000,"symbol":"ETH","price":3718.67}
+                                not json
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)));
+
+        mockMvc.perform(get("/cryptos/ETH/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.min", is(3715.32)))
+                .andExpect(jsonPath("$.max", is(3718.67)));
+    }
+
+    @Test
+    void ingest_rejectsUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/cryptos/prices")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<prices/>"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
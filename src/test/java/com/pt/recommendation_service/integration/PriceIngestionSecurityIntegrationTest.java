@@ -0,0 +1,93 @@
+package com.pt.recommendation_service.integration;
+
+import com.pt.recommendation_service.repository.PriceRepository;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.security.autoconfigure.SecurityProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class PriceIngestionSecurityIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter springSecurityFilterChain;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private SecurityProperties securityProperties;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(springSecurityFilterChain)
+                .build();
+
+        priceRepository.deleteAll();
+    }
+
+    @Test
+    void ingest_rejectsAnonymousRequests() throws Exception {
+        mockMvc.perform(ingest())
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(0, priceRepository.count());
+    }
+
+    @Test
+    void ingest_rejectsInvalidCredentials() throws Exception {
+        mockMvc.perform(ingest().header(HttpHeaders.AUTHORIZATION, basic("ingest", "wrong")))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(0, priceRepository.count());
+    }
+
+    @Test
+    void ingest_acceptsIngestUser() throws Exception {
+        String password = securityProperties.getUser().getPassword();
+        mockMvc.perform(ingest().header(HttpHeaders.AUTHORIZATION, basic("ingest", password)))
+                .andExpect(status().isOk());
+
+        assertEquals(1, priceRepository.count());
+    }
+
+    @Test
+    void readEndpoints_stayPublic() throws Exception {
+        mockMvc.perform(get("/cryptos/normalized-range"))
+                .andExpect(status().isOk());
+    }
+
+    private static MockHttpServletRequestBuilder ingest() {
+        return post("/cryptos/prices")
+                .contentType("text/csv")
+                .content("1641009600000,BTC,46813.21\n");
+    }
+
+    private static String basic(String user, String password) {
+        String credentials = user + ":" + password;
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+}
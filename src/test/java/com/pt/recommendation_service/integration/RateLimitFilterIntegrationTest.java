@@ -3,6 +3,8 @@ package com.pt.recommendation_service.integration;
 import com.pt.recommendation_service.entity.Price;
 import com.pt.recommendation_service.filter.RateLimitFilter;
 import com.pt.recommendation_service.repository.PriceRepository;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +15,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -31,6 +35,12 @@ class RateLimitFilterIntegrationTest {
     @Autowired
     private PriceRepository priceRepository;
 
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context)
@@ -39,10 +49,7 @@ class RateLimitFilterIntegrationTest {
 
         priceRepository.deleteAll();
 
-        Price btc1 = new Price();
-        btc1.setSymbol("BTC");
-        btc1.setPrice(100.0);
-        btc1.setDateTime(LocalDateTime.of(2022, 1, 1, 0, 0));
+        Price btc1 = price("BTC", 100.0, LocalDateTime.of(2022, 1, 1, 0, 0));
         priceRepository.save(btc1);
     }
 
@@ -50,6 +57,7 @@ class RateLimitFilterIntegrationTest {
     void rateLimit_blocksAfterThreshold() throws Exception {
         String ip = "192.168.1.100";
         int limit = 60;
+        double rejectedBefore = meterRegistry.get("rate.limit.rejected").functionCounter().count();
 
         for (int i = 0; i < limit; i++) {
             mockMvc.perform(get("/cryptos/normalized-range")
@@ -63,5 +71,14 @@ class RateLimitFilterIntegrationTest {
                         .header("X-Forwarded-For", ip))
                 .andExpect(status().isTooManyRequests())
                 .andExpect(content().string("Too Many Requests"));
+        assertEquals(rejectedBefore + 1, meterRegistry.get("rate.limit.rejected").functionCounter().count());
+    }
+
+    private Price price(String symbol, double value, LocalDateTime dateTime) {
+        Price price = new Price();
+        price.setSymbolId(symbolRegistry.find(symbol).id());
+        price.setPrice(value);
+        price.setEpochMillis(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli());
+        return price;
     }
 }
\ No newline at end of file
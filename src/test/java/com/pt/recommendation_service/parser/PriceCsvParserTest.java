@@ -0,0 +1,141 @@
+package com.pt.recommendation_service.parser;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PriceCsvParserTest {
+
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+
+    private final RecordingSink sink = new RecordingSink();
+
+    @Test
+    void parse_skipsHeaderAndPassesRecordsToSink() throws Exception {
+        long lines = parse(new PriceCsvParser(SYMBOLS, sink), """
+                timestamp,symbol,price
+                1640995200000,BTC,46813.21
+                1641009600000,eth,3715.32
+                """);
+
+        assertEquals(3, lines);
+        assertEquals(List.of(
+                "BTC 1640995200000 46813.21",
+                "ETH 1641009600000 3715.32"), sink.records);
+    }
+
+    @Test
+    void parse_handlesLinesSpanningBufferBoundariesAndCrLf() throws Exception {
+        StringBuilder csv = new StringBuilder("timestamp,symbol,price\r\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append(1640995200000L + i).append(",XRP,").append(i).append(".25\r\n");
+        }
+        csv.append("1641000000000,DOGE,0.1701");
+
+        parse(new PriceCsvParser(SYMBOLS, sink, 8), csv.toString());
+
+        assertEquals(101, sink.records.size());
+        assertEquals("XRP 1640995200099 99.25", sink.records.get(99));
+        assertEquals("DOGE 1641000000000 0.1701", sink.records.get(100));
+    }
+
+    @Test
+    void parse_readsChunkWithoutHeader_countingLinesFromChunkStart() {
+        byte[] file = """
+                timestamp,symbol,price
+                1640995200000,BTC,46813.21
+                1641009600000,ETH,3715.32
+                1641009600000,ETH,x
+                """.getBytes(StandardCharsets.UTF_8);
+        int chunkStart = "timestamp,symbol,price\n1640995200000,BTC,46813.21\n".length();
+
+        long lines = new PriceCsvParser(SYMBOLS, sink, 8).parse(ByteBuffer.wrap(file, chunkStart, file.length - chunkStart), false);
+
+        assertEquals(2, lines);
+        assertEquals(List.of("ETH 1641009600000 3715.32"), sink.records);
+        assertEquals(List.of("2 malformed 1641009600000,ETH,x: For input string: \"x\""), sink.errors);
+    }
+
+    @Test
+    void parse_reportsUnsupportedSymbolsAndMalformedLines() throws Exception {
+        parse(new PriceCsvParser(SYMBOLS, sink), """
+                timestamp,symbol,price
+                1640995200000,NEW_STUFF,1.0
+                1640995200000,ETH,not_a_number
+                not_a_timestamp,ETH,1.0
+                1640995200000
+                1640995200000,LTC,148.1
+                """);
+
+        assertEquals(List.of("LTC 1640995200000 148.1"), sink.records);
+        assertEquals(List.of(
+                "2 unsupported NEW_STUFF",
+                "3 malformed 1640995200000,ETH,not_a_number: For input string: \"not_a_number\"",
+                "4 malformed not_a_timestamp,ETH,1.0: For input string: \"not_a_timestamp\"",
+                "5 malformed 1640995200000: Expected 3 columns: timestamp,symbol,price"), sink.errors);
+    }
+
+    @Test
+    void parseDouble_matchesDoubleParseDouble() {
+        Random random = new Random(7);
+        List<String> values = new ArrayList<>(List.of("0", "-0.0", "+1.5", "1e3", "12345678901234567890.5",
+                "0.000000000000000000000000123", "9007199254740993", ".5", "5."));
+        for (int i = 0; i < 10_000; i++) {
+            values.add(Double.toString(random.nextDouble() * 100_000));
+            values.add(String.format(Locale.ROOT, "%.8f", random.nextDouble()));
+        }
+
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(value), PriceCsvParser.parseDouble(bytes, 0, bytes.length), value);
+        }
+        assertThrows(NumberFormatException.class, () -> PriceCsvParser.parseDouble(new byte[0], 0, 0));
+        assertThrows(NumberFormatException.class, () -> PriceCsvParser.parseDouble(new byte[]{'.'}, 0, 1));
+    }
+
+    @Test
+    void parseLong_matchesLongParseLong() {
+        for (String value : List.of("0", "1640995200000", "-42", "+7", "9223372036854775807", "-9223372036854775808")) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Long.parseLong(value), PriceCsvParser.parseLong(bytes, 0, bytes.length), value);
+        }
+        assertThrows(NumberFormatException.class, () -> PriceCsvParser.parseLong(new byte[]{'1', 'x'}, 0, 2));
+        assertThrows(NumberFormatException.class, () -> PriceCsvParser.parseLong(new byte[]{'-'}, 0, 1));
+    }
+
+    private static long parse(PriceCsvParser parser, String csv) throws Exception {
+        return parser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static final class RecordingSink implements PriceRecordSink {
+
+        private final List<String> records = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        @Override
+        public void accept(CryptoSymbol crypto, long timestamp, double price) {
+            records.add(crypto + " " + timestamp + " " + price);
+        }
+
+        @Override
+        public void unsupportedSymbol(long lineNumber, String symbol) {
+            errors.add(lineNumber + " unsupported " + symbol);
+        }
+
+        @Override
+        public void malformedLine(long lineNumber, String line, String error) {
+            errors.add(lineNumber + " malformed " + line + ": " + error);
+        }
+    }
+}
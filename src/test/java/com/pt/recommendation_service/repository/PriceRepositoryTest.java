@@ -0,0 +1,177 @@
+package com.pt.recommendation_service.repository;
+
+import com.pt.recommendation_service.entity.Price;
+import com.pt.recommendation_service.entity.Symbol;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PriceRepositoryTest {
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private SymbolRepository symbolRepository;
+
+    @Autowired
+    private SymbolRegistry symbolRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int btc;
+    private int eth;
+
+    @BeforeEach
+    void setUp() {
+        btc = symbolRegistry.find("BTC").id();
+        eth = symbolRegistry.find("ETH").id();
+        priceRepository.deleteAll();
+
+        priceRepository.save(price(btc, 100.0, LocalDateTime.of(2022, 1, 1, 0, 0)));
+        priceRepository.save(price(btc, 200.0, LocalDateTime.of(2022, 1, 1, 12, 0)));
+        priceRepository.save(price(btc, 300.0, LocalDateTime.of(2022, 1, 2, 0, 0)));
+        priceRepository.save(price(eth, 50.0, LocalDateTime.of(2022, 1, 1, 1, 0)));
+        priceRepository.save(price(eth, 75.0, LocalDateTime.of(2022, 1, 1, 13, 0)));
+    }
+
+    @Test
+    void symbolTable_holdsIdOfEverySupportedSymbol() {
+        for (CryptoSymbol crypto : symbolRegistry.symbols()) {
+            Symbol row = symbolRepository.findById(crypto.id()).orElseThrow();
+            assertEquals(crypto.name(), row.getName());
+        }
+    }
+
+    @Test
+    void findPriceRanges_returnsMinAndMaxPerSymbol() {
+        List<SymbolPriceRange> ranges = sorted(priceRepository.findPriceRanges());
+
+        assertEquals(List.of(
+                new SymbolPriceRange(btc, 100.0, 300.0),
+                new SymbolPriceRange(eth, 50.0, 75.0)), ranges);
+    }
+
+    @Test
+    void findPriceRangesBetween_onlyAggregatesPricesInRange() {
+        List<SymbolPriceRange> ranges = sorted(priceRepository.findPriceRangesBetween(
+                epochMilli(LocalDateTime.of(2022, 1, 1, 0, 0)), epochMilli(LocalDateTime.of(2022, 1, 2, 0, 0))));
+
+        assertEquals(List.of(
+                new SymbolPriceRange(btc, 100.0, 200.0),
+                new SymbolPriceRange(eth, 50.0, 75.0)), ranges);
+    }
+
+    @Test
+    void findPriceStats_returnsOldestNewestMinAndMaxPerSymbol() {
+        List<SymbolPriceStats> stats = priceRepository.findPriceStats().stream()
+                .sorted(Comparator.comparing(SymbolPriceStats::getSymbolId))
+                .toList();
+
+        assertEquals(2, stats.size());
+        assertStats(stats.get(0), btc, 100.0, 300.0, 100.0, 300.0);
+        assertStats(stats.get(1), eth, 50.0, 75.0, 50.0, 75.0);
+    }
+
+    @Test
+    void findFirstBySymbolIdOrderByEpochMillis_returnsOldestAndNewestRow() {
+        assertEquals(new PriceRow(btc, epochMilli(LocalDateTime.of(2022, 1, 1, 0, 0)), 100.0),
+                priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(btc));
+        assertEquals(new PriceRow(btc, epochMilli(LocalDateTime.of(2022, 1, 2, 0, 0)), 300.0),
+                priceRepository.findFirstBySymbolIdOrderByEpochMillisDesc(btc));
+        assertNull(priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(symbolRegistry.find("XRP").id()));
+    }
+
+    @Test
+    void findFirstBySymbolIdOrderByEpochMillis_usesSymbolTimeIndex() {
+        assertPlanUsesIndex("SELECT * FROM price_point WHERE symbol_id = " + btc
+                        + " ORDER BY epoch_millis ASC FETCH FIRST 1 ROWS ONLY",
+                "IDX_PRICE_POINT_SYMBOL_TIME");
+        assertPlanUsesIndex("SELECT * FROM price_point WHERE symbol_id = " + btc
+                        + " ORDER BY epoch_millis DESC FETCH FIRST 1 ROWS ONLY",
+                "IDX_PRICE_POINT_SYMBOL_TIME");
+    }
+
+    @Test
+    void findMinAndMaxPriceBySymbolId_useSymbolPriceIndex() {
+        assertPlanUsesIndex("SELECT MIN(price) FROM price_point WHERE symbol_id = " + btc,
+                "IDX_PRICE_POINT_SYMBOL_PRICE");
+        assertPlanUsesIndex("SELECT MAX(price) FROM price_point WHERE symbol_id = " + btc,
+                "IDX_PRICE_POINT_SYMBOL_PRICE");
+    }
+
+    @Test
+    void findMinAndMaxPriceBySymbolId_returnPriceExtremes() {
+        assertEquals(100.0, priceRepository.findMinPriceBySymbolId(btc));
+        assertEquals(300.0, priceRepository.findMaxPriceBySymbolId(btc));
+        assertNull(priceRepository.findMaxPriceBySymbolId(symbolRegistry.find("XRP").id()));
+    }
+
+    @Test
+    @Transactional
+    void findByEpochMillisRange_streamsRowsInRange() {
+        try (Stream<PriceRow> rows = priceRepository.findByEpochMillisGreaterThanEqualAndEpochMillisLessThan(
+                epochMilli(LocalDateTime.of(2022, 1, 1, 12, 0)), epochMilli(LocalDateTime.of(2022, 1, 2, 0, 0)))) {
+            assertEquals(List.of(200.0, 75.0),
+                    rows.sorted(Comparator.comparingLong(PriceRow::epochMillis)).map(PriceRow::price).toList());
+        }
+    }
+
+    @Test
+    void findByEpochMillisRange_usesTimeIndex() {
+        long start = epochMilli(LocalDateTime.of(2022, 1, 1, 0, 0));
+        long end = epochMilli(LocalDateTime.of(2022, 1, 2, 0, 0));
+        assertPlanUsesIndex("SELECT * FROM price_point WHERE epoch_millis >= " + start + " AND epoch_millis < " + end,
+                "IDX_PRICE_POINT_TIME");
+        assertPlanUsesIndex("SELECT symbol_id, MIN(price), MAX(price) FROM price_point "
+                        + "WHERE epoch_millis >= " + start + " AND epoch_millis < " + end + " GROUP BY symbol_id",
+                "IDX_PRICE_POINT_TIME");
+    }
+
+    private void assertPlanUsesIndex(String sql, String indexName) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertTrue(plan.toUpperCase().contains(indexName), () -> "Expected " + indexName + " in plan: " + plan);
+    }
+
+    private static List<SymbolPriceRange> sorted(List<SymbolPriceRange> ranges) {
+        return ranges.stream().sorted(Comparator.comparing(SymbolPriceRange::symbolId)).toList();
+    }
+
+    private static Price price(int symbolId, double value, LocalDateTime dateTime) {
+        Price price = new Price();
+        price.setSymbolId(symbolId);
+        price.setPrice(value);
+        price.setEpochMillis(epochMilli(dateTime));
+        return price;
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static void assertStats(SymbolPriceStats stats, int symbolId, double oldest, double newest,
+                                    double min, double max) {
+        assertEquals(symbolId, stats.getSymbolId());
+        assertEquals(oldest, stats.getOldest());
+        assertEquals(newest, stats.getNewest());
+        assertEquals(min, stats.getMinPrice());
+        assertEquals(max, stats.getMaxPrice());
+    }
+}
@@ -0,0 +1,79 @@
+package com.pt.recommendation_service.repository;
+
+import com.pt.recommendation_service.entity.Price;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PriceRowsTest {
+
+    private static final int ROWS = 100_000;
+
+    @Test
+    void add_growsAndKeepsRecordsInOrder() {
+        PriceRows rows = new PriceRows(1);
+
+        for (int i = 0; i < 100; i++) {
+            rows.add(i % 5, 1640995200000L + i, i * 1.5);
+        }
+
+        assertEquals(100, rows.size());
+        assertEquals(3, rows.symbolId(98));
+        assertEquals(1640995200098L, rows.timestamp(98));
+        assertEquals(147.0, rows.price(98));
+    }
+
+    @Test
+    void clear_removesAllRecords() {
+        PriceRows rows = new PriceRows(4);
+        rows.add(0, 1640995200000L, 1.0);
+
+        rows.clear();
+
+        assertTrue(rows.isEmpty());
+        rows.add(1, 1640995260000L, 2.0);
+        assertEquals(1, rows.symbolId(0));
+    }
+
+    @Test
+    void add_allocatesLessThanHalfOfTheEntities() {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        List<Price> entities = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Price price = new Price();
+            price.setId((long) i);
+            price.setSymbolId(i % 5);
+            price.setEpochMillis(1640995200000L + i);
+            price.setPrice(i);
+            entities.add(price);
+        }
+        long entityBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        PriceRows rows = new PriceRows(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(i % 5, 1640995200000L + i, i);
+        }
+        long rowBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(entities.size(), rows.size());
+        // 20 bytes per record, against about 60 for the entity, its boxed id and the list slot
+        assertTrue(rowBytes * 2 < entityBytes, () -> rowBytes + " bytes for rows, " + entityBytes + " for entities");
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        return threads;
+    }
+}
@@ -0,0 +1,151 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.entity.CsvImport;
+import com.pt.recommendation_service.repository.CsvImportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CsvImportManifestTest {
+
+    private static final String HEADER = "timestamp,symbol,price\n";
+
+    @TempDir
+    private Path dir;
+
+    private final Map<String, CsvImport> entries = new HashMap<>();
+    private CsvImportManifest manifest;
+
+    @BeforeEach
+    void setUp() {
+        CsvImportRepository repository = mock(CsvImportRepository.class);
+        when(repository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(entries.get(invocation.<String>getArgument(0))));
+        when(repository.save(any())).thenAnswer(invocation -> {
+            CsvImport entry = invocation.getArgument(0);
+            entries.put(entry.getFileName(), entry);
+            return entry;
+        });
+        when(repository.findAll()).thenAnswer(invocation -> List.copyOf(entries.values()));
+        manifest = new CsvImportManifest(repository);
+    }
+
+    @Test
+    void resumeOffset_isZeroForNewFile() throws Exception {
+        FileSystemResource resource = write("BTC_values.csv", HEADER + "1640995200000,BTC,42000.0\n");
+
+        assertEquals(0, manifest.resumeOffset(resource));
+    }
+
+    @Test
+    void resumeOffset_isHighWaterMarkForUnchangedOrTouchedFile() throws Exception {
+        FileSystemResource resource = write("BTC_values.csv", HEADER + "1640995200000,BTC,42000.0\n");
+        long size = resource.contentLength();
+        manifest.record(resource, resource.lastModified(), size, 1);
+
+        assertEquals(size, manifest.resumeOffset(resource));
+        touch(resource);
+        assertEquals(size, manifest.resumeOffset(resource));
+    }
+
+    @Test
+    void resumeOffset_isHighWaterMarkForAppendedFile() throws Exception {
+        FileSystemResource resource = write("BTC_values.csv", HEADER + "1640995200000,BTC,42000.0\n");
+        long size = resource.contentLength();
+        manifest.record(resource, resource.lastModified(), size, 1);
+
+        Files.writeString(resource.getFile().toPath(), "1640998800000,BTC,42100.0\n", StandardOpenOption.APPEND);
+        touch(resource);
+
+        assertEquals(size, manifest.resumeOffset(resource));
+    }
+
+    @Test
+    void resumeOffset_isChangedForRewrittenOrTruncatedFile() throws Exception {
+        FileSystemResource rewritten = write("BTC_values.csv", HEADER + "1640995200000,BTC,42000.0\n");
+        FileSystemResource truncated = write("ETH_values.csv", HEADER + "1640995200000,ETH,3200.0\n");
+        manifest.record(rewritten, rewritten.lastModified(), rewritten.contentLength(), 1);
+        manifest.record(truncated, truncated.lastModified(), truncated.contentLength(), 1);
+
+        write("BTC_values.csv", HEADER + "1640995200000,BTC,42999.0\n");
+        touch(rewritten);
+        write("ETH_values.csv", HEADER);
+
+        assertEquals(CsvImportManifest.CHANGED, manifest.resumeOffset(rewritten));
+        assertEquals(CsvImportManifest.CHANGED, manifest.resumeOffset(truncated));
+    }
+
+    @Test
+    void resumeOffset_detectsChangesAtBothEndsOfLargeFiles() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; csv.length() < 4 * CsvImportManifest.SAMPLE_SIZE; i++) {
+            csv.append(1640995200000L + i * 60_000L).append(",BTC,").append(42000 + i).append(".0\n");
+        }
+        String content = csv.toString();
+        FileSystemResource resource = write("BTC_values.csv", content);
+        manifest.record(resource, resource.lastModified(), resource.contentLength(), 1);
+
+        write("BTC_values.csv", content + "1740995200000,BTC,1.0\n");
+        touch(resource);
+        assertEquals(content.length(), manifest.resumeOffset(resource));
+
+        write("BTC_values.csv", content.replaceFirst(",BTC,42000", ",BTC,42001") + "1740995200000,BTC,1.0\n");
+        assertEquals(CsvImportManifest.CHANGED, manifest.resumeOffset(resource));
+
+        int last = content.lastIndexOf(",BTC,");
+        write("BTC_values.csv", content.substring(0, last) + ",ETH," + content.substring(last + 5));
+        touch(resource);
+        assertEquals(CsvImportManifest.CHANGED, manifest.resumeOffset(resource));
+    }
+
+    @Test
+    void record_accumulatesImportedRows() throws Exception {
+        FileSystemResource resource = write("BTC_values.csv", HEADER + "1640995200000,BTC,42000.0\n");
+        manifest.record(resource, resource.lastModified(), resource.contentLength(), 1);
+        Files.writeString(resource.getFile().toPath(), "1640998800000,BTC,42100.0\n", StandardOpenOption.APPEND);
+        manifest.record(resource, resource.lastModified(), resource.contentLength(), 1);
+
+        CsvImport entry = entries.get("BTC_values.csv");
+        assertEquals(2, entry.getImportedRows());
+        assertEquals(resource.contentLength(), entry.getImportedBytes());
+    }
+
+    @Test
+    void hasOtherFiles_detectsDeletedFiles() throws Exception {
+        FileSystemResource resource = write("BTC_values.csv", HEADER);
+        manifest.record(resource, resource.lastModified(), resource.contentLength(), 0);
+
+        assertFalse(manifest.hasOtherFiles(Set.of("BTC_values.csv", "ETH_values.csv")));
+        assertTrue(manifest.hasOtherFiles(Set.of("ETH_values.csv")));
+    }
+
+    private FileSystemResource write(String fileName, String content) throws Exception {
+        Path file = dir.resolve(fileName);
+        Files.writeString(file, content);
+        return new FileSystemResource(file);
+    }
+
+    private static void touch(FileSystemResource resource) throws Exception {
+        Path file = resource.getFile().toPath();
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+    }
+}
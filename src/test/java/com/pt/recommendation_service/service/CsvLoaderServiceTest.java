@@ -1,24 +1,42 @@
 package com.pt.recommendation_service.service;
 
-import com.pt.recommendation_service.entity.Price;
-import com.pt.recommendation_service.repository.PriceRepository;
-import com.pt.recommendation_service.validator.CryptoValidator;
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.repository.PriceRow;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.store.PriceSeries;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.unit.DataSize;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -27,17 +45,37 @@ import static org.mockito.Mockito.when;
 
 class CsvLoaderServiceTest {
 
-    private PriceRepository priceRepository;
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+    private static final CryptoSymbol BTC = SYMBOLS.find("BTC");
+    private static final CryptoSymbol ETH = SYMBOLS.find("ETH");
+    private static final CryptoSymbol XRP = SYMBOLS.find("XRP");
+
+    private PriceBatchRepository batchRepository;
+    private PriceStore priceStore;
     private PathMatchingResourcePatternResolver resolver;
-    private CryptoValidator cryptoValidator;
+    private CsvImportManifest manifest;
     private CsvLoaderService csvLoaderService;
+    private List<List<PriceRow>> insertedBatches;
 
     @BeforeEach
     void setUp() {
-        priceRepository = mock(PriceRepository.class);
+        batchRepository = mock(PriceBatchRepository.class);
+        // The loader reuses its batch after the insert, so the rows are copied when inserted, possibly concurrently
+        insertedBatches = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            PriceRows rows = invocation.getArgument(0);
+            List<PriceRow> batch = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                batch.add(new PriceRow(rows.symbolId(i), rows.timestamp(i), rows.price(i)));
+            }
+            insertedBatches.add(batch);
+            return null;
+        }).when(batchRepository).insertBatch(any());
+        priceStore = new PriceStore(SYMBOLS);
         resolver = mock(PathMatchingResourcePatternResolver.class);
-        cryptoValidator = mock(CryptoValidator.class);
-        csvLoaderService = new CsvLoaderService(priceRepository, resolver, cryptoValidator);
+        manifest = mock(CsvImportManifest.class);
+        csvLoaderService = new CsvLoaderService(batchRepository, priceStore, SYMBOLS, resolver, manifest,
+                1000, 4, "", DataSize.ofMegabytes(64));
     }
 
     @Test
@@ -52,24 +90,69 @@ class CsvLoaderServiceTest {
         when(resource.getInputStream()).thenReturn(inputStream);
 
         when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
-        when(cryptoValidator.isSymbolValid("BTC")).thenReturn(true);
-        when(cryptoValidator.isSymbolValid("ETH")).thenReturn(true);
 
         csvLoaderService.run(mock(ApplicationArguments.class));
 
-        ArgumentCaptor<Price> captor = ArgumentCaptor.forClass(Price.class);
-        verify(priceRepository, times(2)).save(captor.capture());
-        List<Price> savedPrices = captor.getAllValues();
+        verify(batchRepository, times(1)).insertBatch(any());
+        List<PriceRow> savedPrices = insertedBatches.getFirst();
+
+        assertEquals(2, savedPrices.size());
 
-        Price first = savedPrices.getFirst();
-        assertEquals("BTC", first.getSymbol());
-        assertEquals(42000.0, first.getPrice());
-        assertEquals(LocalDateTime.of(2022, 1, 1, 0, 0), first.getDateTime());
+        PriceRow first = savedPrices.getFirst();
+        assertEquals(BTC.id(), first.symbolId());
+        assertEquals(42000.0, first.price());
+        assertEquals(epochMilli(LocalDateTime.of(2022, 1, 1, 0, 0)), first.epochMillis());
 
-        Price second = savedPrices.get(1);
-        assertEquals("ETH", second.getSymbol());
-        assertEquals(3200.0, second.getPrice());
-        assertEquals(LocalDateTime.of(2022, 1, 1, 1, 0), second.getDateTime());
+        PriceRow second = savedPrices.get(1);
+        assertEquals(ETH.id(), second.symbolId());
+        assertEquals(3200.0, second.price());
+        assertEquals(epochMilli(LocalDateTime.of(2022, 1, 1, 1, 0)), second.epochMillis());
+    }
+
+    @Test
+    void bindTo_publishesRowAndRejectionCounters() throws Exception {
+        String csvContent = """
+                timestamp,symbol,price
+                1640995200000,BTC,42000.0
+                1640998800000,ABC,1.0
+                not-a-number,BTC,1.0
+                1640998800000,ETH,3200.0
+                """;
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        csvLoaderService.bindTo(registry);
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        assertEquals(2, registry.get("csv.loader.rows").functionCounter().count());
+        assertEquals(1, registry.get("csv.loader.rejected").tag("reason", "unsupported-symbol").functionCounter().count());
+        assertEquals(1, registry.get("csv.loader.rejected").tag("reason", "malformed-line").functionCounter().count());
+        assertTrue(registry.get("csv.loader.throughput").gauge().value() > 0);
+    }
+
+    @Test
+    void run_publishesWrittenPricesToStore() throws Exception {
+        String csvContent = """
+                timestamp,symbol,price
+                1640998800000,BTC,42100.0
+                1640995200000,BTC,42000.0
+                1640998800000,ETH,3200.0
+                """;
+        InputStream inputStream = new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8));
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(inputStream);
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        PriceSeries btc = priceStore.getSeries(BTC);
+        assertEquals(2, btc.size());
+        assertEquals(1640995200000L, btc.timestampAt(0));
+        assertEquals(42000.0, btc.priceAt(0));
+        assertEquals(42100.0, btc.priceAt(1));
+        assertEquals(1, priceStore.getSeries(ETH).size());
     }
 
     @Test
@@ -84,28 +167,26 @@ class CsvLoaderServiceTest {
         when(resource.getInputStream()).thenReturn(inputStream);
 
         when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
-        when(cryptoValidator.isSymbolValid("BTC")).thenReturn(true);
-        when(cryptoValidator.isSymbolValid("NEW_STUFF")).thenReturn(false);
 
         csvLoaderService.run(mock(ApplicationArguments.class));
 
-        ArgumentCaptor<Price> captor = ArgumentCaptor.forClass(Price.class);
-        verify(priceRepository, times(1)).save(captor.capture());
-        List<Price> savedPrices = captor.getAllValues();
+        verify(batchRepository, times(1)).insertBatch(any());
+        List<PriceRow> savedPrices = insertedBatches.getFirst();
 
-        Price first = savedPrices.getFirst();
-        assertEquals("BTC", first.getSymbol());
-        assertEquals(42000.0, first.getPrice());
-        assertEquals(LocalDateTime.of(2022, 1, 1, 0, 0), first.getDateTime());
+        PriceRow first = savedPrices.getFirst();
+        assertEquals(BTC.id(), first.symbolId());
+        assertEquals(42000.0, first.price());
+        assertEquals(epochMilli(LocalDateTime.of(2022, 1, 1, 0, 0)), first.epochMillis());
 
         assertEquals(1, savedPrices.size());
     }
 
     @Test
     void run_doesNotThrowExceptionIfNoCsvFilesFound() throws Exception {
-        PriceRepository priceRepository = mock(PriceRepository.class);
+        PriceBatchRepository batchRepository = mock(PriceBatchRepository.class);
         PathMatchingResourcePatternResolver resolver = mock(PathMatchingResourcePatternResolver.class);
-        CsvLoaderService service = new CsvLoaderService(priceRepository, resolver, cryptoValidator);
+        CsvLoaderService service = new CsvLoaderService(batchRepository, priceStore, SYMBOLS, resolver, manifest,
+                1000, 4, "", DataSize.ofMegabytes(64));
 
         when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[0]);
 
@@ -114,10 +195,6 @@ class CsvLoaderServiceTest {
 
     @Test
     void run_doesNotThrowExceptionOnMalformedLine() throws Exception {
-        PriceRepository priceRepository = mock(PriceRepository.class);
-        PathMatchingResourcePatternResolver resolver = mock(PathMatchingResourcePatternResolver.class);
-        CsvLoaderService service = new CsvLoaderService(priceRepository, resolver, cryptoValidator);
-
         String csvContent = """
                 timestamp,symbol,price
                 1640995200000,BTC,42000.0
@@ -129,19 +206,19 @@ class CsvLoaderServiceTest {
         when(resource.getInputStream()).thenReturn(inputStream);
         when(resource.getFilename()).thenReturn("test.csv");
         when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
-        when(cryptoValidator.isSymbolValid("BTC")).thenReturn(true);
-        when(cryptoValidator.isSymbolValid("ETH")).thenReturn(true);
 
-        assertDoesNotThrow(() -> service.run(mock(ApplicationArguments.class)));
+        assertDoesNotThrow(() -> csvLoaderService.run(mock(ApplicationArguments.class)));
 
-        verify(priceRepository, times(2)).save(any(Price.class));
+        verify(batchRepository, times(1)).insertBatch(any());
+        assertEquals(2, insertedBatches.getFirst().size());
     }
 
     @Test
     void run_doesNotThrowExceptionOnFileProcessingError() throws Exception {
-        PriceRepository priceRepository = mock(PriceRepository.class);
+        PriceBatchRepository batchRepository = mock(PriceBatchRepository.class);
         PathMatchingResourcePatternResolver resolver = mock(PathMatchingResourcePatternResolver.class);
-        CsvLoaderService service = new CsvLoaderService(priceRepository, resolver, cryptoValidator);
+        CsvLoaderService service = new CsvLoaderService(batchRepository, priceStore, SYMBOLS, resolver, manifest,
+                1000, 4, "", DataSize.ofMegabytes(64));
 
         Resource resource = mock(Resource.class);
         when(resource.getInputStream()).thenThrow(new RuntimeException("File read error"));
@@ -150,6 +227,221 @@ class CsvLoaderServiceTest {
 
         assertDoesNotThrow(() -> service.run(mock(ApplicationArguments.class)));
 
-        verify(priceRepository, never()).save(any(Price.class));
+        verify(batchRepository, never()).insertBatch(any());
+    }
+
+    @Test
+    void run_writesRowsInBatchesOfConfiguredSize() throws Exception {
+        CsvLoaderService service = new CsvLoaderService(batchRepository, priceStore, SYMBOLS, resolver, manifest,
+                2, 4, "", DataSize.ofMegabytes(64));
+
+        String csvContent = """
+                timestamp,symbol,price
+                1640995200000,BTC,42000.0
+                1640998800000,BTC,42100.0
+                1641002400000,BTC,42200.0
+                """;
+        InputStream inputStream = new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8));
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(inputStream);
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+
+        service.run(mock(ApplicationArguments.class));
+
+        verify(batchRepository, times(2)).insertBatch(any());
+        assertEquals(2, insertedBatches.get(0).size());
+        assertEquals(1, insertedBatches.get(1).size());
+    }
+
+    @Test
+    void run_importsDirectoryInNewlineAlignedChunks(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 500; i++) {
+            long timestamp = 1640995200000L + (499 - i) * 60_000L;
+            csv.append(timestamp).append(",BTC,").append(40000 + i).append(".5\n");
+            csv.append(timestamp).append(",eth,").append(3000 + i).append(".25\n");
+            if (i == 250) {
+                csv.append("1640995200000,NEW_STUFF,1.0\n");
+                csv.append("1640995200000,ETH,not_a_number\n");
+            }
+        }
+        Files.writeString(dir.resolve("prices.csv"), csv);
+        Files.writeString(dir.resolve("empty.csv"), "timestamp,symbol,price\n");
+        Files.writeString(dir.resolve("ignored.txt"), "timestamp,symbol,price\n1640995200000,XRP,1.0\n");
+        CsvLoaderService service = new CsvLoaderService(batchRepository, priceStore, SYMBOLS, resolver, manifest,
+                64, 4, dir.toString(), DataSize.ofBytes(100));
+
+        service.run(mock(ApplicationArguments.class));
+
+        verify(batchRepository, atLeast(2)).insertBatch(any());
+        assertEquals(1000, insertedBatches.stream().mapToInt(List::size).sum());
+        verify(resolver, never()).getResources(anyString());
+
+        PriceSeries btc = priceStore.getSeries(BTC);
+        PriceSeries eth = priceStore.getSeries(ETH);
+        assertEquals(500, btc.size());
+        assertEquals(500, eth.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(1640995200000L + i * 60_000L, btc.timestampAt(i));
+            assertEquals(40000 + (499 - i) + 0.5, btc.priceAt(i));
+            assertEquals(3000 + (499 - i) + 0.25, eth.priceAt(i));
+        }
+        assertEquals(0, priceStore.getSeries(XRP).size());
+    }
+
+    @Test
+    void run_recordsImportedFilesInManifest() throws Exception {
+        String csvContent = """
+                timestamp,symbol,price
+                1640995200000,BTC,42000.0
+                1640998800000,ETH,3200.0
+                """;
+        InputStream inputStream = new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8));
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(inputStream);
+        when(resource.contentLength()).thenReturn((long) csvContent.length());
+        when(resource.lastModified()).thenReturn(1234L);
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        verify(manifest).record(resource, 1234L, csvContent.length(), 2L);
+    }
+
+    @Test
+    void run_restoresStoredPricesAndSkipsUnchangedFiles() throws Exception {
+        Resource resource = mock(Resource.class);
+        when(resource.getFilename()).thenReturn("BTC_values.csv");
+        when(resource.contentLength()).thenReturn(100L);
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+        when(batchRepository.count(PriceSource.CSV)).thenReturn(2L);
+        when(batchRepository.count()).thenReturn(2L);
+        when(manifest.importedRows()).thenReturn(2L);
+        when(manifest.resumeOffset(resource)).thenReturn(100L);
+        doAnswer(invocation -> {
+            PriceBatchRepository.PriceRowHandler handler = invocation.getArgument(0);
+            handler.handle(BTC.id(), 1640998800000L, 42100.0);
+            handler.handle(BTC.id(), 1640995200000L, 42000.0);
+            // Id of a symbol no longer supported
+            handler.handle(SYMBOLS.idLimit(), 1640995200000L, 1.0);
+            return null;
+        }).when(batchRepository).forEachPrice(any());
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        PriceSeries btc = priceStore.getSeries(BTC);
+        assertEquals(2, btc.size());
+        assertEquals(42000.0, btc.priceAt(0));
+        assertEquals(42100.0, btc.priceAt(1));
+        verify(resource, never()).getInputStream();
+        verify(batchRepository, never()).insertBatch(any());
+        verify(batchRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void run_importsOnlyRowsAppendedSinceLastImport(@TempDir Path dir) throws Exception {
+        String imported = "timestamp,symbol,price\n1640995200000,BTC,42000.0\n";
+        Path file = dir.resolve("BTC_values.csv");
+        Files.writeString(file, imported + "1640998800000,BTC,42100.0\n1641002400000,BTC,42200.0\n");
+        when(manifest.resumeOffset(any())).thenReturn((long) imported.length());
+        CsvLoaderService service = new CsvLoaderService(batchRepository, priceStore, SYMBOLS, resolver, manifest,
+                1000, 4, dir.toString(), DataSize.ofMegabytes(64));
+
+        service.run(mock(ApplicationArguments.class));
+
+        verify(batchRepository).insertBatch(any());
+        assertEquals(List.of(42100.0, 42200.0), insertedBatches.getFirst().stream().map(PriceRow::price).toList());
+        verify(manifest).record(any(), anyLong(), eq(Files.size(file)), eq(2L));
+        verify(batchRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void run_reimportsAllFiles_whenStoredPricesDoNotMatchManifest() throws Exception {
+        String csvContent = """
+                timestamp,symbol,price
+                1640995200000,BTC,42000.0
+                """;
+        InputStream inputStream = new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8));
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(inputStream);
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+        when(batchRepository.count(PriceSource.CSV)).thenReturn(5L);
+        when(manifest.importedRows()).thenReturn(3L);
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        verify(batchRepository).deleteAll(PriceSource.CSV);
+        verify(manifest).clear();
+        verify(manifest, never()).resumeOffset(any());
+        verify(batchRepository, never()).forEachPrice(any());
+        verify(batchRepository).insertBatch(any());
+    }
+
+    @Test
+    void run_reimportsAllFiles_whenAFileWasRewritten() throws Exception {
+        String csvContent = """
+                timestamp,symbol,price
+                1640995200000,BTC,42000.0
+                """;
+        InputStream inputStream = new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8));
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(inputStream);
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+        when(manifest.resumeOffset(resource)).thenReturn(CsvImportManifest.CHANGED);
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        verify(batchRepository).deleteAll(PriceSource.CSV);
+        verify(manifest).clear();
+        verify(batchRepository).insertBatch(any());
+        assertEquals(1, insertedBatches.getFirst().size());
+    }
+
+    @Test
+    void run_keepsAndRestoresIngestedPrices_whenReimportingAllFiles() throws Exception {
+        String csvContent = """
+                timestamp,symbol,price
+                1640995200000,BTC,42000.0
+                """;
+        InputStream inputStream = new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8));
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(inputStream);
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[]{resource});
+        // Only the ingested row is left once the CSV rows are deleted
+        when(batchRepository.count(PriceSource.CSV)).thenReturn(5L);
+        when(batchRepository.count()).thenReturn(1L);
+        when(manifest.importedRows()).thenReturn(3L);
+        doAnswer(invocation -> {
+            PriceBatchRepository.PriceRowHandler handler = invocation.getArgument(0);
+            handler.handle(ETH.id(), 1640998800000L, 3200.0);
+            return null;
+        }).when(batchRepository).forEachPrice(any());
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        verify(batchRepository).deleteAll(PriceSource.CSV);
+        verify(batchRepository, never()).deleteAll(PriceSource.INGEST);
+        assertEquals(3200.0, priceStore.getSeries(ETH).priceAt(0));
+        assertEquals(42000.0, priceStore.getSeries(BTC).priceAt(0));
+    }
+
+    @Test
+    void run_restoresIngestedPrices_whenNoCsvFilesFound() throws Exception {
+        when(resolver.getResources("classpath:csv/*.csv")).thenReturn(new Resource[0]);
+        when(batchRepository.count()).thenReturn(1L);
+        doAnswer(invocation -> {
+            PriceBatchRepository.PriceRowHandler handler = invocation.getArgument(0);
+            handler.handle(ETH.id(), 1640998800000L, 3200.0);
+            return null;
+        }).when(batchRepository).forEachPrice(any());
+
+        csvLoaderService.run(mock(ApplicationArguments.class));
+
+        assertEquals(3200.0, priceStore.getSeries(ETH).priceAt(0));
+        verify(batchRepository, never()).deleteAll(any());
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.store.PriceSeries;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceFileWatcherTest {
+
+    private static final String HEADER = "timestamp,symbol,price\n";
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+    private static final CryptoSymbol BTC = SYMBOLS.find("BTC");
+    private static final CryptoSymbol ETH = SYMBOLS.find("ETH");
+    private static final CryptoSymbol LTC = SYMBOLS.find("LTC");
+    private static final CryptoSymbol XRP = SYMBOLS.find("XRP");
+
+    @TempDir
+    private Path dir;
+
+    private PriceBatchRepository batchRepository;
+    private CsvImportManifest manifest;
+    private PriceStore priceStore;
+    private PriceBatchWriter batchWriter;
+    private PriceFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(PriceBatchRepository.class);
+        manifest = mock(CsvImportManifest.class);
+        priceStore = new PriceStore(SYMBOLS);
+        batchWriter = new PriceBatchWriter(batchRepository, priceStore, 4);
+        batchWriter.start();
+        watcher = new PriceFileWatcher(manifest, batchWriter, SYMBOLS, dir.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        watcher.stop();
+        batchWriter.stop();
+    }
+
+    @Test
+    void start_ingestsNewFilesAndAppendedCompleteLines() throws Exception {
+        watcher.start();
+        Path file = dir.resolve("BTC_values.csv");
+        Files.writeString(file, HEADER + "1640995200000,BTC,42000.0\n1640998800000,BTC,42100.0\n");
+
+        PriceSeries btc = awaitSize(BTC, 2);
+        assertEquals(42000.0, btc.priceAt(0));
+
+        Files.writeString(file, "1641002400000,BTC,42200.0\n1641006000000,BT", StandardOpenOption.APPEND);
+        awaitSize(BTC, 3);
+        Files.writeString(file, "C,42300.0\n", StandardOpenOption.APPEND);
+
+        btc = awaitSize(BTC, 4);
+        assertEquals(1641006000000L, btc.timestampAt(3));
+        assertEquals(42300.0, btc.priceAt(3));
+        ArgumentCaptor<PriceRows> captor = ArgumentCaptor.captor();
+        verify(batchRepository, atLeastOnce()).insertBatch(captor.capture(), eq(PriceSource.CSV));
+        assertEquals(4, captor.getAllValues().stream().mapToInt(PriceRows::size).sum());
+        verify(manifest, atLeastOnce()).record(any(), anyLong(), eq(Files.size(file)), anyLong());
+    }
+
+    @Test
+    void start_resumesExistingFilesFromTheirHighWaterMark() throws Exception {
+        String imported = HEADER + "1640995200000,ETH,3200.0\n";
+        Path file = dir.resolve("ETH_values.csv");
+        Files.writeString(file, imported + "1640998800000,ETH,3300.0\n");
+        when(manifest.resumeOffset(any(Resource.class))).thenReturn((long) imported.length());
+
+        watcher.start();
+
+        PriceSeries eth = awaitSize(ETH, 1);
+        assertEquals(3300.0, eth.priceAt(0));
+    }
+
+    @Test
+    void start_skipsFilesRewrittenSinceTheirImport() throws Exception {
+        Files.writeString(dir.resolve("LTC_values.csv"), HEADER + "1640995200000,LTC,150.0\n");
+        Files.writeString(dir.resolve("XRP_values.csv"), HEADER + "1640995200000,XRP,0.8\n");
+        when(manifest.resumeOffset(any(Resource.class))).thenAnswer(invocation ->
+                "LTC_values.csv".equals(invocation.<Resource>getArgument(0).getFilename())
+                        ? CsvImportManifest.CHANGED : 0L);
+
+        watcher.start();
+
+        awaitSize(XRP, 1);
+        assertEquals(0, priceStore.getSeries(LTC).size());
+        verify(manifest, never()).record(argThat(resource -> "LTC_values.csv".equals(resource.getFilename())),
+                anyLong(), anyLong(), anyLong());
+        verify(batchRepository, atLeastOnce()).insertBatch(any(), any());
+    }
+
+    @Test
+    void start_rejectsLinesLongerThanTheReadWindowAsAWhole() throws Exception {
+        Path file = dir.resolve("BTC_values.csv");
+        String longLine = "1640995200000,BTC," + "9".repeat(300 * 1024) + "\n";
+        Files.writeString(file, HEADER + "1640995200000,BTC,42000.0\n" + longLine + "1640998800000,BTC,42100.0\n");
+
+        watcher.start();
+
+        PriceSeries btc = awaitSize(BTC, 2);
+        assertEquals(42100.0, btc.priceAt(1));
+        verify(manifest, timeout(5000).atLeastOnce()).record(any(), anyLong(), eq(Files.size(file)), anyLong());
+    }
+
+    private PriceSeries awaitSize(CryptoSymbol crypto, int size) throws InterruptedException {
+        await(() -> priceStore.getSeries(crypto).size() >= size);
+        PriceSeries series = priceStore.getSeries(crypto);
+        assertEquals(size, series.size());
+        return series;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 30 seconds");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
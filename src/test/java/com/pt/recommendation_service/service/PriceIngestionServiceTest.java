@@ -0,0 +1,269 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.dto.IngestionResultDto;
+import com.pt.recommendation_service.enums.PriceSource;
+import com.pt.recommendation_service.exception.IngestionNotReadyException;
+import com.pt.recommendation_service.exception.IngestionQueueFullException;
+import com.pt.recommendation_service.exception.IngestionStoppedException;
+import com.pt.recommendation_service.exception.IngestionTimeoutException;
+import com.pt.recommendation_service.repository.PriceBatchRepository;
+import com.pt.recommendation_service.repository.PriceRows;
+import com.pt.recommendation_service.store.PriceSeries;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PriceIngestionServiceTest {
+
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+    private static final CryptoSymbol BTC = SYMBOLS.find("BTC");
+    private static final CryptoSymbol DOGE = SYMBOLS.find("DOGE");
+    private static final CryptoSymbol ETH = SYMBOLS.find("ETH");
+    private static final CryptoSymbol LTC = SYMBOLS.find("LTC");
+    private static final CryptoSymbol XRP = SYMBOLS.find("XRP");
+
+    private PriceBatchRepository batchRepository;
+    private PriceStore priceStore;
+    private PriceBatchWriter batchWriter;
+    private PriceIngestionService service;
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(PriceBatchRepository.class);
+        priceStore = new PriceStore(SYMBOLS);
+        batchWriter = new PriceBatchWriter(batchRepository, priceStore, 4);
+        service = new PriceIngestionService(batchWriter, SYMBOLS, JsonMapper.builder().build(), 2,
+                Duration.ofMillis(100), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        released.countDown();
+        batchWriter.stop();
+    }
+
+    @Test
+    void ingestCsv_writesAcceptedRowsInBatchesAndCountsRejectedRows() throws Exception {
+        batchWriter.start();
+
+        IngestionResultDto result = service.ingestCsv(body("""
+                timestamp,symbol,price
+                1641009600000,BTC,46813.21
+                1641020400000,btc,46979.61
+                1641031200000,ABC,1.0
+                1641042000000,ETH,3715.32
+                not-a-number,BTC,1.0
+
+                """));
+
+        assertEquals(3, result.getAccepted());
+        assertEquals(2, result.getRejected());
+        ArgumentCaptor<PriceRows> captor = ArgumentCaptor.captor();
+        verify(batchRepository, times(2)).insertBatch(captor.capture(), eq(PriceSource.INGEST));
+        assertEquals(List.of(2, 1), captor.getAllValues().stream().map(PriceRows::size).toList());
+        PriceSeries btc = priceStore.getSeries(BTC);
+        assertEquals(2, btc.size());
+        assertEquals(46979.61, btc.priceAt(1));
+        assertEquals(1, priceStore.getSeries(ETH).size());
+    }
+
+    @Test
+    void ingestCsv_acceptsBodyWithoutHeader() throws Exception {
+        batchWriter.start();
+
+        IngestionResultDto result = service.ingestCsv(body("1641009600000,XRP,0.83\r\n1641013200000,XRP,0.84"));
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        assertEquals(0.84, priceStore.getSeries(XRP).priceAt(1));
+    }
+
+    @Test
+    void ingestNdjson_validatesEveryLine() throws Exception {
+        batchWriter.start();
+
+        IngestionResultDto result = service.ingestNdjson(body("""
+                {"timestamp":1641009600000,"symbol":"LTC","price":149.2}
+                {"timestamp":1641013200000,"symbol":"ABC","price":1.0}
+                {"timestamp":1641016800000,"symbol":"LTC"}
+                {"timestamp":1641020400000,"symbol":
+                {"timestamp":1641024000000,"symbol":"doge","price":0.17}
+
+                """));
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(3, result.getRejected());
+        assertEquals(149.2, priceStore.getSeries(LTC).priceAt(0));
+        assertEquals(0.17, priceStore.getSeries(DOGE).priceAt(0));
+    }
+
+    @Test
+    void ingestCsv_rejectsRequestBeforeWriterIsStarted() {
+        assertThrows(IngestionNotReadyException.class,
+                () -> service.ingestCsv(body("1641009600000,BTC,46813.21\n")));
+
+        verify(batchRepository, never()).insertBatch(any(), any());
+    }
+
+    @Test
+    void ingestCsv_rejectsRequestWhenQueueIsFull() throws Exception {
+        batchWriter.start();
+        holdWriter();
+        for (int i = 0; i < 4; i++) {
+            batchWriter.put(new PriceBatch(PriceSource.INGEST));
+        }
+
+        assertThrows(IngestionQueueFullException.class,
+                () -> service.ingestCsv(body("1641009600000,BTC,46813.21\n")));
+
+        // Only the batch holding the writer
+        verify(batchRepository, times(1)).insertBatch(any(), any());
+    }
+
+    @Test
+    void ingestCsv_failsWhenQueueStaysFull() throws Exception {
+        batchWriter.start();
+        holdWriter();
+        for (int i = 0; i < 3; i++) {
+            batchWriter.put(new PriceBatch(PriceSource.INGEST));
+        }
+
+        IngestionQueueFullException exception = assertThrows(IngestionQueueFullException.class,
+                () -> service.ingestCsv(body("""
+                        1641009600000,BTC,46813.21
+                        1641020400000,BTC,46979.61
+                        1641031200000,BTC,47143.98
+                        1641042000000,BTC,46871.09
+                        """)));
+
+        assertEquals("Ingestion queue is full, retry later. Rows accepted before: 2", exception.getMessage());
+    }
+
+    @Test
+    void ingestCsv_failsWhenWriterStopsBeforeRowsAreWritten() throws Exception {
+        batchWriter.start();
+        holdWriter();
+        CompletableFuture<IngestionResultDto> request = CompletableFuture.supplyAsync(
+                () -> ingestCsv(service, "1641009600000,BTC,46813.21\n"));
+        while (batchWriter.remainingCapacity() == 4) {
+            Thread.sleep(10);
+        }
+
+        batchWriter.stop();
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> request.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IngestionStoppedException.class, exception.getCause());
+        assertThrows(IngestionStoppedException.class,
+                () -> batchWriter.offer(new PriceBatch(PriceSource.INGEST), Duration.ofMillis(100)));
+        assertEquals(0, priceStore.getSeries(BTC).size());
+    }
+
+    @Test
+    void ingestCsv_failsWhenRowsAreNotWrittenInTime() throws Exception {
+        PriceIngestionService service = new PriceIngestionService(batchWriter, SYMBOLS, JsonMapper.builder().build(),
+                2, Duration.ofMillis(100), Duration.ofMillis(100));
+        batchWriter.start();
+        holdWriter();
+
+        IngestionTimeoutException exception = assertThrows(IngestionTimeoutException.class,
+                () -> service.ingestCsv(body("1641009600000,BTC,46813.21\n")));
+
+        assertEquals("Timed out waiting for the rows to be written, they may still be written. Rows accepted: 1",
+                exception.getMessage());
+    }
+
+    @Test
+    void bindTo_publishesRowAndQueueCounters() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+        batchWriter.bindTo(registry);
+        batchWriter.start();
+
+        service.ingestCsv(body("""
+                1641009600000,BTC,46813.21
+                1641020400000,BTC,46979.61
+                1641031200000,ABC,1.0
+                1641042000000,ETH,3715.32
+                """));
+        holdWriter();
+        for (int i = 0; i < 4; i++) {
+            batchWriter.put(new PriceBatch(PriceSource.INGEST));
+        }
+        assertThrows(IngestionQueueFullException.class,
+                () -> service.ingestCsv(body("1641009600000,BTC,46813.21\n")));
+
+        assertEquals(3, registry.get("prices.ingest.rows").tag("result", "accepted").functionCounter().count());
+        assertEquals(1, registry.get("prices.ingest.rows").tag("result", "rejected").functionCounter().count());
+        assertEquals(1, registry.get("prices.ingest.queue.full").functionCounter().count());
+        assertEquals(3, registry.get("prices.writer.rows").functionCounter().count());
+        assertEquals(0, registry.get("prices.writer.failures").functionCounter().count());
+        assertEquals(4, registry.get("prices.writer.queue.size").gauge().value());
+    }
+
+    @Test
+    void ingestCsv_failsWhenBatchCannotBeWritten() {
+        doThrow(new IllegalStateException("Database unavailable")).when(batchRepository).insertBatch(any(), any());
+        batchWriter.start();
+
+        assertThrows(RuntimeException.class, () -> service.ingestCsv(body("1641009600000,BTC,46813.21\n")));
+        assertEquals(0, priceStore.getSeries(BTC).size());
+    }
+
+    /**
+     * Blocks the started writer on one batch until the test ends, so the batches queued after it stay in the queue.
+     */
+    private void holdWriter() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            released.await();
+            return null;
+        }).when(batchRepository).insertBatch(any(), any());
+        batchWriter.put(new PriceBatch(PriceSource.INGEST));
+        writing.await();
+    }
+
+    private static IngestionResultDto ingestCsv(PriceIngestionService service, String content) {
+        try {
+            return service.ingestCsv(body(content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
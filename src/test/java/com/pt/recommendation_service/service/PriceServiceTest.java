@@ -1,67 +1,97 @@
 package com.pt.recommendation_service.service;
 
+import com.pt.recommendation_service.cache.PriceQueryCache;
 import com.pt.recommendation_service.dto.CryptoNormalizedRangeDto;
 import com.pt.recommendation_service.dto.CryptoStatsDto;
-import com.pt.recommendation_service.entity.Price;
-import com.pt.recommendation_service.enums.SupportedCryptos;
+import com.pt.recommendation_service.dto.PriceCandleDto;
+import com.pt.recommendation_service.enums.PriceReadSource;
+import com.pt.recommendation_service.exception.InvalidCandleIntervalException;
 import com.pt.recommendation_service.exception.InvalidDateFormatException;
+import com.pt.recommendation_service.exception.InvalidMaxPointsException;
+import com.pt.recommendation_service.exception.InvalidPageException;
+import com.pt.recommendation_service.exception.InvalidTimeWindowException;
 import com.pt.recommendation_service.exception.NoPriceFoundForDateException;
+import com.pt.recommendation_service.exception.NoPriceFoundForSymbolException;
 import com.pt.recommendation_service.exception.UnsupportedCryptoException;
 import com.pt.recommendation_service.repository.PriceRepository;
+import com.pt.recommendation_service.repository.PriceRow;
+import com.pt.recommendation_service.repository.SymbolPriceRange;
+import com.pt.recommendation_service.repository.SymbolPriceStats;
+import com.pt.recommendation_service.store.PriceStore;
+import com.pt.recommendation_service.store.SampledPrices;
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
 import com.pt.recommendation_service.validator.CryptoValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 
 class PriceServiceTest {
 
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+    private static final CryptoSymbol BTC = SYMBOLS.find("BTC");
+    private static final CryptoSymbol ETH = SYMBOLS.find("ETH");
+    private static final CryptoSymbol XRP = SYMBOLS.find("XRP");
+
+    private PriceStore priceStore;
     private PriceRepository priceRepository;
     private CryptoValidator cryptoValidator;
     private PriceService priceService;
+    private PriceService databasePriceService;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
+        priceStore = new PriceStore(SYMBOLS);
         priceRepository = mock(PriceRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
         cryptoValidator = mock(CryptoValidator.class);
-        priceService = new PriceService(priceRepository, cryptoValidator);
-        when(cryptoValidator.validateSymbol("BTC")).thenReturn(SupportedCryptos.BTC);
-        when(cryptoValidator.validateSymbol("ETH")).thenReturn(SupportedCryptos.ETH);
+        priceService = new PriceService(priceStore, priceRepository, cryptoValidator, SYMBOLS, PriceReadSource.MEMORY,
+                new PriceQueryCache(priceStore, 100), false, meterRegistry);
+        databasePriceService = new PriceService(priceStore, priceRepository, cryptoValidator, SYMBOLS,
+                PriceReadSource.DATABASE, new PriceQueryCache(priceStore, 100), false, meterRegistry);
+        when(cryptoValidator.validateSymbol("BTC")).thenReturn(BTC);
+        when(cryptoValidator.validateSymbol("ETH")).thenReturn(ETH);
     }
 
-    @Test
-    void getNormalizedRangesDesc_returnsCorrectRangesAndOrder() {
-        Price btc1 = new Price();
-        btc1.setSymbol("BTC");
-        btc1.setPrice(100.0);
-
-        Price btc2 = new Price();
-        btc2.setSymbol("BTC");
-        btc2.setPrice(200.0);
-
-        Price eth1 = new Price();
-        eth1.setSymbol("ETH");
-        eth1.setPrice(50.0);
+    private void addPrice(CryptoSymbol crypto, LocalDateTime dateTime, double price) {
+        priceStore.add(crypto, epochMilli(dateTime), price);
+    }
 
-        Price eth2 = new Price();
-        eth2.setSymbol("ETH");
-        eth2.setPrice(100.0);
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
 
-        List<Price> prices = Arrays.asList(btc1, btc2, eth1, eth2);
-        when(priceRepository.findAll()).thenReturn(prices);
+    @Test
+    void getNormalizedRangesDesc_returnsCorrectRangesAndOrder() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusDays(1), 200.0);
+        addPrice(ETH, start, 50.0);
+        addPrice(ETH, start.plusDays(1), 100.0);
 
         List<CryptoNormalizedRangeDto> result = priceService.getNormalizedRangesDesc();
 
@@ -71,20 +101,70 @@ class PriceServiceTest {
         assertEquals(1.0, result.get(0).getNormalizedRange());
         assertEquals("ETH", result.get(1).getSymbol());
         assertEquals(1.0, result.get(1).getNormalizedRange());
+        verifyNoInteractions(priceRepository);
     }
 
     @Test
-    void getNormalizedRangesDesc_skipsSymbolWithZeroMinPrice() {
-        Price btc1 = new Price();
-        btc1.setSymbol("BTC");
-        btc1.setPrice(0.0);
+    void getNormalizedRangesDesc_fromDatabase_usesAggregateQuery() {
+        when(priceRepository.findPriceRanges()).thenReturn(List.of(
+                new SymbolPriceRange(BTC.id(), 100.0, 150.0),
+                new SymbolPriceRange(ETH.id(), 50.0, 150.0),
+                new SymbolPriceRange(XRP.id(), 0.0, 1.0)));
+
+        List<CryptoNormalizedRangeDto> result = databasePriceService.getNormalizedRangesDesc();
+
+        assertEquals(2, result.size());
+        assertEquals("ETH", result.get(0).getSymbol());
+        assertEquals(2.0, result.get(0).getNormalizedRange());
+        assertEquals("BTC", result.get(1).getSymbol());
+        assertEquals(0.5, result.get(1).getNormalizedRange());
+    }
+
+    @Test
+    void getNormalizedRangesDesc_fromDatabase_isCachedUntilDataChanges() {
+        when(priceRepository.findPriceRanges()).thenReturn(List.of(new SymbolPriceRange(BTC.id(), 100.0, 150.0)));
+
+        databasePriceService.getNormalizedRangesDesc();
+        databasePriceService.getNormalizedRangesDesc();
+        verify(priceRepository, times(1)).findPriceRanges();
+
+        addPrice(BTC, LocalDateTime.of(2022, 1, 1, 0, 0), 100.0);
+        databasePriceService.getNormalizedRangesDesc();
+        verify(priceRepository, times(2)).findPriceRanges();
+    }
+
+    @Test
+    void getStatsForSymbol_reflectsPricesAddedAfterCaching() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        assertEquals(100.0, priceService.getStatsForSymbol("BTC").getMax());
+
+        addPrice(BTC, start.plusHours(1), 300.0);
 
-        Price btc2 = new Price();
-        btc2.setSymbol("BTC");
-        btc2.setPrice(100.0);
+        assertEquals(300.0, priceService.getStatsForSymbol("BTC").getMax());
+    }
+
+    @Test
+    void getNormalizedRangesDesc_sortsDescending() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusDays(1), 150.0);
+        addPrice(ETH, start, 50.0);
+        addPrice(ETH, start.plusDays(1), 150.0);
+
+        List<CryptoNormalizedRangeDto> result = priceService.getNormalizedRangesDesc();
 
-        List<Price> prices = Arrays.asList(btc1, btc2);
-        when(priceRepository.findAll()).thenReturn(prices);
+        assertEquals("ETH", result.get(0).getSymbol());
+        assertEquals(2.0, result.get(0).getNormalizedRange());
+        assertEquals("BTC", result.get(1).getSymbol());
+        assertEquals(0.5, result.get(1).getNormalizedRange());
+    }
+
+    @Test
+    void getNormalizedRangesDesc_skipsSymbolWithZeroMinPrice() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 0.0);
+        addPrice(BTC, start.plusDays(1), 100.0);
 
         List<CryptoNormalizedRangeDto> result = priceService.getNormalizedRangesDesc();
 
@@ -92,41 +172,140 @@ class PriceServiceTest {
     }
 
     @Test
-    void getNormalizedRangesDesc_returnsEmptyListIfNoPrices() {
-        when(priceRepository.findAll()).thenReturn(List.of());
+    void getNormalizedRangesDesc_returnsRequestedPage() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusDays(1), 150.0);
+        addPrice(ETH, start, 50.0);
+        addPrice(ETH, start.plusDays(1), 150.0);
+        addPrice(XRP, start, 100.0);
+        addPrice(XRP, start.plusDays(1), 110.0);
+
+        List<CryptoNormalizedRangeDto> page = priceService.getNormalizedRangesDesc(1, 1);
+        List<CryptoNormalizedRangeDto> lastPage = priceService.getNormalizedRangesDesc(2, 20);
+
+        assertEquals(List.of(new CryptoNormalizedRangeDto("BTC", 0.5)), page);
+        assertEquals(1, lastPage.size());
+        assertEquals("XRP", lastPage.get(0).getSymbol());
+        assertTrue(priceService.getNormalizedRangesDesc(3, 20).isEmpty());
+    }
+
+    @Test
+    void getNormalizedRangesDesc_reflectsPricesAddedAfterRanking() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusDays(1), 150.0);
+        addPrice(ETH, start, 100.0);
+        addPrice(ETH, start.plusDays(1), 110.0);
+        assertEquals("BTC", priceService.getNormalizedRangesDesc(0, 1).get(0).getSymbol());
+
+        addPrice(ETH, start.plusDays(2), 300.0);
 
+        assertEquals(List.of(new CryptoNormalizedRangeDto("ETH", 2.0)), priceService.getNormalizedRangesDesc(0, 1));
+    }
+
+    @Test
+    void getNormalizedRangesDesc_fromDatabase_returnsRequestedPage() {
+        when(priceRepository.findPriceRanges()).thenReturn(List.of(
+                new SymbolPriceRange(BTC.id(), 100.0, 150.0),
+                new SymbolPriceRange(ETH.id(), 50.0, 150.0),
+                new SymbolPriceRange(XRP.id(), 100.0, 110.0)));
+
+        List<CryptoNormalizedRangeDto> result = databasePriceService.getNormalizedRangesDesc(1, 1);
+
+        assertEquals(List.of(new CryptoNormalizedRangeDto("BTC", 0.5)), result);
+    }
+
+    @Test
+    void getNormalizedRangesDesc_throwsException_whenPageIsInvalid() {
+        assertThrows(InvalidPageException.class, () -> priceService.getNormalizedRangesDesc(-1, 20));
+        assertThrows(InvalidPageException.class, () -> priceService.getNormalizedRangesDesc(0, 0));
+        assertThrows(InvalidPageException.class,
+                () -> priceService.getNormalizedRangesDesc("2022-01-01", "2022-01-08", 0, -5));
+    }
+
+    @Test
+    void getNormalizedRangesDesc_returnsEmptyListIfNoPrices() {
         List<CryptoNormalizedRangeDto> result = priceService.getNormalizedRangesDesc();
 
         assertTrue(result.isEmpty());
     }
 
     @Test
-    void getHighestNormalizedRangeForDate_returnsHighestRange() {
+    void getNormalizedRangesDescForWindow_onlyConsidersPricesInWindow() {
         LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2022, 1, 2, 0, 0);
+        addPrice(BTC, start.minusMinutes(1), 10.0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusDays(3), 150.0);
+        addPrice(BTC, start.plusDays(7), 1000.0);
+        addPrice(ETH, start.plusDays(2), 50.0);
+        addPrice(ETH, start.plusDays(6).plusHours(23), 150.0);
+        addPrice(XRP, start.plusDays(8), 1.0);
+
+        List<CryptoNormalizedRangeDto> result = priceService.getNormalizedRangesDesc("2022-01-01", "2022-01-08");
+
+        assertEquals(List.of(new CryptoNormalizedRangeDto("ETH", 2.0), new CryptoNormalizedRangeDto("BTC", 0.5)), result);
+        verifyNoInteractions(priceRepository);
+    }
+
+    @Test
+    void getNormalizedRangesDescForWindow_returnsRequestedPage() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusDays(1), 150.0);
+        addPrice(ETH, start, 50.0);
+        addPrice(ETH, start.plusDays(1), 150.0);
+        addPrice(XRP, start, 100.0);
+        addPrice(XRP, start.plusDays(1), 110.0);
 
-        Price btc1 = new Price();
-        btc1.setSymbol("BTC");
-        btc1.setPrice(100.0);
-        btc1.setDateTime(start.plusHours(1));
+        List<CryptoNormalizedRangeDto> result = priceService.getNormalizedRangesDesc("2022-01-01", "2022-01-08", 1, 2);
 
-        Price btc2 = new Price();
-        btc2.setSymbol("BTC");
-        btc2.setPrice(200.0);
-        btc2.setDateTime(start.plusHours(2));
+        assertEquals(List.of(new CryptoNormalizedRangeDto("BTC", 0.5), new CryptoNormalizedRangeDto("XRP", 0.1)), result);
+    }
+
+    @Test
+    void getNormalizedRangesDescForWindow_acceptsDateTimeBounds() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start.plusHours(1), 100.0);
+        addPrice(BTC, start.plusHours(2), 110.0);
+        addPrice(BTC, start.plusHours(3), 200.0);
+
+        List<CryptoNormalizedRangeDto> result = priceService.getNormalizedRangesDesc("2022-01-01T01:00:00", "2022-01-01T03:00:00");
+
+        assertEquals(1, result.size());
+        assertEquals(0.1, result.get(0).getNormalizedRange(), 1e-9);
+    }
 
-        Price eth1 = new Price();
-        eth1.setSymbol("ETH");
-        eth1.setPrice(50.0);
-        eth1.setDateTime(start.plusHours(3));
+    @Test
+    void getNormalizedRangesDescForWindow_fromDatabase_usesDateBoundedAggregateQuery() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2022, 2, 1, 0, 0);
+        when(priceRepository.findPriceRangesBetween(epochMilli(start), epochMilli(end))).thenReturn(List.of(
+                new SymbolPriceRange(BTC.id(), 100.0, 150.0),
+                new SymbolPriceRange(ETH.id(), 50.0, 150.0)));
 
-        Price eth2 = new Price();
-        eth2.setSymbol("ETH");
-        eth2.setPrice(100.0);
-        eth2.setDateTime(start.plusHours(4));
+        List<CryptoNormalizedRangeDto> result = databasePriceService.getNormalizedRangesDesc("2022-01-01", "2022-02-01");
 
-        List<Price> prices = Arrays.asList(btc1, btc2, eth1, eth2);
-        when(priceRepository.findByDateTimeGreaterThanEqualAndDateTimeLessThan(start, end)).thenReturn(prices);
+        assertEquals("ETH", result.get(0).getSymbol());
+        assertEquals("BTC", result.get(1).getSymbol());
+    }
+
+    @Test
+    void getNormalizedRangesDescForWindow_throwsException_whenWindowIsInvalid() {
+        assertThrows(InvalidTimeWindowException.class, () -> priceService.getNormalizedRangesDesc("2022-01-01", null));
+        assertThrows(InvalidTimeWindowException.class, () -> priceService.getNormalizedRangesDesc("2022-01-08", "2022-01-01"));
+        assertThrows(InvalidTimeWindowException.class, () -> priceService.getNormalizedRangesDesc("2022-01-01", "2022-01-01"));
+        assertThrows(InvalidDateFormatException.class, () -> priceService.getNormalizedRangesDesc("2022-01-01", "not-a-date"));
+    }
+
+    @Test
+    void getHighestNormalizedRangeForDate_returnsHighestRange() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+        addPrice(BTC, start.plusHours(1), 100.0);
+        addPrice(BTC, start.plusHours(2), 200.0);
+        addPrice(ETH, start.plusHours(3), 50.0);
+        addPrice(ETH, start.plusHours(4), 100.0);
 
         CryptoNormalizedRangeDto result = priceService.getHighestNormalizedRangeForDate("2022-01-01");
 
@@ -136,22 +315,47 @@ class PriceServiceTest {
     }
 
     @Test
-    void getHighestNormalizedRangeForDate_skipsSymbolWithZeroMinPrice() {
+    void getHighestNormalizedRangeForDate_ignoresPricesOfOtherDays() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+        addPrice(BTC, start.minusMinutes(1), 10.0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusHours(23), 110.0);
+        addPrice(BTC, start.plusDays(1), 1000.0);
+
+        CryptoNormalizedRangeDto result = priceService.getHighestNormalizedRangeForDate("2022-01-01");
+
+        assertEquals("BTC", result.getSymbol());
+        assertEquals(0.1, result.getNormalizedRange(), 1e-9);
+    }
+
+    @Test
+    void getHighestNormalizedRangeForDate_fromDatabase_usesDateBoundedAggregateQuery() {
         LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
         LocalDateTime end = LocalDateTime.of(2022, 1, 2, 0, 0);
+        when(priceRepository.findPriceRangesBetween(epochMilli(start), epochMilli(end))).thenReturn(List.of(
+                new SymbolPriceRange(BTC.id(), 100.0, 150.0),
+                new SymbolPriceRange(ETH.id(), 50.0, 150.0)));
 
-        Price btc1 = new Price();
-        btc1.setSymbol("BTC");
-        btc1.setPrice(0.0);
-        btc1.setDateTime(start.plusHours(1));
+        CryptoNormalizedRangeDto result = databasePriceService.getHighestNormalizedRangeForDate("2022-01-01");
 
-        Price btc2 = new Price();
-        btc2.setSymbol("BTC");
-        btc2.setPrice(100.0);
-        btc2.setDateTime(start.plusHours(2));
+        assertEquals("ETH", result.getSymbol());
+        assertEquals(2.0, result.getNormalizedRange());
+    }
+
+    @Test
+    void getHighestNormalizedRangeForDate_fromDatabase_throwsNoPriceFoundForDateException_whenNoPricesFound() {
+        when(priceRepository.findPriceRangesBetween(anyLong(), anyLong())).thenReturn(List.of());
+
+        assertThrows(NoPriceFoundForDateException.class, () -> databasePriceService.getHighestNormalizedRangeForDate("2022-01-01"));
+    }
+
+    @Test
+    void getHighestNormalizedRangeForDate_skipsSymbolWithZeroMinPrice() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
 
-        List<Price> prices = Arrays.asList(btc1, btc2);
-        when(priceRepository.findByDateTimeGreaterThanEqualAndDateTimeLessThan(start, end)).thenReturn(prices);
+        addPrice(BTC, start.plusHours(1), 0.0);
+        addPrice(BTC, start.plusHours(2), 100.0);
 
         CryptoNormalizedRangeDto result = priceService.getHighestNormalizedRangeForDate("2022-01-01");
 
@@ -167,8 +371,7 @@ class PriceServiceTest {
     @Test
     void getHighestNormalizedRangeForDate_throwsNoPriceFoundForDateException_whenNoPricesFound() {
         String validDate = "2022-01-01";
-        when(priceRepository.findByDateTimeGreaterThanEqualAndDateTimeLessThan(any(), any()))
-                .thenReturn(Collections.emptyList());
+        addPrice(BTC, LocalDateTime.of(2022, 1, 2, 0, 0), 100.0);
 
         assertThrows(NoPriceFoundForDateException.class, () -> priceService.getHighestNormalizedRangeForDate(validDate));
     }
@@ -176,28 +379,17 @@ class PriceServiceTest {
     @Test
     void getStatsForSymbol_returnsCorrectStats() {
         String symbol = "BTC";
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
 
-        Price oldest = new Price();
-        oldest.setPrice(100.0);
-
-        Price newest = new Price();
-        newest.setPrice(200.0);
-
-        Price min = new Price();
-        min.setPrice(90.0);
-
-        Price max = new Price();
-        max.setPrice(210.0);
-
-        when(priceRepository.findFirstBySymbolOrderByDateTimeAsc(symbol)).thenReturn(oldest);
-        when(priceRepository.findFirstBySymbolOrderByDateTimeDesc(symbol)).thenReturn(newest);
-        when(priceRepository.findFirstBySymbolOrderByPriceAsc(symbol)).thenReturn(min);
-        when(priceRepository.findFirstBySymbolOrderByPriceDesc(symbol)).thenReturn(max);
+        addPrice(BTC, start.plusHours(3), 200.0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusHours(1), 90.0);
+        addPrice(BTC, start.plusHours(2), 210.0);
 
         CryptoStatsDto result = priceService.getStatsForSymbol(symbol);
 
         assertNotNull(result);
-        assertEquals(SupportedCryptos.BTC, result.getSymbol());
+        assertEquals("BTC", result.getSymbol());
         assertEquals(100.0, result.getOldest());
         assertEquals(200.0, result.getNewest());
         assertEquals(90.0, result.getMin());
@@ -207,29 +399,18 @@ class PriceServiceTest {
     @Test
     void getStatsForSymbol_returnsCorrectStatsWithLowercaseSymbol() {
         String symbol = "btc";
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
 
-        Price oldest = new Price();
-        oldest.setPrice(100.0);
-
-        Price newest = new Price();
-        newest.setPrice(200.0);
-
-        Price min = new Price();
-        min.setPrice(90.0);
-
-        Price max = new Price();
-        max.setPrice(210.0);
-
-        when(priceRepository.findFirstBySymbolOrderByDateTimeAsc(symbol)).thenReturn(oldest);
-        when(priceRepository.findFirstBySymbolOrderByDateTimeDesc(symbol)).thenReturn(newest);
-        when(priceRepository.findFirstBySymbolOrderByPriceAsc(symbol)).thenReturn(min);
-        when(priceRepository.findFirstBySymbolOrderByPriceDesc(symbol)).thenReturn(max);
-        when(cryptoValidator.validateSymbol("btc")).thenReturn(SupportedCryptos.BTC);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusHours(1), 90.0);
+        addPrice(BTC, start.plusHours(2), 210.0);
+        addPrice(BTC, start.plusHours(3), 200.0);
+        when(cryptoValidator.validateSymbol("btc")).thenReturn(BTC);
 
         CryptoStatsDto result = priceService.getStatsForSymbol(symbol);
 
         assertNotNull(result);
-        assertEquals(SupportedCryptos.BTC, result.getSymbol());
+        assertEquals("BTC", result.getSymbol());
         assertEquals(100.0, result.getOldest());
         assertEquals(200.0, result.getNewest());
         assertEquals(90.0, result.getMin());
@@ -237,15 +418,163 @@ class PriceServiceTest {
     }
 
     @Test
-    void getStatsForSymbol_handlesNullPrices() {
-        String symbol = "BTC";
+    void getStatsForSymbol_fromDatabase_returnsCorrectStats() {
+        when(priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(BTC.id())).thenReturn(price(100.0));
+        when(priceRepository.findFirstBySymbolIdOrderByEpochMillisDesc(BTC.id())).thenReturn(price(200.0));
+        when(priceRepository.findMinPriceBySymbolId(BTC.id())).thenReturn(90.0);
+        when(priceRepository.findMaxPriceBySymbolId(BTC.id())).thenReturn(210.0);
+
+        CryptoStatsDto result = databasePriceService.getStatsForSymbol("BTC");
+
+        assertEquals(new CryptoStatsDto("BTC", 100.0, 200.0, 90.0, 210.0), result);
+    }
+
+    @Test
+    void getStatsForSymbol_fromDatabase_throwsException_whenNoPricesFound() {
+        assertThrows(NoPriceFoundForSymbolException.class, () -> databasePriceService.getStatsForSymbol("BTC"));
+    }
+
+    @Test
+    void getStatsForSymbols_returnsStatsOfAllSymbolsWithPrices() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(ETH, start, 50.0);
+        addPrice(ETH, start.plusDays(1), 40.0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusDays(1), 200.0);
+
+        List<CryptoStatsDto> result = priceService.getStatsForSymbols(null);
+
+        assertEquals(List.of(
+                new CryptoStatsDto("BTC", 100.0, 200.0, 100.0, 200.0),
+                new CryptoStatsDto("ETH", 50.0, 40.0, 40.0, 50.0)
+        ), result);
+    }
 
-        when(priceRepository.findFirstBySymbolOrderByDateTimeAsc(symbol)).thenReturn(null);
-        when(priceRepository.findFirstBySymbolOrderByDateTimeDesc(symbol)).thenReturn(null);
-        when(priceRepository.findFirstBySymbolOrderByPriceAsc(symbol)).thenReturn(null);
-        when(priceRepository.findFirstBySymbolOrderByPriceDesc(symbol)).thenReturn(null);
+    @Test
+    void getStatsForSymbols_returnsStatsOfRequestedSymbolsOnly() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        addPrice(ETH, start, 50.0);
+
+        List<CryptoStatsDto> result = priceService.getStatsForSymbols(List.of("ETH", " ", "ETH"));
+
+        assertEquals(List.of(new CryptoStatsDto("ETH", 50.0, 50.0, 50.0, 50.0)), result);
+    }
+
+    @Test
+    void canonicalSymbols_returnsValidatedSymbolsInRegistryOrderWithoutDuplicates() {
+        assertEquals(List.of("BTC", "ETH"), priceService.canonicalSymbols(List.of("ETH", " ", "BTC", "ETH")));
+        assertEquals(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"), priceService.canonicalSymbols(null));
+        assertEquals(List.of("ETH"), priceService.canonicalSymbols(List.of("ETH")));
+    }
+
+    @Test
+    void getStatsForSymbols_throwsException_whenSymbolIsNotSupported() {
+        when(cryptoValidator.validateSymbol("INVALID")).thenThrow(new UnsupportedCryptoException("INVALID"));
+
+        assertThrows(UnsupportedCryptoException.class,
+                () -> priceService.getStatsForSymbols(List.of("BTC", "INVALID")));
+    }
 
-        assertThrows(NullPointerException.class, () -> priceService.getStatsForSymbol(symbol));
+    @Test
+    void getStatsForSymbols_fromDatabase_usesOneGroupedQuery() {
+        SymbolPriceStats btcStats = stats(BTC.id(), 100.0, 200.0, 90.0, 210.0);
+        SymbolPriceStats ethStats = stats(ETH.id(), 50.0, 40.0, 30.0, 60.0);
+        // Id of a symbol no longer supported
+        SymbolPriceStats unsupportedStats = stats(SYMBOLS.idLimit(), 1.0, 1.0, 1.0, 1.0);
+        when(priceRepository.findPriceStats()).thenReturn(List.of(ethStats, unsupportedStats, btcStats));
+
+        List<CryptoStatsDto> all = databasePriceService.getStatsForSymbols(List.of());
+        List<CryptoStatsDto> eth = databasePriceService.getStatsForSymbols(List.of("ETH"));
+
+        assertEquals(List.of(
+                new CryptoStatsDto("BTC", 100.0, 200.0, 90.0, 210.0),
+                new CryptoStatsDto("ETH", 50.0, 40.0, 30.0, 60.0)
+        ), all);
+        assertEquals(List.of(new CryptoStatsDto("ETH", 50.0, 40.0, 30.0, 60.0)), eth);
+        verify(priceRepository, times(2)).findPriceStats();
+        verify(priceRepository, never()).findFirstBySymbolIdOrderByEpochMillisAsc(anyInt());
+    }
+
+    @Test
+    void getStatsForSymbol_fromDatabaseOnVirtualThreads_runsQueriesConcurrently() throws Exception {
+        PriceService concurrentPriceService = new PriceService(priceStore, priceRepository, cryptoValidator, SYMBOLS,
+                PriceReadSource.DATABASE, new PriceQueryCache(priceStore, 100), true, meterRegistry);
+        CountDownLatch allQueriesStarted = new CountDownLatch(4);
+        when(priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(BTC.id()))
+                .thenAnswer(invocation -> awaitOthers(allQueriesStarted, price(100.0)));
+        when(priceRepository.findFirstBySymbolIdOrderByEpochMillisDesc(BTC.id()))
+                .thenAnswer(invocation -> awaitOthers(allQueriesStarted, price(200.0)));
+        when(priceRepository.findMinPriceBySymbolId(BTC.id()))
+                .thenAnswer(invocation -> awaitOthers(allQueriesStarted, 90.0));
+        when(priceRepository.findMaxPriceBySymbolId(BTC.id()))
+                .thenAnswer(invocation -> awaitOthers(allQueriesStarted, 210.0));
+
+        CryptoStatsDto result = concurrentPriceService.getStatsForSymbol("BTC");
+
+        assertEquals(new CryptoStatsDto("BTC", 100.0, 200.0, 90.0, 210.0), result);
+    }
+
+    @Test
+    void getStatsForSymbol_fromDatabaseOnVirtualThreads_throwsException_whenNoPricesFound() {
+        PriceService concurrentPriceService = new PriceService(priceStore, priceRepository, cryptoValidator, SYMBOLS,
+                PriceReadSource.DATABASE, new PriceQueryCache(priceStore, 100), true, meterRegistry);
+
+        assertThrows(NoPriceFoundForSymbolException.class, () -> concurrentPriceService.getStatsForSymbol("BTC"));
+    }
+
+    @Test
+    void getStatsForSymbol_fromDatabaseOnVirtualThreads_rethrowsQueryFailure() {
+        PriceService concurrentPriceService = new PriceService(priceStore, priceRepository, cryptoValidator, SYMBOLS,
+                PriceReadSource.DATABASE, new PriceQueryCache(priceStore, 100), true, meterRegistry);
+        when(priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(BTC.id())).thenReturn(price(100.0));
+        when(priceRepository.findFirstBySymbolIdOrderByEpochMillisDesc(BTC.id())).thenReturn(price(200.0));
+        when(priceRepository.findMinPriceBySymbolId(BTC.id())).thenReturn(90.0);
+        when(priceRepository.findMaxPriceBySymbolId(BTC.id())).thenThrow(new IllegalStateException("Connection lost"));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> concurrentPriceService.getStatsForSymbol("BTC"));
+        assertEquals("Connection lost", exception.getMessage());
+    }
+
+    @Test
+    void getStatsForSymbol_fromDatabaseOnVirtualThreads_failsWithoutWaitingForOtherQueries() {
+        PriceService concurrentPriceService = new PriceService(priceStore, priceRepository, cryptoValidator, SYMBOLS,
+                PriceReadSource.DATABASE, new PriceQueryCache(priceStore, 100), true, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean slowQueryFinished = new AtomicBoolean();
+        when(priceRepository.findFirstBySymbolIdOrderByEpochMillisAsc(BTC.id())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            slowQueryFinished.set(true);
+            return price(100.0);
+        });
+        when(priceRepository.findMaxPriceBySymbolId(BTC.id())).thenThrow(new IllegalStateException("Connection lost"));
+
+        try {
+            assertThrows(IllegalStateException.class, () -> concurrentPriceService.getStatsForSymbol("BTC"));
+            assertFalse(slowQueryFinished.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Returns the given result once all four statistics queries have started, failing if they do not run
+     * concurrently.
+     */
+    private static <T> T awaitOthers(CountDownLatch allQueriesStarted, T result) throws InterruptedException {
+        allQueriesStarted.countDown();
+        if (!allQueriesStarted.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Statistics queries did not run concurrently");
+        }
+        return result;
+    }
+
+    @Test
+    void getStatsForSymbol_throwsException_whenNoPricesFound() {
+        String symbol = "BTC";
+
+        assertThrows(NoPriceFoundForSymbolException.class, () -> priceService.getStatsForSymbol(symbol));
     }
 
     @Test
@@ -255,4 +584,133 @@ class PriceServiceTest {
         when(cryptoValidator.validateSymbol("INVALID")).thenThrow(new UnsupportedCryptoException("Crypto is not supported: " + symbol));
         assertThrows(UnsupportedCryptoException.class, () -> priceService.getStatsForSymbol(symbol));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getCandles_mergesRollupIntoCandlesOfInterval() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start.plusMinutes(10), 100.0);
+        addPrice(BTC, start.plusHours(1), 120.0);
+        addPrice(BTC, start.plusHours(3), 90.0);
+        addPrice(BTC, start.plusHours(5), 110.0);
+        addPrice(BTC, start.plusDays(1), 130.0);
+
+        List<PriceCandleDto> result = priceService.getCandles("BTC", "4h", null, null);
+
+        assertEquals(List.of(
+                new PriceCandleDto(epochMilli(start), 100.0, 120.0, 90.0, 90.0, 3),
+                new PriceCandleDto(epochMilli(start.plusHours(4)), 110.0, 110.0, 110.0, 110.0, 1),
+                new PriceCandleDto(epochMilli(start.plusDays(1)), 130.0, 130.0, 130.0, 130.0, 1)), result);
+        verifyNoInteractions(priceRepository);
+    }
+
+    @Test
+    void getCandles_onlyReturnsBucketsStartingInWindow() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int hour = 0; hour < 48; hour++) {
+            addPrice(BTC, start.plusHours(hour).plusMinutes(30), 100.0 + hour);
+        }
+
+        List<PriceCandleDto> result = priceService.getCandles("BTC", "1h", "2022-01-01T10:15:00", "2022-01-01T13:00:00");
+
+        assertEquals(List.of(epochMilli(start.plusHours(11)), epochMilli(start.plusHours(12))),
+                result.stream().map(PriceCandleDto::getTimestamp).toList());
+        assertEquals(111.0, result.get(0).getOpen());
+        assertTrue(priceService.getCandles("ETH", "1d", null, null).isEmpty());
+    }
+
+    @Test
+    void getCandles_throwsException_whenIntervalIsInvalid() {
+        assertThrows(InvalidCandleIntervalException.class, () -> priceService.getCandles("BTC", "0h", null, null));
+        assertThrows(InvalidCandleIntervalException.class, () -> priceService.getCandles("BTC", "1y", null, null));
+        assertThrows(InvalidCandleIntervalException.class, () -> priceService.getCandles("BTC", "30s", null, null));
+    }
+
+    @Test
+    void getCandles_throwsException_whenWindowIsInvalidOrSpansTooManyCandles() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        addPrice(BTC, start, 100.0);
+        addPrice(BTC, start.plusMinutes(PriceService.MAX_CANDLES), 100.0);
+
+        assertThrows(InvalidTimeWindowException.class, () -> priceService.getCandles("BTC", "1h", "2022-01-01", null));
+        assertThrows(InvalidTimeWindowException.class, () -> priceService.getCandles("BTC", "1m", null, null));
+        assertEquals(2, priceService.getCandles("BTC", "1d", null, null).size());
+    }
+
+    @Test
+    void getPrices_returnsPricesInWindowOrderedByTime() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int hour = 0; hour < 24; hour++) {
+            addPrice(BTC, start.plusHours(hour), 100.0 + hour);
+        }
+
+        SampledPrices result = priceService.getPrices("BTC", "2022-01-01T10:00:00", "2022-01-01T13:00:00", 1000);
+
+        assertEquals(3, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(epochMilli(start.plusHours(10 + i)), result.timestampAt(i));
+            assertEquals(110.0 + i, result.priceAt(i));
+        }
+        assertEquals(24, priceService.getPrices("BTC", null, null, 1000).size());
+        assertEquals(0, priceService.getPrices("ETH", null, null, 1000).size());
+        verifyNoInteractions(priceRepository);
+    }
+
+    @Test
+    void getPrices_downsamplesToMaxPointsKeepingEndsAndPeaks() {
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int minute = 0; minute < 1000; minute++) {
+            addPrice(BTC, start.plusMinutes(minute), minute == 500 ? 200.0 : 100.0);
+        }
+
+        SampledPrices result = priceService.getPrices("BTC", null, null, 10);
+
+        assertEquals(10, result.size());
+        assertEquals(epochMilli(start), result.timestampAt(0));
+        assertEquals(epochMilli(start.plusMinutes(999)), result.timestampAt(9));
+        boolean peakKept = false;
+        for (int i = 0; i < result.size(); i++) {
+            peakKept |= result.priceAt(i) == 200.0;
+            if (i > 0) {
+                assertTrue(result.timestampAt(i) > result.timestampAt(i - 1));
+            }
+        }
+        assertTrue(peakKept);
+    }
+
+    @Test
+    void getPrices_throwsException_whenMaxPointsOrWindowIsInvalid() {
+        assertThrows(InvalidMaxPointsException.class, () -> priceService.getPrices("BTC", null, null, 1));
+        assertThrows(InvalidMaxPointsException.class,
+                () -> priceService.getPrices("BTC", null, null, PriceService.MAX_POINTS + 1));
+        assertThrows(InvalidTimeWindowException.class, () -> priceService.getPrices("BTC", "2022-01-01", null, 100));
+        assertThrows(InvalidDateFormatException.class,
+                () -> priceService.getPrices("BTC", "2022-01-01", "tomorrow", 100));
+    }
+
+    @Test
+    void queries_areTimedPerMethodIncludingCacheHitsAndRejectedInput() {
+        addPrice(BTC, LocalDateTime.of(2022, 1, 1, 0, 0), 100.0);
+
+        priceService.getStatsForSymbol("BTC");
+        priceService.getStatsForSymbol("BTC");
+        assertThrows(InvalidPageException.class, () -> priceService.getNormalizedRangesDesc(-1, 10));
+
+        assertEquals(2, meterRegistry.get(PriceService.TIMER).tag("method", "getStatsForSymbol").timer().count());
+        assertEquals(1, meterRegistry.get(PriceService.TIMER).tag("method", "getNormalizedRangesDesc").timer().count());
+        assertEquals(0, meterRegistry.get(PriceService.TIMER).tag("method", "getCandles").timer().count());
+    }
+
+    private static SymbolPriceStats stats(int symbolId, double oldest, double newest, double min, double max) {
+        SymbolPriceStats stats = mock(SymbolPriceStats.class);
+        when(stats.getSymbolId()).thenReturn(symbolId);
+        when(stats.getOldest()).thenReturn(oldest);
+        when(stats.getNewest()).thenReturn(newest);
+        when(stats.getMinPrice()).thenReturn(min);
+        when(stats.getMaxPrice()).thenReturn(max);
+        return stats;
+    }
+
+    private static PriceRow price(double value) {
+        return new PriceRow(BTC.id(), 0L, value);
+    }
+}
@@ -0,0 +1,52 @@
+package com.pt.recommendation_service.service;
+
+import com.pt.recommendation_service.store.RankedRange;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopRankedRangesTest {
+
+    @Test
+    void page_matchesSlicesOfFullySortedRanges() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            names.add("C" + i);
+        }
+        SymbolRegistry registry = new SymbolRegistry(names);
+        Random random = new Random(42);
+        List<RankedRange> ranges = new ArrayList<>();
+        for (int i = 0; i < registry.size(); i++) {
+            // Few distinct values, so ties are broken by id
+            ranges.add(new RankedRange(registry.get(i), random.nextInt(20) / 10.0));
+        }
+        List<RankedRange> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted);
+
+        for (int[] page : new int[][]{{0, 1}, {0, 20}, {20, 20}, {190, 20}, {0, 200}, {0, Integer.MAX_VALUE}}) {
+            TopRankedRanges top = new TopRankedRanges(page[0], page[1]);
+            ranges.forEach(top::add);
+
+            int end = (int) Math.min((long) page[0] + page[1], sorted.size());
+            assertEquals(sorted.subList(page[0], end), top.page(), page[0] + "+" + page[1]);
+        }
+    }
+
+    @Test
+    void page_isEmpty_whenOffsetIsPastAllRanges() {
+        SymbolRegistry registry = new SymbolRegistry(List.of("BTC", "ETH"));
+        TopRankedRanges top = new TopRankedRanges(2, 10);
+        top.add(new RankedRange(registry.find("BTC"), 1.0));
+        top.add(null);
+        top.add(new RankedRange(registry.find("ETH"), 2.0));
+
+        assertTrue(top.page().isEmpty());
+    }
+}
@@ -0,0 +1,301 @@
+package com.pt.recommendation_service.store;
+
+import com.pt.recommendation_service.symbol.CryptoSymbol;
+import com.pt.recommendation_service.symbol.SymbolRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceStoreTest {
+
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
+    private static final CryptoSymbol BTC = SYMBOLS.find("BTC");
+    private static final CryptoSymbol ETH = SYMBOLS.find("ETH");
+    private static final CryptoSymbol XRP = SYMBOLS.find("XRP");
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private PriceStore priceStore;
+
+    @BeforeEach
+    void setUp() {
+        priceStore = new PriceStore(SYMBOLS);
+    }
+
+    @Test
+    void addAll_keepsSeriesSortedByTimestamp() {
+        priceStore.addAll(BTC, new long[]{30, 10, 20}, new double[]{3.0, 1.0, 2.0}, 3);
+        priceStore.addAll(BTC, new long[]{25, 5, 40, 99}, new double[]{2.5, 0.5, 4.0, 9.9}, 3);
+
+        PriceSeries series = priceStore.getSeries(BTC);
+
+        assertEquals(6, series.size());
+        long[] expectedTimestamps = {5, 10, 20, 25, 30, 40};
+        double[] expectedPrices = {0.5, 1.0, 2.0, 2.5, 3.0, 4.0};
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(expectedTimestamps[i], series.timestampAt(i));
+            assertEquals(expectedPrices[i], series.priceAt(i));
+        }
+        assertTrue(priceStore.getSeries(ETH).isEmpty());
+    }
+
+    @Test
+    void addAll_keepsInsertionOrderOfEqualTimestamps() {
+        priceStore.add(BTC, 10, 1.0);
+        priceStore.addAll(BTC, new long[]{10, 5, 10}, new double[]{2.0, 0.5, 3.0}, 3);
+
+        PriceSeries series = priceStore.getSeries(BTC);
+
+        assertEquals(0.5, series.priceAt(0));
+        assertEquals(1.0, series.priceAt(1));
+        assertEquals(2.0, series.priceAt(2));
+        assertEquals(3.0, series.priceAt(3));
+    }
+
+    @Test
+    void lowerBound_findsFirstPointAtOrAfterTimestamp() {
+        priceStore.addAll(BTC, new long[]{10, 20, 20, 30}, new double[]{1, 2, 2, 3}, 4);
+
+        PriceSeries series = priceStore.getSeries(BTC);
+
+        assertEquals(0, series.lowerBound(Long.MIN_VALUE));
+        assertEquals(1, series.lowerBound(11));
+        assertEquals(1, series.lowerBound(20));
+        assertEquals(3, series.lowerBound(21));
+        assertEquals(4, series.lowerBound(31));
+    }
+
+    @Test
+    void minAndMax_coverOnlyTheGivenIndexRange() {
+        priceStore.addAll(BTC, new long[]{1, 2, 3, 4}, new double[]{5.0, 1.0, 9.0, 3.0}, 4);
+
+        PriceSeries series = priceStore.getSeries(BTC);
+
+        assertEquals(1.0, series.min(0, 4));
+        assertEquals(9.0, series.max(0, 4));
+        assertEquals(3.0, series.min(2, 4));
+        assertEquals(5.0, series.max(0, 2));
+        assertTrue(Double.isNaN(series.min(2, 2)));
+    }
+
+    @Test
+    void minAndMax_matchLinearScanForEveryIndexRange() {
+        Random random = new Random(42);
+        int size = 37;
+        long[] timestamps = new long[size];
+        double[] prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i;
+            prices[i] = random.nextInt(1000) / 10.0;
+        }
+        priceStore.addAll(BTC, timestamps, prices, size);
+
+        PriceSeries series = priceStore.getSeries(BTC);
+
+        for (int from = 0; from < size; from++) {
+            double min = prices[from];
+            double max = prices[from];
+            for (int to = from + 1; to <= size; to++) {
+                min = Math.min(min, prices[to - 1]);
+                max = Math.max(max, prices[to - 1]);
+                assertEquals(min, series.min(from, to));
+                assertEquals(max, series.max(from, to));
+            }
+        }
+    }
+
+    @Test
+    void aggregate_coversWholeSeries() {
+        priceStore.addAll(BTC, new long[]{3, 1, 2, 4}, new double[]{9.0, 5.0, 1.0, 3.0}, 4);
+
+        PriceAggregate aggregate = priceStore.getSeries(BTC).aggregate();
+
+        assertEquals(new PriceAggregate(5.0, 3.0, 1.0, 9.0), aggregate);
+        assertNull(priceStore.getSeries(ETH).aggregate());
+    }
+
+    @Test
+    void dayAggregate_coversOnlyTheGivenUtcDay() {
+        LocalDateTime day = LocalDateTime.of(2022, 1, 2, 0, 0);
+        priceStore.add(BTC, epochMilli(day.minusNanos(1_000_000)), 1.0);
+        priceStore.add(BTC, epochMilli(day), 10.0);
+        priceStore.add(BTC, epochMilli(day.plusHours(6)), 8.0);
+        priceStore.add(BTC, epochMilli(day.plusHours(12)), 12.0);
+        priceStore.add(BTC, epochMilli(day.plusHours(23)), 11.0);
+        priceStore.add(BTC, epochMilli(day.plusDays(3)), 100.0);
+
+        PriceSeries series = priceStore.getSeries(BTC);
+
+        assertEquals(new PriceAggregate(10.0, 11.0, 8.0, 12.0), series.dayAggregate(LocalDate.of(2022, 1, 2)));
+        assertEquals(new PriceAggregate(1.0, 1.0, 1.0, 1.0), series.dayAggregate(LocalDate.of(2022, 1, 1)));
+        assertNull(series.dayAggregate(LocalDate.of(2022, 1, 3)));
+        assertNull(series.dayAggregate(LocalDate.of(2021, 12, 31)));
+        assertNull(series.dayAggregate(LocalDate.of(2022, 1, 6)));
+        assertEquals(new PriceAggregate(1.0, 100.0, 1.0, 100.0), series.aggregate());
+    }
+
+    @Test
+    void remove_dropsOnlyTheMatchingPoint() {
+        priceStore.addAll(BTC, new long[]{1, 2, 2}, new double[]{1.0, 2.0, 3.0}, 3);
+        PriceSeries before = priceStore.getSeries(BTC);
+
+        priceStore.remove(BTC, 2, 3.0);
+        priceStore.remove(BTC, 7, 1.0);
+
+        PriceSeries after = priceStore.getSeries(BTC);
+        assertEquals(3, before.size());
+        assertEquals(2, after.size());
+        assertEquals(2.0, after.priceAt(1));
+    }
+
+    @Test
+    void incrementalUpdates_matchAggregatesOfFreshlyBuiltSeries() {
+        Random random = new Random(11);
+        long day = 24L * 60 * 60 * 1000;
+        for (int step = 0; step < 300; step++) {
+            PriceSeries series = priceStore.getSeries(BTC);
+            if (step % 5 == 4 && !series.isEmpty()) {
+                int index = random.nextInt(series.size());
+                priceStore.remove(BTC, series.timestampAt(index), series.priceAt(index));
+            } else {
+                int count = 1 + random.nextInt(20);
+                long[] timestamps = new long[count];
+                double[] prices = new double[count];
+                long from = step % 3 == 0 ? random.nextLong(60 * day) : 50 * day + step * day / 10;
+                for (int i = 0; i < count; i++) {
+                    timestamps[i] = from + random.nextLong(2 * day);
+                    prices[i] = random.nextDouble() * 1000;
+                }
+                priceStore.addAll(BTC, timestamps, prices, count);
+            }
+
+            PriceSeries updated = priceStore.getSeries(BTC);
+            long[] timestamps = new long[updated.size()];
+            double[] prices = new double[updated.size()];
+            for (int i = 0; i < updated.size(); i++) {
+                timestamps[i] = updated.timestampAt(i);
+                prices[i] = updated.priceAt(i);
+            }
+            PriceSeries rebuilt = PriceSeries.EMPTY.merge(timestamps, prices, timestamps.length);
+            assertEquals(rebuilt.aggregate(), updated.aggregate());
+            for (long d = -1; d < 80; d++) {
+                LocalDate date = LocalDate.ofEpochDay(d);
+                assertEquals(rebuilt.dayAggregate(date), updated.dayAggregate(date), "step " + step + ", day " + d);
+            }
+            for (long interval : new long[]{MINUTE, HOUR, DAY}) {
+                assertRollupsEqual(rebuilt.rollup(interval), updated.rollup(interval), "step " + step);
+            }
+        }
+    }
+
+    @Test
+    void rollup_aggregatesCandlesOfEveryResolution() {
+        priceStore.addAll(BTC, new long[]{HOUR + 1, HOUR + MINUTE, 10, DAY + 5, HOUR + 2},
+                new double[]{4.0, 6.0, 1.0, 9.0, 2.0}, 5);
+
+        CandleRollup minutes = priceStore.getSeries(BTC).rollup(MINUTE);
+        CandleRollup hours = priceStore.getSeries(BTC).rollup(HOUR);
+        CandleRollup days = priceStore.getSeries(BTC).rollup(DAY);
+
+        assertEquals(4, minutes.size());
+        assertEquals(HOUR, minutes.start(1));
+        assertEquals(new PriceAggregate(4.0, 2.0, 2.0, 4.0), minutes.aggregate(1));
+        assertEquals(2, minutes.count(1));
+        assertEquals(3, hours.size());
+        assertEquals(new PriceAggregate(4.0, 6.0, 2.0, 6.0), hours.aggregate(1));
+        assertEquals(3, hours.count(1));
+        assertEquals(2, days.size());
+        assertEquals(new PriceAggregate(1.0, 6.0, 1.0, 6.0), days.aggregate(0));
+        assertEquals(4, days.count(0));
+    }
+
+    @Test
+    void rollup_returnsCoarsestResolutionThatDividesInterval() {
+        PriceSeries series = priceStore.getSeries(BTC);
+
+        assertEquals(DAY, series.rollup(7 * DAY).resolution());
+        assertEquals(HOUR, series.rollup(4 * HOUR).resolution());
+        assertEquals(MINUTE, series.rollup(90 * MINUTE).resolution());
+        assertNull(series.rollup(1000));
+    }
+
+    @Test
+    void clear_resetsEverySeries() {
+        priceStore.add(BTC, 1, 1.0);
+        priceStore.add(XRP, 1, 1.0);
+
+        priceStore.clear();
+
+        assertSame(PriceSeries.EMPTY, priceStore.getSeries(BTC));
+        assertSame(PriceSeries.EMPTY, priceStore.getSeries(XRP));
+        assertEquals(0, priceStore.ranking().size());
+    }
+
+    @Test
+    void ranking_ordersSymbolsByNormalizedRangeThenId() {
+        priceStore.addAll(BTC, new long[]{1, 2}, new double[]{100.0, 150.0}, 2);
+        priceStore.addAll(ETH, new long[]{1, 2}, new double[]{50.0, 150.0}, 2);
+        priceStore.addAll(XRP, new long[]{1, 2}, new double[]{10.0, 15.0}, 2);
+        priceStore.addAll(SYMBOLS.find("LTC"), new long[]{1, 2}, new double[]{0.0, 15.0}, 2);
+
+        NormalizedRangeRanking ranking = priceStore.ranking();
+
+        assertEquals(List.of(new RankedRange(ETH, 2.0), new RankedRange(BTC, 0.5), new RankedRange(XRP, 0.5)),
+                ranking.page(0, 10));
+        assertEquals(List.of(new RankedRange(BTC, 0.5)), ranking.page(1, 1));
+        assertTrue(ranking.page(3, 10).isEmpty());
+    }
+
+    @Test
+    void ranking_matchesSortedAggregatesAfterEveryUpdate() {
+        Random random = new Random(7);
+        List<CryptoSymbol> symbols = SYMBOLS.symbols();
+        for (int step = 0; step < 200; step++) {
+            CryptoSymbol crypto = symbols.get(random.nextInt(symbols.size()));
+            PriceSeries series = priceStore.getSeries(crypto);
+            if (step % 4 == 3 && !series.isEmpty()) {
+                int index = random.nextInt(series.size());
+                priceStore.remove(crypto, series.timestampAt(index), series.priceAt(index));
+            } else {
+                priceStore.add(crypto, random.nextInt(1000), 1 + random.nextInt(100));
+            }
+
+            List<RankedRange> expected = new ArrayList<>();
+            for (CryptoSymbol symbol : symbols) {
+                RankedRange rank = RankedRange.of(symbol, priceStore.getSeries(symbol).aggregate());
+                if (rank != null) {
+                    expected.add(rank);
+                }
+            }
+            Collections.sort(expected);
+            assertEquals(expected, priceStore.ranking().page(0, Integer.MAX_VALUE), "step " + step);
+        }
+    }
+
+    private static void assertRollupsEqual(CandleRollup expected, CandleRollup actual, String message) {
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.start(i), actual.start(i), message);
+            assertEquals(expected.aggregate(i), actual.aggregate(i), message);
+            assertEquals(expected.count(i), actual.count(i), message);
+        }
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,91 @@
+package com.pt.recommendation_service.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampledPricesTest {
+
+    private static final long START = 1641009600000L;
+    private static final long STEP = 60_000L;
+
+    private static PriceSeries series(double[] prices) {
+        long[] timestamps = new long[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            timestamps[i] = START + i * STEP;
+        }
+        return PriceSeries.EMPTY.merge(timestamps, prices, prices.length);
+    }
+
+    @Test
+    void of_returnsWholeRange_whenItHasAtMostMaxPoints() {
+        PriceSeries series = series(new double[]{1.0, 2.0, 3.0, 4.0, 5.0});
+
+        SampledPrices sampled = SampledPrices.of(series, 1, 4, 3);
+
+        assertEquals(3, sampled.size());
+        for (int i = 0; i < sampled.size(); i++) {
+            assertEquals(START + (i + 1) * STEP, sampled.timestampAt(i));
+            assertEquals(i + 2.0, sampled.priceAt(i));
+        }
+        assertEquals(0, SampledPrices.of(series, 3, 3, 3).size());
+        assertEquals(0, SampledPrices.of(PriceSeries.EMPTY, 0, 0, 3).size());
+    }
+
+    @Test
+    void of_keepsFirstAndLastPoint_whenTwoPointsAreRequested() {
+        PriceSeries series = series(new double[]{1.0, 9.0, 3.0, 4.0, 5.0});
+
+        SampledPrices sampled = SampledPrices.of(series, 0, 5, 2);
+
+        assertEquals(2, sampled.size());
+        assertEquals(1.0, sampled.priceAt(0));
+        assertEquals(5.0, sampled.priceAt(1));
+    }
+
+    @Test
+    void of_keepsOnePointPerBucketIncludingPeaksAndTroughs() {
+        double[] prices = new double[10_000];
+        Random random = new Random(42);
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 100.0 + random.nextDouble();
+        }
+        prices[2_500] = 500.0;
+        prices[7_500] = 1.0;
+        PriceSeries series = series(prices);
+        int from = 1_000;
+        int to = 9_000;
+        int maxPoints = 100;
+
+        SampledPrices sampled = SampledPrices.of(series, from, to, maxPoints);
+
+        assertEquals(maxPoints, sampled.size());
+        assertEquals(series.timestampAt(from), sampled.timestampAt(0));
+        assertEquals(series.timestampAt(to - 1), sampled.timestampAt(maxPoints - 1));
+        long inner = to - from - 2;
+        int buckets = maxPoints - 2;
+        boolean peakKept = false;
+        boolean troughKept = false;
+        for (int i = 1; i < maxPoints - 1; i++) {
+            int index = series.lowerBound(sampled.timestampAt(i));
+            assertTrue(index >= from + 1 + (i - 1) * inner / buckets, "point " + i + " before its bucket");
+            assertTrue(index < from + 1 + i * inner / buckets, "point " + i + " after its bucket");
+            assertEquals(series.priceAt(index), sampled.priceAt(i));
+            peakKept |= sampled.priceAt(i) == 500.0;
+            troughKept |= sampled.priceAt(i) == 1.0;
+        }
+        assertTrue(peakKept);
+        assertTrue(troughKept);
+    }
+
+    @Test
+    void of_rejectsFewerThanTwoPoints() {
+        PriceSeries series = series(new double[]{1.0, 2.0, 3.0});
+
+        assertThrows(IllegalArgumentException.class, () -> SampledPrices.of(series, 0, 3, 1));
+    }
+}
@@ -0,0 +1,106 @@
+package com.pt.recommendation_service.symbol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SymbolRegistryTest {
+
+    private final SymbolRegistry registry = new SymbolRegistry(List.of("BTC", "doge", " ETH ", "", "LTC", "XRP"));
+
+    @Test
+    void constructor_internsSymbolsWithDenseIdsInConfiguredOrder() {
+        assertEquals(5, registry.size());
+        assertEquals(List.of("BTC", "DOGE", "ETH", "LTC", "XRP"),
+                registry.symbols().stream().map(CryptoSymbol::name).toList());
+        assertEquals(5, registry.idLimit());
+        for (int id = 0; id < registry.size(); id++) {
+            assertEquals(id, registry.get(id).id());
+        }
+        assertNull(registry.get(5));
+        assertNull(registry.get(-1));
+    }
+
+    @Test
+    void constructor_keepsAssignedIdsAndNumbersNewSymbolsAfterThem() {
+        // DOGE has an id but is no longer supported, SOL is new
+        SymbolRegistry assigned = new SymbolRegistry(List.of("BTC", "sol", "ETH"),
+                Map.of("ETH", 0, "BTC", 1, "DOGE", 3));
+
+        assertEquals(3, assigned.size());
+        assertEquals(5, assigned.idLimit());
+        assertEquals(List.of("ETH", "BTC", "SOL"), assigned.symbols().stream().map(CryptoSymbol::name).toList());
+        assertEquals(0, assigned.find("ETH").id());
+        assertEquals(1, assigned.find("BTC").id());
+        assertEquals(4, assigned.find("SOL").id());
+        assertNull(assigned.get(3));
+        assertNull(assigned.find("DOGE"));
+    }
+
+    @Test
+    void find_ignoresCaseAndReturnsInternedSymbol() {
+        CryptoSymbol doge = registry.get(1);
+
+        assertSame(doge, registry.find("DOGE"));
+        assertSame(doge, registry.find("doge"));
+        assertSame(doge, registry.find(new StringBuilder("DoGe")));
+        assertEquals("DOGE", doge.toString());
+    }
+
+    @Test
+    void find_returnsNull_whenSymbolIsNotSupported() {
+        assertNull(registry.find("ABC"));
+        assertNull(registry.find("BTCX"));
+        assertNull(registry.find(""));
+        assertNull(registry.find((String) null));
+        assertNull(registry.find("A".repeat(SymbolRegistry.MAX_LENGTH + 1)));
+        // Non-ASCII letters never fold to ASCII ones
+        assertNull(registry.find("ıTC"));
+    }
+
+    @Test
+    void find_looksUpSymbolInByteRange() {
+        byte[] line = "1641009600000,eth,3715.32".getBytes(StandardCharsets.UTF_8);
+
+        assertSame(registry.find("ETH"), registry.find(line, 14, 17));
+        assertNull(registry.find(line, 14, 16));
+        assertNull(registry.find(line, 14, 14));
+        assertNull(registry.find(new byte[]{(byte) ('E' | 0x80), 'T', 'H'}, 0, 3));
+    }
+
+    @Test
+    void find_findsEverySymbolOfLargeRegistry() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            names.add("C" + i);
+        }
+        SymbolRegistry large = new SymbolRegistry(names);
+
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).toLowerCase(Locale.ROOT);
+            assertEquals(i, large.find(name).id());
+            byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+            assertSame(large.get(i), large.find(bytes, 0, bytes.length));
+        }
+        assertNull(large.find("C5000"));
+    }
+
+    @Test
+    void constructor_rejectsDuplicateAndInvalidSymbols() {
+        assertThrows(IllegalArgumentException.class, () -> new SymbolRegistry(List.of("BTC", "btc")));
+        assertThrows(IllegalArgumentException.class, () -> new SymbolRegistry(List.of("BT C")));
+        assertThrows(IllegalArgumentException.class, () -> new SymbolRegistry(List.of("BTC,")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SymbolRegistry(List.of("A".repeat(SymbolRegistry.MAX_LENGTH + 1))));
+        assertThrows(IllegalArgumentException.class, () -> new SymbolRegistry(List.of("BTC"), Map.of("BTC", -1)));
+    }
+}